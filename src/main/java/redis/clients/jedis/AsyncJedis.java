@@ -0,0 +1,245 @@
+package redis.clients.jedis;
+
+import static redis.clients.jedis.Protocol.toByteArray;
+import static redis.clients.jedis.Protocol.Command.*;
+import static redis.clients.jedis.Protocol.Keyword.WITHSCORES;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import redis.clients.jedis.commands.ProtocolCommand;
+import redis.clients.jedis.params.SetParams;
+import redis.clients.jedis.util.SafeEncoder;
+
+/**
+ * Non-blocking client: every command returns a {@link JedisFuture} right away and is sent over a
+ * single {@link MultiplexedConnection} shared by all threads using this instance. Replies are
+ * matched to commands in FIFO order and converted with the same {@link Builder}s as {@link Jedis}.
+ * <p>
+ * Fanning out to many keys therefore costs one round trip instead of one per key:
+ *
+ * <pre>
+ * List&lt;JedisFuture&lt;String&gt;&gt; values = new ArrayList&lt;JedisFuture&lt;String&gt;&gt;();
+ * for (String key : keys) {
+ *   values.add(asyncJedis.get(key));
+ * }
+ * for (JedisFuture&lt;String&gt; value : values) {
+ *   process(value.join());
+ * }
+ * </pre>
+ * Commands that change the state of the connection (SELECT, MULTI, WATCH, blocking operations,
+ * SUBSCRIBE...) are not available since the connection is shared.
+ */
+public class AsyncJedis implements Closeable {
+
+  private static final byte[][] EMPTY_ARGS = new byte[0][];
+
+  private final MultiplexedConnection connection;
+
+  public AsyncJedis(final String host, final int port) {
+    this(new Client(host, port));
+  }
+
+  public AsyncJedis(final HostAndPort hostAndPort) {
+    this(hostAndPort.getHost(), hostAndPort.getPort());
+  }
+
+  public AsyncJedis(final String host, final int port, final int timeout, final String password) {
+    this(createClient(host, port, timeout, password));
+  }
+
+  /**
+   * @param client a configured client (timeouts, password, database, event loop...), it is
+   *          connected right away and owned by this instance afterwards
+   */
+  public AsyncJedis(final Client client) {
+    this(new MultiplexedConnection(client));
+  }
+
+  /**
+   * @param autoPipelining see {@link MultiplexedConnection#MultiplexedConnection(Connection, boolean)}
+   */
+  public AsyncJedis(final Client client, final boolean autoPipelining) {
+    this(new MultiplexedConnection(client, autoPipelining));
+  }
+
+  public AsyncJedis(final MultiplexedConnection connection) {
+    this.connection = connection;
+  }
+
+  private static Client createClient(final String host, final int port, final int timeout,
+      final String password) {
+    final Client client = new Client(host, port);
+    client.setConnectionTimeout(timeout);
+    client.setSoTimeout(timeout);
+    client.setPassword(password);
+    return client;
+  }
+
+  public MultiplexedConnection getConnection() {
+    return connection;
+  }
+
+  @Override
+  public void close() {
+    connection.close();
+  }
+
+  public <T> JedisFuture<T> sendCommand(final Builder<T> builder, final ProtocolCommand cmd,
+      final byte[]... args) {
+    return connection.send(builder, cmd, args);
+  }
+
+  public <T> JedisFuture<T> sendCommand(final Builder<T> builder, final ProtocolCommand cmd,
+      final String... args) {
+    return connection.send(builder, cmd, SafeEncoder.encodeMany(args));
+  }
+
+  public JedisFuture<String> ping() {
+    return sendCommand(BuilderFactory.STRING, PING, EMPTY_ARGS);
+  }
+
+  public JedisFuture<String> get(final String key) {
+    return sendCommand(BuilderFactory.STRING, GET, key);
+  }
+
+  public JedisFuture<byte[]> get(final byte[] key) {
+    return sendCommand(BuilderFactory.BYTE_ARRAY, GET, key);
+  }
+
+  public JedisFuture<String> set(final String key, final String value) {
+    return sendCommand(BuilderFactory.STRING, SET, key, value);
+  }
+
+  public JedisFuture<String> set(final byte[] key, final byte[] value) {
+    return sendCommand(BuilderFactory.STRING, SET, key, value);
+  }
+
+  public JedisFuture<String> set(final String key, final String value, final SetParams params) {
+    return sendCommand(BuilderFactory.STRING, SET,
+      params.getByteParams(SafeEncoder.encode(key), SafeEncoder.encode(value)));
+  }
+
+  public JedisFuture<List<String>> mget(final String... keys) {
+    return sendCommand(BuilderFactory.STRING_LIST, MGET, keys);
+  }
+
+  public JedisFuture<List<byte[]>> mget(final byte[]... keys) {
+    return sendCommand(BuilderFactory.BYTE_ARRAY_LIST, MGET, keys);
+  }
+
+  public JedisFuture<String> mset(final String... keysvalues) {
+    return sendCommand(BuilderFactory.STRING, MSET, keysvalues);
+  }
+
+  public JedisFuture<Long> del(final String... keys) {
+    return sendCommand(BuilderFactory.LONG, DEL, keys);
+  }
+
+  public JedisFuture<Long> del(final byte[]... keys) {
+    return sendCommand(BuilderFactory.LONG, DEL, keys);
+  }
+
+  public JedisFuture<Long> exists(final String... keys) {
+    return sendCommand(BuilderFactory.LONG, EXISTS, keys);
+  }
+
+  public JedisFuture<Long> expire(final String key, final int seconds) {
+    return sendCommand(BuilderFactory.LONG, EXPIRE, SafeEncoder.encode(key), toByteArray(seconds));
+  }
+
+  public JedisFuture<Long> ttl(final String key) {
+    return sendCommand(BuilderFactory.LONG, TTL, key);
+  }
+
+  public JedisFuture<Long> incr(final String key) {
+    return sendCommand(BuilderFactory.LONG, INCR, key);
+  }
+
+  public JedisFuture<Long> incrBy(final String key, final long increment) {
+    return sendCommand(BuilderFactory.LONG, INCRBY, SafeEncoder.encode(key),
+      toByteArray(increment));
+  }
+
+  public JedisFuture<Long> decr(final String key) {
+    return sendCommand(BuilderFactory.LONG, DECR, key);
+  }
+
+  public JedisFuture<String> hget(final String key, final String field) {
+    return sendCommand(BuilderFactory.STRING, HGET, key, field);
+  }
+
+  public JedisFuture<Long> hset(final String key, final String field, final String value) {
+    return sendCommand(BuilderFactory.LONG, HSET, key, field, value);
+  }
+
+  public JedisFuture<List<String>> hmget(final String key, final String... fields) {
+    return sendCommand(BuilderFactory.STRING_LIST, HMGET, joinParameters(key, fields));
+  }
+
+  public JedisFuture<Map<String, String>> hgetAll(final String key) {
+    return sendCommand(BuilderFactory.STRING_MAP, HGETALL, key);
+  }
+
+  public JedisFuture<Long> hdel(final String key, final String... fields) {
+    return sendCommand(BuilderFactory.LONG, HDEL, joinParameters(key, fields));
+  }
+
+  public JedisFuture<Long> lpush(final String key, final String... values) {
+    return sendCommand(BuilderFactory.LONG, LPUSH, joinParameters(key, values));
+  }
+
+  public JedisFuture<Long> rpush(final String key, final String... values) {
+    return sendCommand(BuilderFactory.LONG, RPUSH, joinParameters(key, values));
+  }
+
+  public JedisFuture<List<String>> lrange(final String key, final long start, final long stop) {
+    return sendCommand(BuilderFactory.STRING_LIST, LRANGE, SafeEncoder.encode(key),
+      toByteArray(start), toByteArray(stop));
+  }
+
+  public JedisFuture<Long> sadd(final String key, final String... members) {
+    return sendCommand(BuilderFactory.LONG, SADD, joinParameters(key, members));
+  }
+
+  public JedisFuture<Long> srem(final String key, final String... members) {
+    return sendCommand(BuilderFactory.LONG, SREM, joinParameters(key, members));
+  }
+
+  public JedisFuture<Set<String>> smembers(final String key) {
+    return sendCommand(BuilderFactory.STRING_SET, SMEMBERS, key);
+  }
+
+  public JedisFuture<Long> zadd(final String key, final double score, final String member) {
+    return sendCommand(BuilderFactory.LONG, ZADD, SafeEncoder.encode(key), toByteArray(score),
+      SafeEncoder.encode(member));
+  }
+
+  public JedisFuture<Double> zscore(final String key, final String member) {
+    return sendCommand(BuilderFactory.DOUBLE, ZSCORE, key, member);
+  }
+
+  public JedisFuture<Set<String>> zrange(final String key, final long start, final long stop) {
+    return sendCommand(BuilderFactory.STRING_ZSET, ZRANGE, SafeEncoder.encode(key),
+      toByteArray(start), toByteArray(stop));
+  }
+
+  public JedisFuture<Set<Tuple>> zrangeWithScores(final String key, final long start,
+      final long stop) {
+    return sendCommand(BuilderFactory.TUPLE_ZSET, ZRANGE, SafeEncoder.encode(key),
+      toByteArray(start), toByteArray(stop), WITHSCORES.raw);
+  }
+
+  public JedisFuture<Long> publish(final String channel, final String message) {
+    return sendCommand(BuilderFactory.LONG, PUBLISH, channel, message);
+  }
+
+  private static String[] joinParameters(final String first, final String[] rest) {
+    final String[] result = new String[rest.length + 1];
+    result[0] = first;
+    System.arraycopy(rest, 0, result, 1, rest.length);
+    return result;
+  }
+}
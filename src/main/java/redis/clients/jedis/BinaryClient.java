@@ -23,6 +23,8 @@ import javax.net.ssl.SSLParameters;
 import javax.net.ssl.SSLSocketFactory;
 
 import redis.clients.jedis.Protocol.Keyword;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
 import redis.clients.jedis.params.ClientKillParams;
 import redis.clients.jedis.params.GeoRadiusParam;
 import redis.clients.jedis.params.MigrateParams;
@@ -39,8 +41,12 @@ public class BinaryClient extends Connection {
 
   private int db;
 
+  private String clientName;
+
   private boolean isInWatch;
 
+  private boolean readOnly;
+
   public BinaryClient() {
     super();
   }
@@ -67,6 +73,14 @@ public class BinaryClient extends Connection {
     return isInMulti;
   }
 
+  /**
+   * @return whether READONLY was sent on the current connection, allowing reads from a cluster
+   *         replica
+   */
+  public boolean isReadOnly() {
+    return readOnly;
+  }
+
   public boolean isInWatch() {
     return isInWatch;
   }
@@ -94,21 +108,72 @@ public class BinaryClient extends Connection {
     this.db = db;
   }
 
+  /**
+   * @param clientName name given with CLIENT SETNAME to each connection, null for none
+   */
+  public void setClientName(final String clientName) {
+    this.clientName = clientName;
+  }
+
+  public String getClientName() {
+    return clientName;
+  }
+
   @Override
   public void connect() {
     if (!isConnected()) {
       super.connect();
-      if (password != null) {
-        auth(password);
-        getStatusCodeReply();
-      }
-      if (db > 0) {
-        select(db);
-        getStatusCodeReply();
+      readOnly = false;
+      handshake();
+    }
+  }
+
+  /**
+   * Sends AUTH, SELECT and CLIENT SETNAME as needed in a single round trip. If one of them fails
+   * the connection is closed and the error names the failed step.
+   */
+  private void handshake() {
+    final List<String> steps = new ArrayList<String>(3);
+    if (password != null) {
+      sendCommand(AUTH, password);
+      steps.add("AUTH");
+    }
+    if (db > 0) {
+      select(db);
+      steps.add("SELECT " + db);
+    }
+    if (clientName != null) {
+      sendCommand(CLIENT, Keyword.SETNAME.raw, SafeEncoder.encode(clientName));
+      steps.add("CLIENT SETNAME");
+    }
+    if (steps.isEmpty()) {
+      return;
+    }
+    final List<Object> replies;
+    try {
+      replies = getMany(steps.size());
+    } catch (JedisConnectionException e) {
+      disconnectQuietly();
+      throw e;
+    }
+    for (int i = 0; i < replies.size(); i++) {
+      if (replies.get(i) instanceof JedisDataException) {
+        disconnectQuietly();
+        final JedisDataException cause = (JedisDataException) replies.get(i);
+        throw new JedisDataException(steps.get(i) + " failed during the connection handshake: "
+            + cause.getMessage(), cause);
       }
     }
   }
 
+  private void disconnectQuietly() {
+    try {
+      disconnect();
+    } catch (JedisConnectionException e) {
+      // the handshake error is the one worth reporting
+    }
+  }
+
   public void ping() {
     sendCommand(PING);
   }
@@ -194,6 +259,17 @@ public class BinaryClient extends Connection {
     sendCommand(SELECT, toByteArray(index));
   }
 
+  /**
+   * Sends a SELECT whose reply is read, and discarded, along with the next command's: the
+   * database is changed without waiting for a round trip. The command is only written out by the
+   * next flush.
+   */
+  public void pipelinedSelect(final int index) {
+    select(index);
+    skipNextReply();
+    db = index;
+  }
+
   public void swapDB(final int index1, final int index2) {
     sendCommand(SWAPDB, toByteArray(index1), toByteArray(index2));
   }
@@ -589,6 +665,7 @@ public class BinaryClient extends Connection {
   }
 
   public void auth(final String password) {
+    // recorded first so that a reconnection does not use a previous password
     setPassword(password);
     sendCommand(AUTH, password);
   }
@@ -1154,8 +1231,19 @@ public class BinaryClient extends Connection {
     sendCommand(PFMERGE, joinParameters(destkey, sourcekeys));
   }
 
+  /**
+   * Sends ASKING without waiting for its reply, which is read and discarded together with the
+   * reply of the next command, so that a command redirected by ASK only costs one round trip. It
+   * must be directly followed by that command; pipelines read the ASKING reply themselves.
+   */
+  public void pipelinedAsking() {
+    asking();
+    skipNextReply();
+  }
+
   public void readonly() {
     sendCommand(READONLY);
+    readOnly = true;
   }
 
   public void geoadd(final byte[] key, final double longitude, final double latitude, final byte[] member) {
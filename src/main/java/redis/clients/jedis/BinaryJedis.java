@@ -35,6 +35,7 @@ import redis.clients.jedis.params.MigrateParams;
 import redis.clients.jedis.params.SetParams;
 import redis.clients.jedis.params.ZAddParams;
 import redis.clients.jedis.params.ZIncrByParams;
+import redis.clients.jedis.util.HotKeySampler;
 import redis.clients.jedis.util.JedisByteHashMap;
 import redis.clients.jedis.util.JedisURIHelper;
 
@@ -169,16 +170,11 @@ public class BinaryJedis implements BasicCommands, BinaryJedisCommands, MultiKey
       sslSocketFactory, sslParameters, hostnameVerifier);
 
     String password = JedisURIHelper.getPassword(uri);
-    if (password != null) {
-      client.auth(password);
-      client.getStatusCodeReply();
-    }
-
     int dbIndex = JedisURIHelper.getDBIndex(uri);
-    if (dbIndex > 0) {
-      client.select(dbIndex);
-      client.getStatusCodeReply();
+    if (password != null || dbIndex > 0) {
+      client.setPassword(password);
       client.setDb(dbIndex);
+      client.connect();
     }
   }
 
@@ -632,6 +628,19 @@ public class BinaryJedis implements BasicCommands, BinaryJedisCommands, MultiKey
     return client.getBinaryMultiBulkReply();
   }
 
+  /**
+   * Same as {@link #mget(byte[]...)} but hands every value to the consumer as a slice of the read
+   * buffer instead of building a list of arrays.
+   * @param consumer receives the value of the key at the given index, length -1 if it is missing
+   * @param keys
+   * @return the number of values read
+   */
+  public int mget(final BulkReplyConsumer consumer, final byte[]... keys) {
+    checkIsInMultiOrPipeline();
+    client.mget(keys);
+    return client.getBulkReplies(consumer);
+  }
+
   /**
    * SETNX works exactly like {@link #set(byte[], byte[]) SET} with the only difference that if the
    * key already exists no operation is performed. SETNX actually means "SET if Not eXists".
@@ -2241,6 +2250,12 @@ public class BinaryJedis implements BasicCommands, BinaryJedisCommands, MultiKey
   @Override
   public String auth(final String password) {
     checkIsInMultiOrPipeline();
+    if (!client.isConnected()) {
+      // the connection handshake authenticates with the new password and checks the reply
+      client.setPassword(password);
+      client.connect();
+      return "OK";
+    }
     client.auth(password);
     return client.getStatusCodeReply();
   }
@@ -3195,6 +3210,14 @@ public class BinaryJedis implements BasicCommands, BinaryJedisCommands, MultiKey
     return client;
   }
 
+  /**
+   * Feeds the keys of the commands sent on this connection to the sampler, which may be shared by
+   * several connections. See {@link Connection#setHotKeySampler(HotKeySampler)}.
+   */
+  public void setHotKeySampler(final HotKeySampler hotKeySampler) {
+    client.setHotKeySampler(hotKeySampler);
+  }
+
   /**
    * Pop a value from a list, push it to another list and return it; or block until one is available
    * @param source
@@ -3732,6 +3755,84 @@ public class BinaryJedis implements BasicCommands, BinaryJedisCommands, MultiKey
     return new ScanResult<>(newcursor, results);
   }
 
+  /**
+   * Iterates over the whole SCAN starting at the cursor, see {@link ScanIterator}.
+   * @param prefetch whether to fetch the next page while the current one is consumed
+   */
+  public ScanIterator<byte[]> scanIterator(final byte[] cursor, final ScanParams params,
+      final boolean prefetch) {
+    checkIsInMultiOrPipeline();
+    return new ScanIterator<byte[]>(client, cursor, params, prefetch) {
+      @Override
+      protected void sendScan(Client client, byte[] cursor, ScanParams params) {
+        client.scan(cursor, params);
+      }
+
+      @Override
+      protected List<byte[]> buildPage(List<byte[]> rawResults) {
+        return rawResults;
+      }
+    };
+  }
+
+  public ScanIterator<Map.Entry<byte[], byte[]>> hscanIterator(final byte[] key,
+      final byte[] cursor, final ScanParams params, final boolean prefetch) {
+    checkIsInMultiOrPipeline();
+    return new ScanIterator<Map.Entry<byte[], byte[]>>(client, cursor, params, prefetch) {
+      @Override
+      protected void sendScan(Client client, byte[] cursor, ScanParams params) {
+        client.hscan(key, cursor, params);
+      }
+
+      @Override
+      protected List<Map.Entry<byte[], byte[]>> buildPage(List<byte[]> rawResults) {
+        List<Map.Entry<byte[], byte[]>> results = new ArrayList<>(rawResults.size() / 2);
+        Iterator<byte[]> iterator = rawResults.iterator();
+        while (iterator.hasNext()) {
+          results.add(new AbstractMap.SimpleEntry<>(iterator.next(), iterator.next()));
+        }
+        return results;
+      }
+    };
+  }
+
+  public ScanIterator<byte[]> sscanIterator(final byte[] key, final byte[] cursor,
+      final ScanParams params, final boolean prefetch) {
+    checkIsInMultiOrPipeline();
+    return new ScanIterator<byte[]>(client, cursor, params, prefetch) {
+      @Override
+      protected void sendScan(Client client, byte[] cursor, ScanParams params) {
+        client.sscan(key, cursor, params);
+      }
+
+      @Override
+      protected List<byte[]> buildPage(List<byte[]> rawResults) {
+        return rawResults;
+      }
+    };
+  }
+
+  public ScanIterator<Tuple> zscanIterator(final byte[] key, final byte[] cursor,
+      final ScanParams params, final boolean prefetch) {
+    checkIsInMultiOrPipeline();
+    return new ScanIterator<Tuple>(client, cursor, params, prefetch) {
+      @Override
+      protected void sendScan(Client client, byte[] cursor, ScanParams params) {
+        client.zscan(key, cursor, params);
+      }
+
+      @Override
+      protected List<Tuple> buildPage(List<byte[]> rawResults) {
+        List<Tuple> results = new ArrayList<>(rawResults.size() / 2);
+        Iterator<byte[]> iterator = rawResults.iterator();
+        while (iterator.hasNext()) {
+          results.add(new Tuple(iterator.next(), BuilderFactory.DOUBLE.build(iterator.next())));
+        }
+        return results;
+      }
+    };
+  }
+
   @Override
   public Long geoadd(final byte[] key, final double longitude, final double latitude, final byte[] member) {
     checkIsInMultiOrPipeline();
@@ -4085,4 +4186,14 @@ public class BinaryJedis implements BasicCommands, BinaryJedisCommands, MultiKey
   public Object sendCommand(ProtocolCommand cmd) {
     return sendCommand(cmd, dummyArray);
   }
+
+  /**
+   * Sends a command and streams its reply to the visitor instead of returning it, e.g. to walk a
+   * huge HGETALL or LRANGE reply without holding it in memory.
+   */
+  public void sendCommand(ReplyVisitor visitor, ProtocolCommand cmd, byte[]... args) {
+    checkIsInMultiOrPipeline();
+    client.sendCommand(cmd, args);
+    client.getReply(visitor);
+  }
 }
@@ -8,11 +8,13 @@ import redis.clients.jedis.params.GeoRadiusParam;
 import redis.clients.jedis.params.SetParams;
 import redis.clients.jedis.params.ZAddParams;
 import redis.clients.jedis.params.ZIncrByParams;
+import redis.clients.jedis.util.HotKeySampler;
 import redis.clients.jedis.util.JedisClusterHashTagUtil;
 import redis.clients.jedis.util.KeyMergeUtil;
 import redis.clients.jedis.util.SafeEncoder;
 
 import java.io.Closeable;
+import java.io.File;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -80,6 +82,20 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
     this.maxAttempts = maxAttempts;
   }
 
+  public BinaryJedisCluster(Set<HostAndPort> jedisClusterNode, int connectionTimeout, int soTimeout, int maxAttempts, String password, String clientName, GenericObjectPoolConfig poolConfig,
+      NioEventLoop eventLoop) {
+    this.connectionHandler = new JedisSlotBasedConnectionHandler(jedisClusterNode, poolConfig,
+        connectionTimeout, soTimeout, password, clientName, eventLoop);
+    this.maxAttempts = maxAttempts;
+  }
+
+  public BinaryJedisCluster(Set<HostAndPort> jedisClusterNode, int connectionTimeout, int soTimeout, int maxAttempts, String password, String clientName, GenericObjectPoolConfig poolConfig,
+      File slotCacheFile, int prefillConnections) {
+    this.connectionHandler = new JedisSlotBasedConnectionHandler(jedisClusterNode, poolConfig,
+        connectionTimeout, soTimeout, password, clientName, null, slotCacheFile, prefillConnections);
+    this.maxAttempts = maxAttempts;
+  }
+
   @Override
   public void close() {
     if (connectionHandler != null) {
@@ -91,10 +107,87 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
     return connectionHandler.getNodes();
   }
 
+  /**
+   * @return the command outcomes of a node of {@link #getClusterNodes()}, null if it is unknown
+   */
+  public JedisClusterNodeHealth getNodeHealth(JedisPool pool) {
+    return connectionHandler.getNodeHealth(pool);
+  }
+
   public Jedis getConnectionFromSlot(int slot) {
 	  return  this.connectionHandler.getConnectionFromSlot(slot);
   }
 
+  /**
+   * See {@link JedisClusterConnectionHandler#setCircuitBreaker(int, long)}.
+   */
+  public void setCircuitBreaker(int failureThreshold, long openMillis) {
+    connectionHandler.setCircuitBreaker(failureThreshold, openMillis);
+  }
+
+  /**
+   * Chooses which node serves the read only commands, the master by default.
+   */
+  public void setReadFrom(ReadFrom readFrom) {
+    connectionHandler.setReadFrom(readFrom);
+  }
+
+  /**
+   * Renews the slot cache from a background thread, at most once per
+   * <code>minIntervalMillis</code>, instead of synchronously in the thread that got a MOVED reply
+   * or lost its connection. With <code>periodMillis</code> &gt; 0 it is also renewed periodically.
+   */
+  public void startTopologyRefresher(long minIntervalMillis, long periodMillis) {
+    connectionHandler.startTopologyRefresher(minIntervalMillis, periodMillis);
+  }
+
+  /**
+   * Notifies the listener of the nodes added or removed and of the slot ranges that changed master
+   * at every later renewal of the slot cache, see {@link JedisClusterTopologyEvent}.
+   */
+  public void addTopologyListener(JedisClusterTopologyListener listener) {
+    connectionHandler.addTopologyListener(listener);
+  }
+
+  public void removeTopologyListener(JedisClusterTopologyListener listener) {
+    connectionHandler.removeTopologyListener(listener);
+  }
+
+  /**
+   * Samples the keys of the commands run to find the hottest keys and slots, see
+   * {@link HotKeySampler}. null stops sampling.
+   */
+  public void setHotKeySampler(HotKeySampler hotKeySampler) {
+    connectionHandler.setHotKeySampler(hotKeySampler);
+  }
+
+  public HotKeySampler getHotKeySampler() {
+    return connectionHandler.getHotKeySampler();
+  }
+
+  /**
+   * @return a new pipeline routing each command to the node serving its key
+   */
+  public JedisClusterPipeline pipelined() {
+    return new JedisClusterPipeline(connectionHandler, maxAttempts);
+  }
+
+  /**
+   * Scans the keyspace of every master, one of them per call, see {@link JedisClusterScan}.
+   * Unlike {@link #scan(byte[], ScanParams)} the MATCH pattern does not need a hash tag.
+   */
+  public ScanResult<byte[]> scanCluster(final byte[] cursor, final ScanParams params) {
+    return scanCluster(cursor, params, 1);
+  }
+
+  /**
+   * @param parallelism maximum number of masters scanned concurrently by the call
+   */
+  public ScanResult<byte[]> scanCluster(final byte[] cursor, final ScanParams params,
+      final int parallelism) {
+    return new JedisClusterScan(connectionHandler, maxAttempts, parallelism).scan(cursor, params);
+  }
+
   @Override
   public String set(final byte[] key, final byte[] value) {
     return new JedisClusterCommand<String>(connectionHandler, maxAttempts) {
@@ -122,17 +215,12 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public byte[] execute(Jedis connection) {
         return connection.get(key);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
   public Long exists(final byte[]... keys) {
-    return new JedisClusterCommand<Long>(connectionHandler, maxAttempts) {
-      @Override
-      public Long execute(Jedis connection) {
-        return connection.exists(keys);
-      }
-    }.runBinary(keys.length, keys);
+    return new JedisClusterMultiKeyCommand(connectionHandler, maxAttempts).exists(keys);
   }
 
   @Override
@@ -142,7 +230,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Boolean execute(Jedis connection) {
         return connection.exists(key);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -162,7 +250,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public String execute(Jedis connection) {
         return connection.type(key);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -172,7 +260,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public byte[] execute(Jedis connection) {
         return connection.dump(key);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -232,7 +320,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Long execute(Jedis connection) {
         return connection.ttl(key);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -242,7 +330,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Long execute(Jedis connection) {
         return connection.pttl(key);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -292,7 +380,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Boolean execute(Jedis connection) {
         return connection.getbit(key, offset);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -312,7 +400,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public byte[] execute(Jedis connection) {
         return connection.getrange(key, startOffset, endOffset);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -422,7 +510,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public byte[] execute(Jedis connection) {
         return connection.substr(key, start, end);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -452,7 +540,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public byte[] execute(Jedis connection) {
         return connection.hget(key, field);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -482,7 +570,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public List<byte[]> execute(Jedis connection) {
         return connection.hmget(key, fields);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -512,7 +600,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Boolean execute(Jedis connection) {
         return connection.hexists(key, field);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -532,7 +620,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Long execute(Jedis connection) {
         return connection.hlen(key);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -542,7 +630,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Set<byte[]> execute(Jedis connection) {
         return connection.hkeys(key);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -552,7 +640,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Collection<byte[]> execute(Jedis connection) {
         return connection.hvals(key);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -562,7 +650,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Map<byte[], byte[]> execute(Jedis connection) {
         return connection.hgetAll(key);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -592,7 +680,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Long execute(Jedis connection) {
         return connection.llen(key);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -602,7 +690,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public List<byte[]> execute(Jedis connection) {
         return connection.lrange(key, start, stop);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -622,7 +710,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public byte[] execute(Jedis connection) {
         return connection.lindex(key, index);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -682,7 +770,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Set<byte[]> execute(Jedis connection) {
         return connection.smembers(key);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -722,7 +810,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Long execute(Jedis connection) {
         return connection.scard(key);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -732,7 +820,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Boolean execute(Jedis connection) {
         return connection.sismember(key, member);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -742,7 +830,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public byte[] execute(Jedis connection) {
         return connection.srandmember(key);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -752,7 +840,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Long execute(Jedis connection) {
         return connection.strlen(key);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -803,7 +891,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Set<byte[]> execute(Jedis connection) {
         return connection.zrange(key, start, stop);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -844,7 +932,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Long execute(Jedis connection) {
         return connection.zrank(key, member);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -854,7 +942,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Long execute(Jedis connection) {
         return connection.zrevrank(key, member);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -864,7 +952,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Set<byte[]> execute(Jedis connection) {
         return connection.zrevrange(key, start, stop);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -874,7 +962,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Set<Tuple> execute(Jedis connection) {
         return connection.zrangeWithScores(key, start, stop);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -884,7 +972,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Set<Tuple> execute(Jedis connection) {
         return connection.zrevrangeWithScores(key, start, stop);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -894,7 +982,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Long execute(Jedis connection) {
         return connection.zcard(key);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -904,7 +992,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Double execute(Jedis connection) {
         return connection.zscore(key, member);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -954,7 +1042,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Long execute(Jedis connection) {
         return connection.zcount(key, min, max);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -964,7 +1052,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Long execute(Jedis connection) {
         return connection.zcount(key, min, max);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -974,7 +1062,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Set<byte[]> execute(Jedis connection) {
         return connection.zrangeByScore(key, min, max);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -984,7 +1072,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Set<byte[]> execute(Jedis connection) {
         return connection.zrangeByScore(key, min, max);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -994,7 +1082,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Set<byte[]> execute(Jedis connection) {
         return connection.zrevrangeByScore(key, max, min);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -1005,7 +1093,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Set<byte[]> execute(Jedis connection) {
         return connection.zrangeByScore(key, min, max, offset, count);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -1015,7 +1103,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Set<byte[]> execute(Jedis connection) {
         return connection.zrevrangeByScore(key, max, min);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -1026,7 +1114,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Set<byte[]> execute(Jedis connection) {
         return connection.zrangeByScore(key, min, max, offset, count);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -1037,7 +1125,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Set<byte[]> execute(Jedis connection) {
         return connection.zrevrangeByScore(key, max, min, offset, count);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -1047,7 +1135,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Set<Tuple> execute(Jedis connection) {
         return connection.zrangeByScoreWithScores(key, min, max);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -1057,7 +1145,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Set<Tuple> execute(Jedis connection) {
         return connection.zrevrangeByScoreWithScores(key, max, min);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -1068,7 +1156,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Set<Tuple> execute(Jedis connection) {
         return connection.zrangeByScoreWithScores(key, min, max, offset, count);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -1079,7 +1167,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Set<byte[]> execute(Jedis connection) {
         return connection.zrevrangeByScore(key, max, min, offset, count);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -1089,7 +1177,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Set<Tuple> execute(Jedis connection) {
         return connection.zrangeByScoreWithScores(key, min, max);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -1099,7 +1187,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Set<Tuple> execute(Jedis connection) {
         return connection.zrevrangeByScoreWithScores(key, max, min);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -1110,7 +1198,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Set<Tuple> execute(Jedis connection) {
         return connection.zrangeByScoreWithScores(key, min, max, offset, count);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -1121,7 +1209,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Set<Tuple> execute(Jedis connection) {
         return connection.zrevrangeByScoreWithScores(key, max, min, offset, count);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -1132,7 +1220,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Set<Tuple> execute(Jedis connection) {
         return connection.zrevrangeByScoreWithScores(key, max, min, offset, count);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -1244,7 +1332,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Long execute(Jedis connection) {
         return connection.bitcount(key);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -1254,7 +1342,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Long execute(Jedis connection) {
         return connection.bitcount(key, start, end);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -1274,7 +1362,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Long execute(Jedis connection) {
         return connection.pfcount(key);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -1284,7 +1372,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public List<byte[]> execute(Jedis connection) {
         return connection.srandmember(key, count);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -1294,7 +1382,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Long execute(Jedis connection) {
         return connection.zlexcount(key, min, max);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -1304,7 +1392,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Set<byte[]> execute(Jedis connection) {
         return connection.zrangeByLex(key, min, max);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -1315,7 +1403,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Set<byte[]> execute(Jedis connection) {
         return connection.zrangeByLex(key, min, max, offset, count);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -1325,7 +1413,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Set<byte[]> execute(Jedis connection) {
         return connection.zrevrangeByLex(key, max, min);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -1336,7 +1424,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Set<byte[]> execute(Jedis connection) {
         return connection.zrevrangeByLex(key, max, min, offset, count);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -1461,12 +1549,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
 
   @Override
   public Long del(final byte[]... keys) {
-    return new JedisClusterCommand<Long>(connectionHandler, maxAttempts) {
-      @Override
-      public Long execute(Jedis connection) {
-        return connection.del(keys);
-      }
-    }.runBinary(keys.length, keys);
+    return new JedisClusterMultiKeyCommand(connectionHandler, maxAttempts).del(keys);
   }
 
   @Override
@@ -1491,28 +1574,12 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
 
   @Override
   public List<byte[]> mget(final byte[]... keys) {
-    return new JedisClusterCommand<List<byte[]>>(connectionHandler, maxAttempts) {
-      @Override
-      public List<byte[]> execute(Jedis connection) {
-        return connection.mget(keys);
-      }
-    }.runBinary(keys.length, keys);
+    return new JedisClusterMultiKeyCommand(connectionHandler, maxAttempts).mget(keys);
   }
 
   @Override
   public String mset(final byte[]... keysvalues) {
-    byte[][] keys = new byte[keysvalues.length / 2][];
-
-    for (int keyIdx = 0; keyIdx < keys.length; keyIdx++) {
-      keys[keyIdx] = keysvalues[keyIdx * 2];
-    }
-
-    return new JedisClusterCommand<String>(connectionHandler, maxAttempts) {
-      @Override
-      public String execute(Jedis connection) {
-        return connection.mset(keysvalues);
-      }
-    }.runBinary(keys.length, keys);
+    return new JedisClusterMultiKeyCommand(connectionHandler, maxAttempts).mset(keysvalues);
   }
 
   @Override
@@ -1809,7 +1876,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Double execute(Jedis connection) {
         return connection.geodist(key, member1, member2);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -1820,7 +1887,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Double execute(Jedis connection) {
         return connection.geodist(key, member1, member2, unit);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -1830,7 +1897,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public List<byte[]> execute(Jedis connection) {
         return connection.geohash(key, members);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -1840,7 +1907,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public List<GeoCoordinate> execute(Jedis connection) {
         return connection.geopos(key, members);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -1862,7 +1929,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public List<GeoRadiusResponse> execute(Jedis connection) {
         return connection.georadiusReadonly(key, longitude, latitude, radius, unit);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -1884,7 +1951,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public List<GeoRadiusResponse> execute(Jedis connection) {
         return connection.georadiusReadonly(key, longitude, latitude, radius, unit, param);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -1906,7 +1973,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public List<GeoRadiusResponse> execute(Jedis connection) {
         return connection.georadiusByMemberReadonly(key, member, radius, unit);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -1928,7 +1995,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public List<GeoRadiusResponse> execute(Jedis connection) {
         return connection.georadiusByMemberReadonly(key, member, radius, unit, param);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -2002,7 +2069,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public ScanResult<byte[]> execute(Jedis connection) {
         return connection.sscan(key, cursor);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -2012,7 +2079,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public ScanResult<byte[]> execute(Jedis connection) {
         return connection.sscan(key, cursor, params);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -2022,7 +2089,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public ScanResult<Tuple> execute(Jedis connection) {
         return connection.zscan(key, cursor);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -2032,7 +2099,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public ScanResult<Tuple> execute(Jedis connection) {
         return connection.zscan(key, cursor, params);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
 
   @Override
@@ -2052,7 +2119,7 @@ public class BinaryJedisCluster implements BinaryJedisClusterCommands,
       public Long execute(Jedis connection) {
         return connection.hstrlen(key, field);
       }
-    }.runBinary(key);
+    }.runReadOnlyBinary(key);
   }
   
   @Override
@@ -0,0 +1,18 @@
+package redis.clients.jedis;
+
+/**
+ * Receives bulk replies as slices of the connection's read buffer instead of freshly allocated
+ * arrays. The slice is only valid for the duration of the call; implementations that need to keep
+ * the value must decode or copy it before returning.
+ * @see Protocol#read(redis.clients.jedis.util.RedisInputStream, BulkReplyConsumer)
+ */
+public interface BulkReplyConsumer {
+
+  /**
+   * @param index position of the element in the reply, 0 for a single bulk reply
+   * @param buf buffer holding the value, {@code null} for a nil reply
+   * @param offset start of the value in {@code buf}
+   * @param length length of the value, -1 for a nil reply
+   */
+  void accept(int index, byte[] buf, int offset, int length);
+}
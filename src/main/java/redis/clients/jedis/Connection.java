@@ -16,6 +16,7 @@ import javax.net.ssl.SSLSocketFactory;
 import redis.clients.jedis.commands.ProtocolCommand;
 import redis.clients.jedis.exceptions.JedisConnectionException;
 import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.util.HotKeySampler;
 import redis.clients.jedis.util.IOUtils;
 import redis.clients.jedis.util.RedisInputStream;
 import redis.clients.jedis.util.RedisOutputStream;
@@ -33,10 +34,14 @@ public class Connection implements Closeable {
   private int connectionTimeout = Protocol.DEFAULT_TIMEOUT;
   private int soTimeout = Protocol.DEFAULT_TIMEOUT;
   private boolean broken = false;
+  private int skippedReplies = 0;
   private boolean ssl;
   private SSLSocketFactory sslSocketFactory;
   private SSLParameters sslParameters;
   private HostnameVerifier hostnameVerifier;
+  private NioEventLoop eventLoop;
+  private NioChannel channel;
+  private HotKeySampler hotKeySampler;
 
   public Connection() {
   }
@@ -87,6 +92,31 @@ public class Connection implements Closeable {
     this.soTimeout = soTimeout;
   }
 
+  public NioEventLoop getEventLoop() {
+    return eventLoop;
+  }
+
+  /**
+   * Makes the next {@link #connect()} open a non-blocking channel served by the given event loop
+   * instead of a blocking socket. Has no effect on an already established connection.
+   * @param eventLoop event loop to use, or null for a blocking socket
+   */
+  public void setEventLoop(NioEventLoop eventLoop) {
+    this.eventLoop = eventLoop;
+  }
+
+  public HotKeySampler getHotKeySampler() {
+    return hotKeySampler;
+  }
+
+  /**
+   * @param hotKeySampler sampler fed with the first argument of the commands sent when it is a
+   *          key, null to stop sampling
+   */
+  public void setHotKeySampler(HotKeySampler hotKeySampler) {
+    this.hotKeySampler = hotKeySampler;
+  }
+
   public void setTimeoutInfinite() {
     try {
       if (!isConnected()) {
@@ -121,6 +151,9 @@ public class Connection implements Closeable {
   }
 
   public void sendCommand(final ProtocolCommand cmd, final byte[]... args) {
+    if (hotKeySampler != null) {
+      hotKeySampler.sample(cmd, args);
+    }
     try {
       connect();
       Protocol.sendCommand(outputStream, cmd, args);
@@ -147,6 +180,37 @@ public class Connection implements Closeable {
     }
   }
 
+  /**
+   * Writes a command to a connected socket without ever reading from it, for connections whose
+   * replies are read by another thread. A failed write only marks the connection as broken.
+   */
+  void writeCommand(final ProtocolCommand cmd, final byte[]... args) {
+    try {
+      encodeCommand(outputStream, cmd, args);
+    } catch (JedisConnectionException ex) {
+      broken = true;
+      throw ex;
+    }
+  }
+
+  /**
+   * Encodes a command into the given stream rather than the socket's, e.g. for an event loop
+   * thread to write it later.
+   */
+  void encodeCommand(final RedisOutputStream os, final ProtocolCommand cmd, final byte[]... args) {
+    if (hotKeySampler != null) {
+      hotKeySampler.sample(cmd, args);
+    }
+    Protocol.sendCommand(os, cmd, args);
+  }
+
+  /**
+   * @return the channel of a connection established on an event loop, null otherwise
+   */
+  NioChannel getChannel() {
+    return channel;
+  }
+
   public String getHost() {
     return host;
   }
@@ -165,6 +229,10 @@ public class Connection implements Closeable {
 
   public void connect() {
     if (!isConnected()) {
+      if (eventLoop != null) {
+        connectWithEventLoop();
+        return;
+      }
       try {
         socket = new Socket();
         // ->@wjw_add
@@ -207,6 +275,23 @@ public class Connection implements Closeable {
     }
   }
 
+  private void connectWithEventLoop() {
+    if (ssl) {
+      throw new JedisConnectionException("SSL connections are not supported on an event loop");
+    }
+    try {
+      channel = eventLoop.connect(new InetSocketAddress(host, port), connectionTimeout);
+      socket = channel.socket();
+      socket.setSoTimeout(soTimeout);
+      outputStream = new RedisOutputStream(channel.getOutputStream());
+      inputStream = new RedisInputStream(channel.getInputStream());
+    } catch (IOException ex) {
+      broken = true;
+      throw new JedisConnectionException("Failed connecting to host "
+          + host + ":" + port, ex);
+    }
+  }
+
   @Override
   public void close() {
     disconnect();
@@ -221,11 +306,29 @@ public class Connection implements Closeable {
         broken = true;
         throw new JedisConnectionException(ex);
       } finally {
+        skippedReplies = 0;
         IOUtils.closeQuietly(socket);
+        if (channel != null) {
+          // wakes up any thread still waiting on the channel
+          channel.close();
+          channel = null;
+        }
       }
     }
   }
 
+  /**
+   * Releases the socket without flushing, waking up the threads blocked on it. Safe while other
+   * threads use the streams, unlike {@link #disconnect()}.
+   */
+  void closeSocket() {
+    IOUtils.closeQuietly(socket);
+    final NioChannel channel = this.channel;
+    if (channel != null) {
+      channel.close();
+    }
+  }
+
   public boolean isConnected() {
     return socket != null && socket.isBound() && !socket.isClosed() && socket.isConnected()
         && !socket.isInputShutdown() && !socket.isOutputShutdown();
@@ -291,6 +394,49 @@ public class Connection implements Closeable {
     return (List<Long>) readProtocolWithCheckingBroken();
   }
 
+  /**
+   * Reads a bulk or multi-bulk reply without materializing it, see
+   * {@link Protocol#read(RedisInputStream, BulkReplyConsumer)}. If the consumer fails the reply is
+   * left partially read and the connection is marked as broken.
+   * @return the number of elements in the reply, -1 for a nil multi-bulk reply
+   */
+  public int getBulkReplies(final BulkReplyConsumer consumer) {
+    flush();
+    if (broken) {
+      throw new JedisConnectionException("Attempting to read from a broken connection");
+    }
+
+    try {
+      discardSkippedReplies();
+      return Protocol.read(inputStream, consumer);
+    } catch (JedisDataException exc) {
+      throw exc;
+    } catch (RuntimeException exc) {
+      broken = true;
+      throw exc;
+    }
+  }
+
+  /**
+   * Reads one reply pushing its elements to the visitor as they arrive, see
+   * {@link Protocol#read(RedisInputStream, ReplyVisitor)}. If the visitor fails the reply is left
+   * partially read and the connection is marked as broken.
+   */
+  public void getReply(final ReplyVisitor visitor) {
+    flush();
+    if (broken) {
+      throw new JedisConnectionException("Attempting to read from a broken connection");
+    }
+
+    try {
+      discardSkippedReplies();
+      Protocol.read(inputStream, visitor);
+    } catch (RuntimeException exc) {
+      broken = true;
+      throw exc;
+    }
+  }
+
   public Object getOne() {
     flush();
     return readProtocolWithCheckingBroken();
@@ -300,6 +446,28 @@ public class Connection implements Closeable {
     return broken;
   }
 
+  /**
+   * Checks an idle connection without any round trip: it must be connected, not broken by an
+   * earlier error and have no unread input, which would be a reply nobody is waiting for. On an
+   * event loop, a connection closed by the server is detected as well, with a non-blocking read. A
+   * blocking socket has no way to tell without reading, which would wait for the SO_TIMEOUT while
+   * it is alive.
+   */
+  public boolean isIdleAndUsable() {
+    if (broken || !isConnected()) {
+      return false;
+    }
+    try {
+      if (inputStream.available() > 0) {
+        return false;
+      }
+    } catch (IOException e) {
+      return false;
+    }
+    // only the channel can tell whether the server closed the connection
+    return channel == null || channel.isIdleAndOpen();
+  }
+
   protected void flush() {
     try {
       outputStream.flush();
@@ -315,6 +483,7 @@ public class Connection implements Closeable {
     }
 
     try {
+      discardSkippedReplies();
       return Protocol.read(inputStream);
     } catch (JedisConnectionException exc) {
       broken = true;
@@ -322,6 +491,37 @@ public class Connection implements Closeable {
     }
   }
 
+  /**
+   * Makes the reply of the last command sent be discarded, instead of returned, by the next read.
+   * This lets commands whose reply does not matter share a round trip with the following one. If
+   * that reply is an error the next read throws a {@link JedisConnectionException} and the
+   * connection is broken, since it is not in the state the command was meant to set up.
+   */
+  protected void skipNextReply() {
+    skippedReplies++;
+  }
+
+  private void discardSkippedReplies() {
+    JedisDataException failure = null;
+    while (skippedReplies > 0) {
+      skippedReplies--;
+      try {
+        Protocol.read(inputStream);
+      } catch (JedisDataException e) {
+        if (failure == null) {
+          failure = e;
+        }
+      }
+    }
+    if (failure != null) {
+      // what the skipped command set up, e.g. the database, can no longer be trusted
+      broken = true;
+      throw new JedisConnectionException("A command whose reply was skipped failed: "
+          + failure.getMessage(), failure);
+    }
+  }
+
+
   public List<Object> getMany(final int count) {
     flush();
     final List<Object> responses = new ArrayList<Object>(count);
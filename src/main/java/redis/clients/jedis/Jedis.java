@@ -3309,6 +3309,73 @@ public class Jedis extends BinaryJedis implements JedisCommands, MultiKeyCommand
     return new ScanResult<Tuple>(newcursor, results);
   }
 
+  /**
+   * Iterates over the whole SCAN starting at the cursor, see {@link ScanIterator}.
+   * @param prefetch whether to fetch the next page while the current one is consumed
+   */
+  public ScanIterator<String> scanIterator(final String cursor, final ScanParams params,
+      final boolean prefetch) {
+    checkIsInMultiOrPipeline();
+    return new ScanIterator<String>(client, SafeEncoder.encode(cursor), params, prefetch) {
+      @Override
+      protected void sendScan(Client client, byte[] cursor, ScanParams params) {
+        client.scan(cursor, params);
+      }
+
+      @Override
+      protected List<String> buildPage(List<byte[]> rawResults) {
+        return BuilderFactory.STRING_LIST.build(rawResults);
+      }
+    };
+  }
+
+  public ScanIterator<Map.Entry<String, String>> hscanIterator(final String key,
+      final String cursor, final ScanParams params, final boolean prefetch) {
+    checkIsInMultiOrPipeline();
+    final byte[] rawKey = SafeEncoder.encode(key);
+    return new ScanIterator<Map.Entry<String, String>>(client, SafeEncoder.encode(cursor), params,
+        prefetch) {
+      @Override
+      protected void sendScan(Client client, byte[] cursor, ScanParams params) {
+        client.hscan(rawKey, cursor, params);
+      }
+
+      @Override
+      protected List<Map.Entry<String, String>> buildPage(List<byte[]> rawResults) {
+        List<Map.Entry<String, String>> results = new ArrayList<Map.Entry<String, String>>(
+            rawResults.size() / 2);
+        Iterator<byte[]> iterator = rawResults.iterator();
+        while (iterator.hasNext()) {
+          results.add(new AbstractMap.SimpleEntry<String, String>(SafeEncoder.encode(iterator.next()),
+              SafeEncoder.encode(iterator.next())));
+        }
+        return results;
+      }
+    };
+  }
+
+  public ScanIterator<String> sscanIterator(final String key, final String cursor,
+      final ScanParams params, final boolean prefetch) {
+    checkIsInMultiOrPipeline();
+    final byte[] rawKey = SafeEncoder.encode(key);
+    return new ScanIterator<String>(client, SafeEncoder.encode(cursor), params, prefetch) {
+      @Override
+      protected void sendScan(Client client, byte[] cursor, ScanParams params) {
+        client.sscan(rawKey, cursor, params);
+      }
+
+      @Override
+      protected List<String> buildPage(List<byte[]> rawResults) {
+        return BuilderFactory.STRING_LIST.build(rawResults);
+      }
+    };
+  }
+
+  public ScanIterator<Tuple> zscanIterator(final String key, final String cursor,
+      final ScanParams params, final boolean prefetch) {
+    return zscanIterator(SafeEncoder.encode(key), SafeEncoder.encode(cursor), params, prefetch);
+  }
+
   @Override
   public String clusterNodes() {
     checkIsInMultiOrPipeline();
@@ -11,6 +11,7 @@ import redis.clients.jedis.commands.MultiKeyJedisClusterCommands;
 import redis.clients.jedis.util.JedisClusterHashTagUtil;
 import redis.clients.jedis.util.KeyMergeUtil;
 
+import java.io.File;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -133,6 +134,29 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
         ssl, sslSocketFactory, sslParameters, hostnameVerifier, hostAndPortMap);
   }
 
+  /**
+   * Creates a cluster client whose node connections are non-blocking channels served by the given
+   * event loop, see {@link NioEventLoop}.
+   */
+  public JedisCluster(Set<HostAndPort> jedisClusterNode, int connectionTimeout, int soTimeout,
+      int maxAttempts, String password, String clientName, final GenericObjectPoolConfig poolConfig,
+      NioEventLoop eventLoop) {
+    super(jedisClusterNode, connectionTimeout, soTimeout, maxAttempts, password, clientName, poolConfig,
+        eventLoop);
+  }
+
+  /**
+   * Creates a cluster client that saves its slot cache to <code>slotCacheFile</code> and, when the
+   * file exists, starts from it without waiting for any node, renewing it in the background.
+   * @param prefillConnections number of connections opened in the background in each node pool
+   */
+  public JedisCluster(Set<HostAndPort> jedisClusterNode, int connectionTimeout, int soTimeout,
+      int maxAttempts, String password, String clientName, final GenericObjectPoolConfig poolConfig,
+      File slotCacheFile, int prefillConnections) {
+    super(jedisClusterNode, connectionTimeout, soTimeout, maxAttempts, password, clientName, poolConfig,
+        slotCacheFile, prefillConnections);
+  }
+
   @Override
   public String set(final String key, final String value) {
     return new JedisClusterCommand<String>(connectionHandler, maxAttempts) {
@@ -160,7 +184,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public String execute(Jedis connection) {
         return connection.get(key);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -170,17 +194,12 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Boolean execute(Jedis connection) {
         return connection.exists(key);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
   public Long exists(final String... keys) {
-    return new JedisClusterCommand<Long>(connectionHandler, maxAttempts) {
-      @Override
-      public Long execute(Jedis connection) {
-        return connection.exists(keys);
-      }
-    }.run(keys.length, keys);
+    return new JedisClusterMultiKeyCommand(connectionHandler, maxAttempts).exists(keys);
   }
 
   @Override
@@ -200,7 +219,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public String execute(Jedis connection) {
         return connection.type(key);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -210,7 +229,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public byte[] execute(Jedis connection) {
         return connection.dump(key);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -270,7 +289,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Long execute(Jedis connection) {
         return connection.ttl(key);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -280,7 +299,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Long execute(Jedis connection) {
         return connection.pttl(key);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -330,7 +349,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Boolean execute(Jedis connection) {
         return connection.getbit(key, offset);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -350,7 +369,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public String execute(Jedis connection) {
         return connection.getrange(key, startOffset, endOffset);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -460,7 +479,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public String execute(Jedis connection) {
         return connection.substr(key, start, end);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -490,7 +509,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public String execute(Jedis connection) {
         return connection.hget(key, field);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -520,7 +539,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public List<String> execute(Jedis connection) {
         return connection.hmget(key, fields);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -540,7 +559,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Boolean execute(Jedis connection) {
         return connection.hexists(key, field);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -560,7 +579,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Long execute(Jedis connection) {
         return connection.hlen(key);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -570,7 +589,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Set<String> execute(Jedis connection) {
         return connection.hkeys(key);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -580,7 +599,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public List<String> execute(Jedis connection) {
         return connection.hvals(key);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -590,7 +609,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Map<String, String> execute(Jedis connection) {
         return connection.hgetAll(key);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -620,7 +639,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Long execute(Jedis connection) {
         return connection.llen(key);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -630,7 +649,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public List<String> execute(Jedis connection) {
         return connection.lrange(key, start, stop);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -650,7 +669,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public String execute(Jedis connection) {
         return connection.lindex(key, index);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -710,7 +729,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Set<String> execute(Jedis connection) {
         return connection.smembers(key);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -750,7 +769,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Long execute(Jedis connection) {
         return connection.scard(key);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -760,7 +779,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Boolean execute(Jedis connection) {
         return connection.sismember(key, member);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -770,7 +789,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public String execute(Jedis connection) {
         return connection.srandmember(key);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -780,7 +799,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public List<String> execute(Jedis connection) {
         return connection.srandmember(key, count);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -790,7 +809,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Long execute(Jedis connection) {
         return connection.strlen(key);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -841,7 +860,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Set<String> execute(Jedis connection) {
         return connection.zrange(key, start, stop);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -882,7 +901,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Long execute(Jedis connection) {
         return connection.zrank(key, member);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -892,7 +911,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Long execute(Jedis connection) {
         return connection.zrevrank(key, member);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -902,7 +921,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Set<String> execute(Jedis connection) {
         return connection.zrevrange(key, start, stop);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -912,7 +931,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Set<Tuple> execute(Jedis connection) {
         return connection.zrangeWithScores(key, start, stop);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -922,7 +941,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Set<Tuple> execute(Jedis connection) {
         return connection.zrevrangeWithScores(key, start, stop);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -932,7 +951,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Long execute(Jedis connection) {
         return connection.zcard(key);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -942,7 +961,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Double execute(Jedis connection) {
         return connection.zscore(key, member);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -972,7 +991,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Long execute(Jedis connection) {
         return connection.zcount(key, min, max);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -982,7 +1001,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Long execute(Jedis connection) {
         return connection.zcount(key, min, max);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -992,7 +1011,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Set<String> execute(Jedis connection) {
         return connection.zrangeByScore(key, min, max);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -1002,7 +1021,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Set<String> execute(Jedis connection) {
         return connection.zrangeByScore(key, min, max);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -1012,7 +1031,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Set<String> execute(Jedis connection) {
         return connection.zrevrangeByScore(key, max, min);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -1023,7 +1042,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Set<String> execute(Jedis connection) {
         return connection.zrangeByScore(key, min, max, offset, count);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -1033,7 +1052,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Set<String> execute(Jedis connection) {
         return connection.zrevrangeByScore(key, max, min);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -1044,7 +1063,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Set<String> execute(Jedis connection) {
         return connection.zrangeByScore(key, min, max, offset, count);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -1055,7 +1074,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Set<String> execute(Jedis connection) {
         return connection.zrevrangeByScore(key, max, min, offset, count);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -1065,7 +1084,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Set<Tuple> execute(Jedis connection) {
         return connection.zrangeByScoreWithScores(key, min, max);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -1075,7 +1094,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Set<Tuple> execute(Jedis connection) {
         return connection.zrevrangeByScoreWithScores(key, max, min);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -1086,7 +1105,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Set<Tuple> execute(Jedis connection) {
         return connection.zrangeByScoreWithScores(key, min, max, offset, count);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -1097,7 +1116,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Set<String> execute(Jedis connection) {
         return connection.zrevrangeByScore(key, max, min, offset, count);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -1107,7 +1126,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Set<Tuple> execute(Jedis connection) {
         return connection.zrangeByScoreWithScores(key, min, max);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -1117,7 +1136,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Set<Tuple> execute(Jedis connection) {
         return connection.zrevrangeByScoreWithScores(key, max, min);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -1128,7 +1147,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Set<Tuple> execute(Jedis connection) {
         return connection.zrangeByScoreWithScores(key, min, max, offset, count);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -1139,7 +1158,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Set<Tuple> execute(Jedis connection) {
         return connection.zrevrangeByScoreWithScores(key, max, min, offset, count);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -1150,7 +1169,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Set<Tuple> execute(Jedis connection) {
         return connection.zrevrangeByScoreWithScores(key, max, min, offset, count);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -1190,7 +1209,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Long execute(Jedis connection) {
         return connection.zlexcount(key, min, max);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -1200,7 +1219,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Set<String> execute(Jedis connection) {
         return connection.zrangeByLex(key, min, max);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -1211,7 +1230,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Set<String> execute(Jedis connection) {
         return connection.zrangeByLex(key, min, max, offset, count);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -1221,7 +1240,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Set<String> execute(Jedis connection) {
         return connection.zrevrangeByLex(key, max, min);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -1232,7 +1251,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Set<String> execute(Jedis connection) {
         return connection.zrevrangeByLex(key, max, min, offset, count);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -1324,7 +1343,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Long execute(Jedis connection) {
         return connection.bitcount(key);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -1334,7 +1353,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Long execute(Jedis connection) {
         return connection.bitcount(key, start, end);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -1355,6 +1374,18 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
     }.run(pattern);
   }
 
+  /**
+   * String version of {@link #scanCluster(byte[], ScanParams)}.
+   */
+  public ScanResult<String> scanCluster(final String cursor, final ScanParams params) {
+    return scanCluster(cursor, params, 1);
+  }
+
+  public ScanResult<String> scanCluster(final String cursor, final ScanParams params,
+      final int parallelism) {
+    return new JedisClusterScan(connectionHandler, maxAttempts, parallelism).scan(cursor, params);
+  }
+
   @Override
   public ScanResult<String> scan(final String cursor, final ScanParams params) {
 
@@ -1396,7 +1427,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public ScanResult<String> execute(Jedis connection) {
         return connection.sscan(key, cursor);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -1406,7 +1437,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public ScanResult<Tuple> execute(Jedis connection) {
         return connection.zscan(key, cursor);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -1426,7 +1457,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Long execute(Jedis connection) {
         return connection.pfcount(key);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -1451,12 +1482,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
 
   @Override
   public Long del(final String... keys) {
-    return new JedisClusterCommand<Long>(connectionHandler, maxAttempts) {
-      @Override
-      public Long execute(Jedis connection) {
-        return connection.del(keys);
-      }
-    }.run(keys.length, keys);
+    return new JedisClusterMultiKeyCommand(connectionHandler, maxAttempts).del(keys);
   }
 
   @Override
@@ -1482,28 +1508,12 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
 
   @Override
   public List<String> mget(final String... keys) {
-    return new JedisClusterCommand<List<String>>(connectionHandler, maxAttempts) {
-      @Override
-      public List<String> execute(Jedis connection) {
-        return connection.mget(keys);
-      }
-    }.run(keys.length, keys);
+    return new JedisClusterMultiKeyCommand(connectionHandler, maxAttempts).mget(keys);
   }
 
   @Override
   public String mset(final String... keysvalues) {
-    String[] keys = new String[keysvalues.length / 2];
-
-    for (int keyIdx = 0; keyIdx < keys.length; keyIdx++) {
-      keys[keyIdx] = keysvalues[keyIdx * 2];
-    }
-
-    return new JedisClusterCommand<String>(connectionHandler, maxAttempts) {
-      @Override
-      public String execute(Jedis connection) {
-        return connection.mset(keysvalues);
-      }
-    }.run(keys.length, keys);
+    return new JedisClusterMultiKeyCommand(connectionHandler, maxAttempts).mset(keysvalues);
   }
 
   @Override
@@ -1910,7 +1920,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Double execute(Jedis connection) {
         return connection.geodist(key, member1, member2);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -1921,7 +1931,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Double execute(Jedis connection) {
         return connection.geodist(key, member1, member2, unit);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -1931,7 +1941,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public List<String> execute(Jedis connection) {
         return connection.geohash(key, members);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -1941,7 +1951,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public List<GeoCoordinate> execute(Jedis connection) {
         return connection.geopos(key, members);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -1963,7 +1973,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public List<GeoRadiusResponse> execute(Jedis connection) {
         return connection.georadiusReadonly(key, longitude, latitude, radius, unit);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -1985,7 +1995,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public List<GeoRadiusResponse> execute(Jedis connection) {
         return connection.georadiusReadonly(key, longitude, latitude, radius, unit, param);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -2007,7 +2017,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public List<GeoRadiusResponse> execute(Jedis connection) {
         return connection.georadiusByMemberReadonly(key, member, radius, unit);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -2029,7 +2039,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public List<GeoRadiusResponse> execute(Jedis connection) {
         return connection.georadiusByMemberReadonly(key, member, radius, unit, param);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -2049,7 +2059,7 @@ public class JedisCluster extends BinaryJedisCluster implements JedisClusterComm
       public Long execute(Jedis connection) {
         return connection.hstrlen(key, field);
       }
-    }.run(key);
+    }.runReadOnly(key);
   }
 
   @Override
@@ -4,9 +4,11 @@ import redis.clients.jedis.exceptions.JedisAskDataException;
 import redis.clients.jedis.exceptions.JedisClusterMaxAttemptsException;
 import redis.clients.jedis.exceptions.JedisClusterOperationException;
 import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
 import redis.clients.jedis.exceptions.JedisMovedDataException;
 import redis.clients.jedis.exceptions.JedisNoReachableClusterNodeException;
 import redis.clients.jedis.exceptions.JedisRedirectionException;
+import redis.clients.jedis.util.HotKeySampler;
 import redis.clients.jedis.util.JedisClusterCRC16;
 
 public abstract class JedisClusterCommand<T> {
@@ -22,9 +24,19 @@ public abstract class JedisClusterCommand<T> {
   public abstract T execute(Jedis connection);
 
   public T run(String key) {
+    sample(key);
     return runWithRetries(JedisClusterCRC16.getSlot(key), this.maxAttempts, false, null);
   }
 
+  /**
+   * Runs a command that does not modify the key, which may be served by a replica according to
+   * the cluster's {@link ReadFrom} policy.
+   */
+  public T runReadOnly(String key) {
+    sample(key);
+    return runWithRetries(JedisClusterCRC16.getSlot(key), this.maxAttempts, false, null, true);
+  }
+
   public T run(int keyCount, String... keys) {
     if (keys == null || keys.length == 0) {
       throw new JedisClusterOperationException("No way to dispatch this command to Redis Cluster.");
@@ -42,13 +54,23 @@ public abstract class JedisClusterCommand<T> {
       }
     }
 
+    sample(keyCount, keys);
     return runWithRetries(slot, this.maxAttempts, false, null);
   }
 
   public T runBinary(byte[] key) {
+    sample(key);
     return runWithRetries(JedisClusterCRC16.getSlot(key), this.maxAttempts, false, null);
   }
 
+  /**
+   * Binary version of {@link #runReadOnly(String)}.
+   */
+  public T runReadOnlyBinary(byte[] key) {
+    sample(key);
+    return runWithRetries(JedisClusterCRC16.getSlot(key), this.maxAttempts, false, null, true);
+  }
+
   public T runBinary(int keyCount, byte[]... keys) {
     if (keys == null || keys.length == 0) {
       throw new JedisClusterOperationException("No way to dispatch this command to Redis Cluster.");
@@ -66,6 +88,7 @@ public abstract class JedisClusterCommand<T> {
       }
     }
 
+    sample(keyCount, keys);
     return runWithRetries(slot, this.maxAttempts, false, null);
   }
 
@@ -81,7 +104,44 @@ public abstract class JedisClusterCommand<T> {
     }
   }
 
+  private void sample(String key) {
+    HotKeySampler sampler = connectionHandler.getHotKeySampler();
+    if (sampler != null) {
+      sampler.sample(key);
+    }
+  }
+
+  private void sample(int keyCount, String... keys) {
+    HotKeySampler sampler = connectionHandler.getHotKeySampler();
+    if (sampler != null) {
+      for (int i = 0; i < keyCount && i < keys.length; i++) {
+        sampler.sample(keys[i]);
+      }
+    }
+  }
+
+  private void sample(byte[] key) {
+    HotKeySampler sampler = connectionHandler.getHotKeySampler();
+    if (sampler != null) {
+      sampler.sample(key);
+    }
+  }
+
+  private void sample(int keyCount, byte[]... keys) {
+    HotKeySampler sampler = connectionHandler.getHotKeySampler();
+    if (sampler != null) {
+      for (int i = 0; i < keyCount && i < keys.length; i++) {
+        sampler.sample(keys[i]);
+      }
+    }
+  }
+
   private T runWithRetries(final int slot, int attempts, boolean tryRandomNode, JedisRedirectionException redirect) {
+    return runWithRetries(slot, attempts, tryRandomNode, redirect, false);
+  }
+
+  private T runWithRetries(final int slot, int attempts, boolean tryRandomNode,
+      JedisRedirectionException redirect, boolean readOnly) {
     if (attempts <= 0) {
       throw new JedisClusterMaxAttemptsException("No more cluster attempts left.");
     }
@@ -92,18 +152,20 @@ public abstract class JedisClusterCommand<T> {
       if (redirect != null) {
         connection = this.connectionHandler.getConnectionFromNode(redirect.getTargetNode());
         if (redirect instanceof JedisAskDataException) {
-          // TODO: Pipeline asking with the original command to make it faster....
-          connection.asking();
+          // sent along with the command, its reply is discarded when the command's is read
+          connection.getClient().pipelinedAsking();
         }
       } else {
         if (tryRandomNode) {
           connection = connectionHandler.getConnection();
+        } else if (readOnly) {
+          connection = connectionHandler.getReadConnectionFromSlot(slot);
         } else {
           connection = connectionHandler.getConnectionFromSlot(slot);
         }
       }
 
-      return execute(connection);
+      return executeAndRecord(connection);
 
     } catch (JedisNoReachableClusterNodeException jnrcne) {
       throw jnrcne;
@@ -112,16 +174,15 @@ public abstract class JedisClusterCommand<T> {
       releaseConnection(connection);
       connection = null;
 
-      if (attempts <= 1) {
+      if (attempts <= 1 && this.connectionHandler.shouldRenewSlotCache(slot)) {
         //We need this because if node is not reachable anymore - we need to finally initiate slots
         //renewing, or we can stuck with cluster state without one node in opposite case.
-        //But now if maxAttempts = [1 or 2] we will do it too often.
-        //TODO make tracking of successful/unsuccessful operations for node - do renewing only
-        //if there were no successful responses from this node last few seconds
+        //With the circuit breaker enabled it is only done if the node did not succeed lately.
         this.connectionHandler.renewSlotCache();
       }
 
-      return runWithRetries(slot, attempts - 1, tryRandomNode, redirect);
+      // the master is the safest bet after a failed read from a replica
+      return runWithRetries(slot, attempts - 1, tryRandomNode, redirect, false);
     } catch (JedisRedirectionException jre) {
       // if MOVED redirection occurred,
       if (jre instanceof JedisMovedDataException) {
@@ -139,6 +200,23 @@ public abstract class JedisClusterCommand<T> {
     }
   }
 
+  private T executeAndRecord(Jedis connection) {
+    final JedisPoolAbstract pool = connection.dataSource;
+    final long start = System.nanoTime();
+    try {
+      T result = execute(connection);
+      connectionHandler.recordSuccess(pool, System.nanoTime() - start);
+      return result;
+    } catch (JedisConnectionException e) {
+      connectionHandler.recordFailure(pool);
+      throw e;
+    } catch (JedisDataException e) {
+      // the node answered
+      connectionHandler.recordSuccess(pool, System.nanoTime() - start);
+      throw e;
+    }
+  }
+
   private void releaseConnection(Jedis connection) {
     if (connection != null) {
       connection.close();
@@ -1,18 +1,38 @@
 package redis.clients.jedis;
 
 import java.io.Closeable;
+import java.io.File;
+import java.util.ArrayList;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.SSLParameters;
 import javax.net.ssl.SSLSocketFactory;
 
 import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.util.HotKeySampler;
+import redis.clients.jedis.util.Pool;
 
 public abstract class JedisClusterConnectionHandler implements Closeable {
+  private static final Logger log = LoggerFactory.getLogger(JedisClusterConnectionHandler.class);
+
+  private static final int PREFILL_PARALLELISM = 16;
+
   protected final JedisClusterInfoCache cache;
+  private volatile JedisClusterTopologyRefresher topologyRefresher;
+  private volatile ReadFrom readFrom = ReadFrom.MASTER;
+  private final AtomicInteger readCounter = new AtomicInteger();
+  private volatile int circuitBreakerThreshold = 0;
+  private volatile long circuitBreakerOpenMillis = 0;
+  private volatile HotKeySampler hotKeySampler;
+  private final Thread warmup;
+  private final long warmupStopMillis;
 
   public JedisClusterConnectionHandler(Set<HostAndPort> nodes,
       final GenericObjectPoolConfig poolConfig, int connectionTimeout, int soTimeout, String password) {
@@ -28,36 +48,294 @@ public abstract class JedisClusterConnectionHandler implements Closeable {
       final GenericObjectPoolConfig poolConfig, int connectionTimeout, int soTimeout, String password, String clientName,
       boolean ssl, SSLSocketFactory sslSocketFactory, SSLParameters sslParameters,
       HostnameVerifier hostnameVerifier, JedisClusterHostAndPortMap portMap) {
+    this(nodes, poolConfig, connectionTimeout, soTimeout, password, clientName, ssl, sslSocketFactory, sslParameters, hostnameVerifier, portMap, null);
+  }
+
+  public JedisClusterConnectionHandler(Set<HostAndPort> nodes,
+      final GenericObjectPoolConfig poolConfig, int connectionTimeout, int soTimeout, String password, String clientName,
+      boolean ssl, SSLSocketFactory sslSocketFactory, SSLParameters sslParameters,
+      HostnameVerifier hostnameVerifier, JedisClusterHostAndPortMap portMap, NioEventLoop eventLoop) {
+    this(nodes, poolConfig, connectionTimeout, soTimeout, password, clientName, ssl, sslSocketFactory, sslParameters, hostnameVerifier, portMap, eventLoop, null, 0);
+  }
+
+  /**
+   * @param slotCacheFile file the slot cache is saved to whenever it changes. If it exists, the
+   *          cache is loaded from it instead of asking the start nodes and is renewed in the
+   *          background, so the cluster is usable without waiting for any node. null to disable.
+   * @param prefillConnections number of idle connections opened in the background in each node
+   *          pool once the nodes are known, 0 to open them on demand
+   */
+  public JedisClusterConnectionHandler(final Set<HostAndPort> nodes,
+      final GenericObjectPoolConfig poolConfig, final int connectionTimeout, final int soTimeout,
+      final String password, final String clientName, final boolean ssl,
+      final SSLSocketFactory sslSocketFactory, final SSLParameters sslParameters,
+      final HostnameVerifier hostnameVerifier, final JedisClusterHostAndPortMap portMap,
+      final NioEventLoop eventLoop, final File slotCacheFile, final int prefillConnections) {
     this.cache = new JedisClusterInfoCache(poolConfig, connectionTimeout, soTimeout, password, clientName,
-        ssl, sslSocketFactory, sslParameters, hostnameVerifier, portMap);
-    initializeSlotsCache(nodes, poolConfig, connectionTimeout, soTimeout, password, clientName, ssl, sslSocketFactory, sslParameters, hostnameVerifier);
+        ssl, sslSocketFactory, sslParameters, hostnameVerifier, portMap, eventLoop);
+    final boolean warmStart = slotCacheFile != null && cache.loadSnapshot(slotCacheFile);
+    cache.setSnapshotFile(slotCacheFile);
+    if (!warmStart) {
+      initializeSlotsCache(nodes, poolConfig, connectionTimeout, soTimeout, password, clientName, ssl, sslSocketFactory, sslParameters, hostnameVerifier, eventLoop);
+    }
+
+    // a connection attempt in progress does not notice interruptions
+    warmupStopMillis = (long) connectionTimeout + soTimeout;
+    if (warmStart || prefillConnections > 0) {
+      warmup = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          if (warmStart) {
+            validateSlotsCache(nodes, connectionTimeout, soTimeout, password, clientName, ssl,
+                sslSocketFactory, sslParameters, hostnameVerifier, eventLoop);
+          }
+          if (prefillConnections > 0 && !cache.isClosed()) {
+            prefillPools(prefillConnections);
+          }
+        }
+      }, "jedis-cluster-warmup");
+      warmup.setDaemon(true);
+      warmup.start();
+    } else {
+      warmup = null;
+    }
   }
 
   abstract Jedis getConnection();
 
   abstract Jedis getConnectionFromSlot(int slot);
 
+  /**
+   * Stops sending commands to a node after <code>failureThreshold</code> consecutive connection
+   * failures: for <code>openMillis</code> its commands fail right away, or read only commands go to
+   * one of its replicas, instead of waiting for connection timeouts. After that period the circuit
+   * is half open: a single command is let through to probe the node while the others keep failing
+   * fast or being rerouted. A failure of the probe opens the circuit again, a success closes it.
+   * Slot cache renewals triggered by failures are also skipped while the node has succeeded within
+   * <code>openMillis</code>.
+   * @param failureThreshold 0 disables the circuit breaker, which is the default
+   */
+  public void setCircuitBreaker(int failureThreshold, long openMillis) {
+    if (failureThreshold < 0 || openMillis < 0) {
+      throw new IllegalArgumentException("failureThreshold and openMillis must not be negative");
+    }
+    this.circuitBreakerOpenMillis = openMillis;
+    this.circuitBreakerThreshold = failureThreshold;
+  }
+
+  public JedisClusterNodeHealth getNodeHealth(JedisPoolAbstract pool) {
+    return cache.getNodeHealth(pool);
+  }
+
+  /**
+   * @return false while the circuit breaker of the node is open, or half open with a probe in
+   *         flight
+   */
+  public boolean isAvailable(JedisPoolAbstract pool) {
+    final JedisClusterNodeHealth health = cache.getNodeHealth(pool);
+    return isClosed(health)
+        || isHalfOpen(health) && !health.isProbing(circuitBreakerOpenMillis);
+  }
+
+  /**
+   * Like {@link #isAvailable(JedisPoolAbstract)}, but while the circuit is half open only the one
+   * caller elected to probe the node is let through.
+   */
+  private boolean tryAcquire(JedisPoolAbstract pool) {
+    final JedisClusterNodeHealth health = cache.getNodeHealth(pool);
+    return isClosed(health)
+        || isHalfOpen(health) && health.tryStartProbe(circuitBreakerOpenMillis);
+  }
+
+  private boolean isClosed(JedisClusterNodeHealth health) {
+    final int threshold = circuitBreakerThreshold;
+    return threshold == 0 || health == null || health.getConsecutiveFailures() < threshold;
+  }
+
+  private boolean isHalfOpen(JedisClusterNodeHealth health) {
+    return System.currentTimeMillis() - health.getLastFailure() >= circuitBreakerOpenMillis;
+  }
+
+  void recordSuccess(JedisPoolAbstract pool, long latencyNanos) {
+    final JedisClusterNodeHealth health = cache.getNodeHealth(pool);
+    if (health != null) {
+      health.recordSuccess(latencyNanos);
+    }
+  }
+
+  void recordFailure(JedisPoolAbstract pool) {
+    final JedisClusterNodeHealth health = cache.getNodeHealth(pool);
+    if (health != null) {
+      health.recordFailure();
+    }
+  }
+
+  /**
+   * @return whether a connection failure on the slot's node justifies renewing the slot cache,
+   *         always true unless the circuit breaker is enabled
+   */
+  boolean shouldRenewSlotCache(int slot) {
+    return shouldRenewSlotCache(cache.getSlotPool(slot));
+  }
+
+  /**
+   * @return whether a connection failure on the node justifies renewing the slot cache, see
+   *         {@link #shouldRenewSlotCache(int)}
+   */
+  boolean shouldRenewSlotCache(JedisPoolAbstract pool) {
+    if (circuitBreakerThreshold == 0) {
+      return true;
+    }
+    final JedisClusterNodeHealth health = cache.getNodeHealth(pool);
+    return health == null || !health.hasSucceededWithin(circuitBreakerOpenMillis);
+  }
+
+  /**
+   * Borrows a connection from the pool unless its circuit is open, or half open with another
+   * caller probing the node, recording a failure to connect.
+   */
+  protected Jedis getResource(JedisPool pool) {
+    if (!tryAcquire(pool)) {
+      throw new JedisConnectionException("Node is unavailable, its circuit breaker is open");
+    }
+    return borrow(pool);
+  }
+
+  private Jedis borrow(JedisPool pool) {
+    try {
+      return pool.getResource();
+    } catch (JedisConnectionException e) {
+      recordFailure(pool);
+      throw e;
+    }
+  }
+
+  public ReadFrom getReadFrom() {
+    return readFrom;
+  }
+
+  public void setReadFrom(ReadFrom readFrom) {
+    this.readFrom = readFrom;
+    cache.setLatencyTracking(readFrom == ReadFrom.NEAREST);
+    if (readFrom == ReadFrom.NEAREST) {
+      cache.requestLatencyMeasurement();
+    }
+  }
+
+  /**
+   * @return a connection for a read only command on the slot, to the node chosen by the
+   *         {@link ReadFrom} policy
+   */
+  Jedis getReadConnectionFromSlot(int slot) {
+    final JedisPool master = cache.getSlotPool(slot);
+    final JedisPool[] replicas = cache.getSlotReplicaPools(slot);
+    if (master == null || replicas == null || replicas.length == 0) {
+      return getConnectionFromSlot(slot);
+    }
+    final JedisPool pool = acquireReadPool(master, replicas);
+    if (pool == null) {
+      throw new JedisConnectionException("Nodes are unavailable, their circuit breakers are open");
+    }
+
+    Jedis jedis = borrow(pool);
+    if (pool != master && !jedis.getClient().isReadOnly()) {
+      try {
+        jedis.readonly();
+      } catch (JedisConnectionException e) {
+        // also ends the probe if the replica's circuit was half open
+        recordFailure(pool);
+        jedis.close();
+        throw e;
+      } catch (RuntimeException e) {
+        jedis.close();
+        throw e;
+      }
+    }
+    return jedis;
+  }
+
+  /**
+   * @return the node chosen by the {@link ReadFrom} policy, or another one while its circuit is
+   *         open, null if none can be tried
+   */
+  private JedisPool acquireReadPool(JedisPool master, JedisPool[] replicas) {
+    final JedisPool preferred = selectPreferredReadPool(master, replicas);
+    if (tryAcquire(preferred)) {
+      return preferred;
+    }
+    // reroute while the preferred node is down
+    if (preferred != master && tryAcquire(master)) {
+      return master;
+    }
+    for (JedisPool replica : replicas) {
+      if (replica != preferred && tryAcquire(replica)) {
+        return replica;
+      }
+    }
+    return null;
+  }
+
+  private JedisPool selectPreferredReadPool(JedisPool master, JedisPool[] replicas) {
+    switch (readFrom) {
+    case REPLICA_PREFERRED:
+      return replicas[(readCounter.getAndIncrement() & Integer.MAX_VALUE) % replicas.length];
+    case ROUND_ROBIN:
+      int index = (readCounter.getAndIncrement() & Integer.MAX_VALUE) % (replicas.length + 1);
+      return index == 0 ? master : replicas[index - 1];
+    case NEAREST:
+      JedisPool nearest = master;
+      long nearestLatency = cache.getLatency(master);
+      for (JedisPool replica : replicas) {
+        long latency = cache.getLatency(replica);
+        if (latency < nearestLatency) {
+          nearest = replica;
+          nearestLatency = latency;
+        }
+      }
+      return nearest;
+    default:
+      return master;
+    }
+  }
+
   public Jedis getConnectionFromNode(HostAndPort node) {
-    return cache.setupNodeIfNotExist(node).getResource();
+    return getResource(cache.setupNodeIfNotExist(node));
   }
   
   public Map<String, JedisPool> getNodes() {
     return cache.getNodes();
   }
 
+  public void addTopologyListener(JedisClusterTopologyListener listener) {
+    cache.addTopologyListener(listener);
+  }
+
+  public void removeTopologyListener(JedisClusterTopologyListener listener) {
+    cache.removeTopologyListener(listener);
+  }
+
+  /**
+   * @param hotKeySampler sampler fed with the keys of the commands run, null to stop sampling
+   */
+  public void setHotKeySampler(HotKeySampler hotKeySampler) {
+    this.hotKeySampler = hotKeySampler;
+  }
+
+  public HotKeySampler getHotKeySampler() {
+    return hotKeySampler;
+  }
+
   private void initializeSlotsCache(Set<HostAndPort> startNodes, GenericObjectPoolConfig poolConfig,
       int connectionTimeout, int soTimeout, String password, String clientName,
-      boolean ssl, SSLSocketFactory sslSocketFactory, SSLParameters sslParameters, HostnameVerifier hostnameVerifier) {
+      boolean ssl, SSLSocketFactory sslSocketFactory, SSLParameters sslParameters, HostnameVerifier hostnameVerifier,
+      NioEventLoop eventLoop) {
     for (HostAndPort hostAndPort : startNodes) {
       Jedis jedis = null;
       try {
         jedis = new Jedis(hostAndPort.getHost(), hostAndPort.getPort(), connectionTimeout, soTimeout, ssl, sslSocketFactory, sslParameters, hostnameVerifier);
-        if (password != null) {
-          jedis.auth(password);
-        }
-        if (clientName != null) {
-          jedis.clientSetname(clientName);
-        }
+        jedis.getClient().setEventLoop(eventLoop);
+        jedis.getClient().setPassword(password);
+        jedis.getClient().setClientName(clientName);
         cache.discoverClusterNodesAndSlots(jedis);
         break;
       } catch (JedisConnectionException e) {
@@ -70,16 +348,99 @@ public abstract class JedisClusterConnectionHandler implements Closeable {
     }
   }
 
+  /**
+   * Renews the slot cache loaded from a snapshot, preferably through one of the start nodes since
+   * the nodes of the snapshot may be gone.
+   */
+  private void validateSlotsCache(Set<HostAndPort> startNodes, int connectionTimeout,
+      int soTimeout, String password, String clientName, boolean ssl,
+      SSLSocketFactory sslSocketFactory, SSLParameters sslParameters,
+      HostnameVerifier hostnameVerifier, NioEventLoop eventLoop) {
+    try {
+      for (HostAndPort hostAndPort : startNodes) {
+        if (cache.isClosed()) {
+          return;
+        }
+        Jedis jedis = null;
+        try {
+          jedis = new Jedis(hostAndPort.getHost(), hostAndPort.getPort(), connectionTimeout, soTimeout, ssl, sslSocketFactory, sslParameters, hostnameVerifier);
+          jedis.getClient().setEventLoop(eventLoop);
+          jedis.getClient().setPassword(password);
+          jedis.getClient().setClientName(clientName);
+          cache.renewClusterSlots(jedis);
+          return;
+        } catch (JedisConnectionException e) {
+          // try next nodes
+        } finally {
+          if (jedis != null) {
+            jedis.close();
+          }
+        }
+      }
+      // none of the start nodes is reachable, ask the nodes of the snapshot
+      cache.renewClusterSlots(null);
+    } catch (JedisException e) {
+      log.warn("Could not renew the cluster slot cache loaded from its snapshot", e);
+    }
+  }
+
+  private void prefillPools(int connections) {
+    try {
+      Pool.addObjects(new ArrayList<JedisPool>(cache.getNodes().values()), connections,
+        PREFILL_PARALLELISM);
+    } catch (JedisException e) {
+      // a node is down or the pool already closed, connections will be opened on demand
+      log.debug("Could not prefill the pool of a cluster node", e);
+    }
+  }
+
+  /**
+   * Moves slot cache renewals to a background thread, see {@link JedisClusterTopologyRefresher}.
+   * Calling it again replaces the previous refresher.
+   */
+  public void startTopologyRefresher(long minIntervalMillis, long periodMillis) {
+    JedisClusterTopologyRefresher previous = topologyRefresher;
+    topologyRefresher = new JedisClusterTopologyRefresher(cache, minIntervalMillis, periodMillis);
+    if (previous != null) {
+      previous.close();
+    }
+  }
+
   public void renewSlotCache() {
-    cache.renewClusterSlots(null);
+    JedisClusterTopologyRefresher refresher = topologyRefresher;
+    if (refresher != null) {
+      refresher.requestRefresh();
+    } else {
+      cache.renewClusterSlots(null);
+    }
   }
 
   public void renewSlotCache(Jedis jedis) {
-    cache.renewClusterSlots(jedis);
+    JedisClusterTopologyRefresher refresher = topologyRefresher;
+    if (refresher != null) {
+      refresher.requestRefresh();
+    } else {
+      cache.renewClusterSlots(jedis);
+    }
   }
 
   @Override
   public void close() {
+    JedisClusterTopologyRefresher refresher = topologyRefresher;
+    if (refresher != null) {
+      refresher.close();
+    }
+    // the warm-up must not renew the cache or fill pools once they are destroyed. It checks that
+    // the cache is closed before each connection, so it is only waited for while it finishes the
+    // one it may be opening.
+    if (warmup != null && warmup != Thread.currentThread()) {
+      warmup.interrupt();
+      try {
+        warmup.join(warmupStopMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
     cache.reset();
   }
 }
@@ -1,30 +1,67 @@
 package redis.clients.jedis;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.SSLParameters;
 import javax.net.ssl.SSLSocketFactory;
 
 import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import redis.clients.jedis.exceptions.JedisConnectionException;
 import redis.clients.jedis.exceptions.JedisException;
 import redis.clients.jedis.util.SafeEncoder;
 
 public class JedisClusterInfoCache {
+  private static final Logger log = LoggerFactory.getLogger(JedisClusterInfoCache.class);
+  private static final Charset SNAPSHOT_CHARSET = Charset.forName("UTF-8");
+
   private final Map<String, JedisPool> nodes = new HashMap<String, JedisPool>();
-  private final Map<Integer, JedisPool> slots = new HashMap<Integer, JedisPool>();
+  /**
+   * Copy on write routing table indexed by slot, replaced as a whole under the write lock so that
+   * {@link #getSlotPool(int)} can read it without locking.
+   */
+  private volatile JedisPool[] slots = new JedisPool[BinaryJedisCluster.HASHSLOTS];
+  private volatile JedisPool[][] replicaSlots = new JedisPool[BinaryJedisCluster.HASHSLOTS][];
+  private final Map<JedisPool, Long> latencies = new ConcurrentHashMap<JedisPool, Long>();
+  private volatile boolean latencyTracking;
+  private final AtomicBoolean latencyMeasurementPending = new AtomicBoolean();
+  private ExecutorService latencyProber;
+  private final Map<JedisPoolAbstract, JedisClusterNodeHealth> health = new ConcurrentHashMap<JedisPoolAbstract, JedisClusterNodeHealth>();
 
   private final ReentrantReadWriteLock rwl = new ReentrantReadWriteLock();
   private final Lock r = rwl.readLock();
   private final Lock w = rwl.writeLock();
+  private final Lock rediscoveryLock = new ReentrantLock();
   private volatile boolean rediscovering;
+  private volatile boolean closed;
+  private volatile long topologyVersion;
   private final GenericObjectPoolConfig poolConfig;
 
   private int connectionTimeout;
@@ -37,8 +74,17 @@ public class JedisClusterInfoCache {
   private SSLParameters sslParameters;
   private HostnameVerifier hostnameVerifier;
   private JedisClusterHostAndPortMap hostAndPortMap;
+  private NioEventLoop eventLoop;
+
+  private volatile File snapshotFile;
+  private final Object snapshotLock = new Object();
+  private String lastSnapshot;
+
+  private final List<JedisClusterTopologyListener> topologyListeners =
+      new CopyOnWriteArrayList<JedisClusterTopologyListener>();
 
   private static final int MASTER_NODE_INDEX = 2;
+  private static final int LATENCY_PROBE_TIMEOUT = 500;
 
   public JedisClusterInfoCache(final GenericObjectPoolConfig poolConfig, int timeout) {
     this(poolConfig, timeout, timeout, null, null);
@@ -53,6 +99,15 @@ public class JedisClusterInfoCache {
       final int connectionTimeout, final int soTimeout, final String password, final String clientName,
       boolean ssl, SSLSocketFactory sslSocketFactory, SSLParameters sslParameters, 
       HostnameVerifier hostnameVerifier, JedisClusterHostAndPortMap hostAndPortMap) {
+    this(poolConfig, connectionTimeout, soTimeout, password, clientName, ssl, sslSocketFactory,
+        sslParameters, hostnameVerifier, hostAndPortMap, null);
+  }
+
+  public JedisClusterInfoCache(final GenericObjectPoolConfig poolConfig,
+      final int connectionTimeout, final int soTimeout, final String password, final String clientName,
+      boolean ssl, SSLSocketFactory sslSocketFactory, SSLParameters sslParameters,
+      HostnameVerifier hostnameVerifier, JedisClusterHostAndPortMap hostAndPortMap,
+      NioEventLoop eventLoop) {
     this.poolConfig = poolConfig;
     this.connectionTimeout = connectionTimeout;
     this.soTimeout = soTimeout;
@@ -63,49 +118,24 @@ public class JedisClusterInfoCache {
     this.sslParameters = sslParameters;
     this.hostnameVerifier = hostnameVerifier;
     this.hostAndPortMap = hostAndPortMap;
+    this.eventLoop = eventLoop;
   }
 
   public void discoverClusterNodesAndSlots(Jedis jedis) {
-    w.lock();
-
-    try {
-      reset();
-      List<Object> slots = jedis.clusterSlots();
-
-      for (Object slotInfoObj : slots) {
-        List<Object> slotInfo = (List<Object>) slotInfoObj;
-
-        if (slotInfo.size() <= MASTER_NODE_INDEX) {
-          continue;
-        }
-
-        List<Integer> slotNums = getAssignedSlotArray(slotInfo);
-
-        // hostInfos
-        int size = slotInfo.size();
-        for (int i = MASTER_NODE_INDEX; i < size; i++) {
-          List<Object> hostInfos = (List<Object>) slotInfo.get(i);
-          if (hostInfos.size() <= 0) {
-            continue;
-          }
-
-          HostAndPort targetNode = generateHostAndPort(hostInfos);
-          setupNodeIfNotExist(targetNode);
-          if (i == MASTER_NODE_INDEX) {
-            assignSlotsToNode(slotNums, targetNode);
-          }
-        }
-      }
-    } finally {
-      w.unlock();
+    long start = System.nanoTime();
+    applySlotRanges(parseClusterSlots(jedis.clusterSlots()), start);
+    if (latencyTracking) {
+      requestLatencyMeasurement();
     }
   }
 
   public void renewClusterSlots(Jedis jedis) {
     //If rediscovering is already in process - no need to start one more same rediscovering, just return
     if (!rediscovering) {
+      boolean renewed = false;
       try {
-        w.lock();
+        // only serializes rediscoveries, the routing table stays readable meanwhile
+        rediscoveryLock.lock();
         if (!rediscovering) {
           rediscovering = true;
 
@@ -113,23 +143,26 @@ public class JedisClusterInfoCache {
             if (jedis != null) {
               try {
                 discoverClusterSlots(jedis);
-                return;
+                renewed = true;
               } catch (JedisException e) {
                 //try nodes from all pools
               }
             }
 
-            for (JedisPool jp : getShuffledNodesPool()) {
-              Jedis j = null;
-              try {
-                j = jp.getResource();
-                discoverClusterSlots(j);
-                return;
-              } catch (JedisConnectionException e) {
-                // try next nodes
-              } finally {
-                if (j != null) {
-                  j.close();
+            if (!renewed) {
+              for (JedisPool jp : getShuffledNodesPool()) {
+                Jedis j = null;
+                try {
+                  j = jp.getResource();
+                  discoverClusterSlots(j);
+                  renewed = true;
+                  break;
+                } catch (JedisConnectionException e) {
+                  // try next nodes
+                } finally {
+                  if (j != null) {
+                    j.close();
+                  }
                 }
               }
             }
@@ -138,15 +171,24 @@ public class JedisClusterInfoCache {
           }
         }
       } finally {
-        w.unlock();
+        rediscoveryLock.unlock();
+      }
+      // the topology may have changed, the new nodes have no latency yet
+      if (renewed && latencyTracking) {
+        requestLatencyMeasurement();
       }
     }
   }
 
   private void discoverClusterSlots(Jedis jedis) {
-    List<Object> slots = jedis.clusterSlots();
-    this.slots.clear();
+    // the round trip is made before locking, readers keep using the previous table until the new
+    // one is complete
+    long start = System.nanoTime();
+    applySlotRanges(parseClusterSlots(jedis.clusterSlots()), start);
+  }
 
+  private List<SlotRange> parseClusterSlots(List<Object> slots) {
+    List<SlotRange> ranges = new ArrayList<SlotRange>(slots.size());
     for (Object slotInfoObj : slots) {
       List<Object> slotInfo = (List<Object>) slotInfoObj;
 
@@ -154,17 +196,357 @@ public class JedisClusterInfoCache {
         continue;
       }
 
-      List<Integer> slotNums = getAssignedSlotArray(slotInfo);
-
       // hostInfos
       List<Object> hostInfos = (List<Object>) slotInfo.get(MASTER_NODE_INDEX);
       if (hostInfos.isEmpty()) {
         continue;
       }
-
-      // at this time, we just use master, discard slave information
       HostAndPort targetNode = generateHostAndPort(hostInfos);
-      assignSlotsToNode(slotNums, targetNode);
+
+      List<HostAndPort> replicas = new ArrayList<HostAndPort>(slotInfo.size() - MASTER_NODE_INDEX - 1);
+      for (int i = MASTER_NODE_INDEX + 1; i < slotInfo.size(); i++) {
+        List<Object> replicaInfos = (List<Object>) slotInfo.get(i);
+        if (!replicaInfos.isEmpty()) {
+          replicas.add(generateHostAndPort(replicaInfos));
+        }
+      }
+      ranges.add(new SlotRange(((Long) slotInfo.get(0)).intValue(),
+          ((Long) slotInfo.get(1)).intValue(), targetNode, replicas));
+    }
+    return ranges;
+  }
+
+  /**
+   * Replaces the routing table with the given ranges as a diff of the current topology: the pools
+   * of the nodes still present are kept along with their connections, only the nodes that no
+   * longer serve any slot are removed. Their pools are closed once the table no longer points to
+   * them, connections still in use are closed when returned.
+   * @param startNanos when the renewal started, for the timings given to the topology listeners
+   */
+  private void applySlotRanges(List<SlotRange> ranges, long startNanos) {
+    List<JedisPool> removed = new ArrayList<JedisPool>();
+    List<JedisClusterTopologyEvent> events = null;
+    w.lock();
+    try {
+      if (closed) {
+        // a renewal that was still running when the cache was reset
+        return;
+      }
+      boolean notify = !topologyListeners.isEmpty();
+      JedisPool[] oldSlots = this.slots;
+      JedisPool[][] oldReplicaSlots = this.replicaSlots;
+      Set<String> oldNodes = notify ? new HashSet<String>(nodes.keySet()) : null;
+      JedisPool[] newSlots = new JedisPool[BinaryJedisCluster.HASHSLOTS];
+      JedisPool[][] newReplicaSlots = new JedisPool[BinaryJedisCluster.HASHSLOTS][];
+      Map<JedisPool, Boolean> used = new IdentityHashMap<JedisPool, Boolean>();
+      for (SlotRange range : ranges) {
+        JedisPool targetPool = setupNodeIfNotExist(range.master);
+        used.put(targetPool, Boolean.TRUE);
+        JedisPool[] replicaPools = new JedisPool[range.replicas.size()];
+        for (int i = 0; i < replicaPools.length; i++) {
+          replicaPools[i] = setupNodeIfNotExist(range.replicas.get(i));
+          used.put(replicaPools[i], Boolean.TRUE);
+        }
+        for (int slot = range.start; slot <= range.end; slot++) {
+          newSlots[slot] = targetPool;
+          // shared by all the slots of the range
+          newReplicaSlots[slot] = replicaPools;
+        }
+      }
+      this.slots = newSlots;
+      this.replicaSlots = newReplicaSlots;
+      long refreshNanos = System.nanoTime() - startNanos;
+
+      Map<JedisPool, String> nodeKeys = null;
+      if (notify) {
+        // built before pruning so that the removed nodes are still named
+        nodeKeys = new IdentityHashMap<JedisPool, String>();
+        for (Map.Entry<String, JedisPool> entry : nodes.entrySet()) {
+          nodeKeys.put(entry.getValue(), entry.getKey());
+        }
+      }
+
+      // an empty answer is more likely a node that lost its configuration than an empty cluster
+      if (!ranges.isEmpty()) {
+        topologyVersion++;
+        Iterator<JedisPool> it = nodes.values().iterator();
+        while (it.hasNext()) {
+          JedisPool pool = it.next();
+          if (!used.containsKey(pool)) {
+            it.remove();
+            latencies.remove(pool);
+            health.remove(pool);
+            removed.add(pool);
+          }
+        }
+      }
+
+      if (notify) {
+        events = diffTopology(oldNodes, oldSlots, oldReplicaSlots, nodeKeys, refreshNanos);
+      }
+    } finally {
+      w.unlock();
+    }
+
+    for (JedisPool pool : removed) {
+      try {
+        pool.destroy();
+      } catch (Exception e) {
+        // pass
+      }
+    }
+    saveSnapshotIfChanged();
+
+    if (events != null) {
+      fireTopologyEvents(events);
+    }
+  }
+
+  /**
+   * Compares the current routing table to the previous one. Must be called under the write lock.
+   */
+  private List<JedisClusterTopologyEvent> diffTopology(Set<String> oldNodes, JedisPool[] oldSlots,
+      JedisPool[][] oldReplicaSlots, Map<JedisPool, String> nodeKeys, long refreshNanos) {
+    List<JedisClusterTopologyEvent> events = new ArrayList<JedisClusterTopologyEvent>();
+    for (String nodeKey : nodes.keySet()) {
+      if (!oldNodes.contains(nodeKey)) {
+        events.add(new JedisClusterTopologyEvent(JedisClusterTopologyEvent.Type.NODE_ADDED,
+            nodeKey, null, -1, -1, refreshNanos));
+      }
+    }
+    for (String nodeKey : oldNodes) {
+      if (!nodes.containsKey(nodeKey)) {
+        events.add(new JedisClusterTopologyEvent(JedisClusterTopologyEvent.Type.NODE_REMOVED,
+            nodeKey, null, -1, -1, refreshNanos));
+      }
+    }
+
+    // consecutive slots with the same previous and new master are reported as one range
+    int slot = 0;
+    while (slot < BinaryJedisCluster.HASHSLOTS) {
+      JedisPool oldPool = oldSlots[slot];
+      JedisPool newPool = slots[slot];
+      if (oldPool == newPool) {
+        slot++;
+        continue;
+      }
+      JedisClusterTopologyEvent.Type type = isPromoted(newPool, oldReplicaSlots[slot])
+          ? JedisClusterTopologyEvent.Type.MASTER_CHANGED
+          : JedisClusterTopologyEvent.Type.SLOTS_MOVED;
+      int start = slot;
+      slot++;
+      while (slot < BinaryJedisCluster.HASHSLOTS && oldSlots[slot] == oldPool
+          && slots[slot] == newPool
+          && (type == JedisClusterTopologyEvent.Type.MASTER_CHANGED) == isPromoted(newPool,
+            oldReplicaSlots[slot])) {
+        slot++;
+      }
+      events.add(new JedisClusterTopologyEvent(type, nodeKeys.get(newPool),
+          nodeKeys.get(oldPool), start, slot - 1, refreshNanos));
+    }
+    events.add(new JedisClusterTopologyEvent(JedisClusterTopologyEvent.Type.REFRESHED, null, null,
+        -1, -1, refreshNanos));
+    return events;
+  }
+
+  private static boolean isPromoted(JedisPool newMaster, JedisPool[] oldReplicas) {
+    if (newMaster == null || oldReplicas == null) {
+      return false;
+    }
+    for (JedisPool replica : oldReplicas) {
+      if (replica == newMaster) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void fireTopologyEvents(List<JedisClusterTopologyEvent> events) {
+    for (JedisClusterTopologyListener listener : topologyListeners) {
+      for (JedisClusterTopologyEvent event : events) {
+        try {
+          listener.onTopologyEvent(event);
+        } catch (RuntimeException e) {
+          log.warn("Cluster topology listener failed on {}", event, e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Registers a listener notified of the changes found by every later renewal of the slot cache,
+   * followed by a {@link JedisClusterTopologyEvent.Type#REFRESHED} event with its duration.
+   */
+  public void addTopologyListener(JedisClusterTopologyListener listener) {
+    if (listener == null) {
+      throw new IllegalArgumentException("listener must not be null");
+    }
+    topologyListeners.add(listener);
+  }
+
+  public void removeTopologyListener(JedisClusterTopologyListener listener) {
+    topologyListeners.remove(listener);
+  }
+
+  /**
+   * Makes every discovery or renewal of the slot cache save it to the file, see
+   * {@link #saveSnapshot(File)}.
+   */
+  public void setSnapshotFile(File snapshotFile) {
+    this.snapshotFile = snapshotFile;
+  }
+
+  /**
+   * Writes the slot ranges with the addresses of their master and replicas to the file, one range
+   * per line, e.g. <code>0-5460 127.0.0.1:7379 127.0.0.1:7382</code>. The file is replaced as a
+   * whole, a reader never sees it half written.
+   */
+  public void saveSnapshot(File file) throws IOException {
+    String snapshot = formatSnapshot();
+    synchronized (snapshotLock) {
+      writeSnapshot(file, snapshot);
+      lastSnapshot = snapshot;
+    }
+  }
+
+  /**
+   * Replaces the slot cache with the one saved by {@link #saveSnapshot(File)}, without contacting
+   * any node. The snapshot may be outdated, the cache should be renewed once a node is reachable.
+   * @return false if the file does not exist or cannot be parsed, the cache is then left as it was
+   */
+  public boolean loadSnapshot(File file) {
+    if (!file.isFile()) {
+      return false;
+    }
+    List<SlotRange> ranges;
+    try {
+      ranges = parseSnapshot(Files.readAllLines(file.toPath(), SNAPSHOT_CHARSET));
+    } catch (IOException e) {
+      log.warn("Could not read the cluster slot cache snapshot {}", file, e);
+      return false;
+    } catch (IllegalArgumentException e) {
+      log.warn("Ignoring invalid cluster slot cache snapshot {}", file, e);
+      return false;
+    }
+    if (ranges.isEmpty()) {
+      return false;
+    }
+
+    applySlotRanges(ranges, System.nanoTime());
+    synchronized (snapshotLock) {
+      lastSnapshot = formatSnapshot();
+    }
+    return true;
+  }
+
+  private void saveSnapshotIfChanged() {
+    File file = snapshotFile;
+    // the table of a reset cache is empty, not worth saving
+    if (file == null || closed) {
+      return;
+    }
+    String snapshot = formatSnapshot();
+    synchronized (snapshotLock) {
+      if (snapshot.equals(lastSnapshot)) {
+        return;
+      }
+      try {
+        writeSnapshot(file, snapshot);
+        lastSnapshot = snapshot;
+      } catch (IOException e) {
+        log.warn("Could not save the cluster slot cache snapshot {}", file, e);
+      }
+    }
+  }
+
+  private String formatSnapshot() {
+    Map<JedisPool, String> nodeKeys = new IdentityHashMap<JedisPool, String>();
+    JedisPool[] table;
+    JedisPool[][] replicaTable;
+    r.lock();
+    try {
+      for (Map.Entry<String, JedisPool> entry : nodes.entrySet()) {
+        nodeKeys.put(entry.getValue(), entry.getKey());
+      }
+      table = slots;
+      replicaTable = replicaSlots;
+    } finally {
+      r.unlock();
+    }
+
+    StringBuilder sb = new StringBuilder("# slots master [replicas...]\n");
+    int start = 0;
+    for (int slot = 1; slot <= table.length; slot++) {
+      if (slot < table.length && table[slot] == table[start]
+          && replicaTable[slot] == replicaTable[start]) {
+        continue;
+      }
+      if (table[start] != null && nodeKeys.containsKey(table[start])) {
+        sb.append(start).append('-').append(slot - 1).append(' ').append(nodeKeys.get(table[start]));
+        if (replicaTable[start] != null) {
+          for (JedisPool replica : replicaTable[start]) {
+            String replicaKey = nodeKeys.get(replica);
+            if (replicaKey != null) {
+              sb.append(' ').append(replicaKey);
+            }
+          }
+        }
+        sb.append('\n');
+      }
+      start = slot;
+    }
+    return sb.toString();
+  }
+
+  private static void writeSnapshot(File file, String snapshot) throws IOException {
+    File tmp = new File(file.getPath() + ".tmp");
+    Files.write(tmp.toPath(), snapshot.getBytes(SNAPSHOT_CHARSET));
+    try {
+      Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  private static List<SlotRange> parseSnapshot(List<String> lines) {
+    List<SlotRange> ranges = new ArrayList<SlotRange>();
+    for (String line : lines) {
+      line = line.trim();
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+      String[] tokens = line.split("\\s+");
+      if (tokens.length < 2) {
+        throw new IllegalArgumentException("No master for slots " + tokens[0]);
+      }
+      int dash = tokens[0].indexOf('-');
+      int start;
+      int end;
+      try {
+        start = Integer.parseInt(dash < 0 ? tokens[0] : tokens[0].substring(0, dash));
+        end = dash < 0 ? start : Integer.parseInt(tokens[0].substring(dash + 1));
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Invalid slot range " + tokens[0], e);
+      }
+      if (start < 0 || end < start || end >= BinaryJedisCluster.HASHSLOTS) {
+        throw new IllegalArgumentException("Invalid slot range " + tokens[0]);
+      }
+      List<HostAndPort> replicas = new ArrayList<HostAndPort>(tokens.length - 2);
+      for (int i = 2; i < tokens.length; i++) {
+        replicas.add(parseNodeKey(tokens[i]));
+      }
+      ranges.add(new SlotRange(start, end, parseNodeKey(tokens[1]), replicas));
+    }
+    return ranges;
+  }
+
+  private static HostAndPort parseNodeKey(String nodeKey) {
+    String[] parts = HostAndPort.extractParts(nodeKey);
+    try {
+      return new HostAndPort(parts[0], Integer.parseInt(parts[1]));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid node address " + nodeKey, e);
     }
   }
 
@@ -186,11 +568,21 @@ public class JedisClusterInfoCache {
       String nodeKey = getNodeKey(node);
       JedisPool existingPool = nodes.get(nodeKey);
       if (existingPool != null) return existingPool;
+      if (closed) {
+        throw new JedisConnectionException("The cluster connection is closed");
+      }
 
-      JedisPool nodePool = new JedisPool(poolConfig, node.getHost(), node.getPort(),
-          connectionTimeout, soTimeout, password, 0, clientName, 
-          ssl, sslSocketFactory, sslParameters, hostnameVerifier);
+      JedisPool nodePool;
+      if (eventLoop != null) {
+        nodePool = new JedisPool(poolConfig, node.getHost(), node.getPort(), connectionTimeout,
+            soTimeout, password, 0, clientName, eventLoop);
+      } else {
+        nodePool = new JedisPool(poolConfig, node.getHost(), node.getPort(),
+            connectionTimeout, soTimeout, password, 0, clientName,
+            ssl, sslSocketFactory, sslParameters, hostnameVerifier);
+      }
       nodes.put(nodeKey, nodePool);
+      health.put(nodePool, new JedisClusterNodeHealth());
       return nodePool;
     } finally {
       w.unlock();
@@ -201,7 +593,9 @@ public class JedisClusterInfoCache {
     w.lock();
     try {
       JedisPool targetPool = setupNodeIfNotExist(targetNode);
-      slots.put(slot, targetPool);
+      JedisPool[] newSlots = slots.clone();
+      newSlots[slot] = targetPool;
+      slots = newSlots;
     } finally {
       w.unlock();
     }
@@ -210,15 +604,21 @@ public class JedisClusterInfoCache {
   public void assignSlotsToNode(List<Integer> targetSlots, HostAndPort targetNode) {
     w.lock();
     try {
-      JedisPool targetPool = setupNodeIfNotExist(targetNode);
-      for (Integer slot : targetSlots) {
-        slots.put(slot, targetPool);
-      }
+      JedisPool[] newSlots = slots.clone();
+      assignSlots(newSlots, targetSlots, targetNode);
+      slots = newSlots;
     } finally {
       w.unlock();
     }
   }
 
+  private void assignSlots(JedisPool[] table, List<Integer> targetSlots, HostAndPort targetNode) {
+    JedisPool targetPool = setupNodeIfNotExist(targetNode);
+    for (Integer slot : targetSlots) {
+      table[slot] = targetPool;
+    }
+  }
+
   public JedisPool getNode(String nodeKey) {
     r.lock();
     try {
@@ -229,14 +629,123 @@ public class JedisClusterInfoCache {
   }
 
   public JedisPool getSlotPool(int slot) {
-    r.lock();
+    return slots[slot];
+  }
+
+  /**
+   * @return the pools of the replicas serving the slot, not to be modified, or null if unknown
+   */
+  JedisPool[] getSlotReplicaPools(int slot) {
+    return replicaSlots[slot];
+  }
+
+  /**
+   * Makes every renewal of the slot cache also measure the latency of each node, in the background.
+   */
+  public void setLatencyTracking(boolean latencyTracking) {
+    this.latencyTracking = latencyTracking;
+  }
+
+  /**
+   * Measures the latencies on a background thread, without waiting for it. Requests made while a
+   * measurement is pending are coalesced into it.
+   */
+  public void requestLatencyMeasurement() {
+    if (closed || !latencyMeasurementPending.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      getLatencyProber().execute(new Runnable() {
+        @Override
+        public void run() {
+          latencyMeasurementPending.set(false);
+          measureLatencies();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      // reset in the meantime
+      latencyMeasurementPending.set(false);
+    }
+  }
+
+  private synchronized ExecutorService getLatencyProber() {
+    if (closed) {
+      throw new RejectedExecutionException("The cluster connection is closed");
+    }
+    if (latencyProber == null) {
+      latencyProber = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread thread = new Thread(r, "jedis-cluster-latency-prober");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+    return latencyProber;
+  }
+
+  private synchronized void shutdownLatencyProber() {
+    if (latencyProber != null) {
+      latencyProber.shutdownNow();
+      latencyProber = null;
+    }
+  }
+
+  /**
+   * PINGs every node once and records the round trip time, an unreachable node gets
+   * {@link Long#MAX_VALUE}. Each node is probed through a connection of its own with a timeout of at
+   * most {@value #LATENCY_PROBE_TIMEOUT} milliseconds, so that a dead node neither delays the
+   * others for long nor takes a connection from its pool.
+   */
+  public void measureLatencies() {
+    for (Map.Entry<String, JedisPool> entry : getNodes().entrySet()) {
+      latencies.put(entry.getValue(), probeLatency(HostAndPort.parseString(entry.getKey())));
+    }
+  }
+
+  private long probeLatency(HostAndPort node) {
+    final int connectTimeout = probeTimeout(connectionTimeout);
+    final int readTimeout = probeTimeout(soTimeout);
+    final Jedis jedis = new Jedis(node.getHost(), node.getPort(), connectTimeout, readTimeout, ssl,
+        sslSocketFactory, sslParameters, hostnameVerifier);
     try {
-      return slots.get(slot);
+      final Client client = jedis.getClient();
+      client.setEventLoop(eventLoop);
+      client.setPassword(password);
+      client.setClientName(clientName);
+      jedis.connect();
+      long start = System.nanoTime();
+      jedis.ping();
+      return System.nanoTime() - start;
+    } catch (JedisException e) {
+      return Long.MAX_VALUE;
     } finally {
-      r.unlock();
+      jedis.close();
     }
   }
 
+  private static int probeTimeout(int timeout) {
+    return timeout > 0 ? Math.min(timeout, LATENCY_PROBE_TIMEOUT) : LATENCY_PROBE_TIMEOUT;
+  }
+
+  /**
+   * @return the last PING round trip time of the node in nanoseconds, {@link Long#MAX_VALUE} if it
+   *         was unreachable or never measured
+   */
+  public long getLatency(JedisPool pool) {
+    Long latency = latencies.get(pool);
+    return latency != null ? latency : Long.MAX_VALUE;
+  }
+
+  /**
+   * @return the health of the node served by the pool, null if the pool is not (or no longer) part
+   *         of this cache
+   */
+  public JedisClusterNodeHealth getNodeHealth(JedisPoolAbstract pool) {
+    return pool != null ? health.get(pool) : null;
+  }
+
   public Map<String, JedisPool> getNodes() {
     r.lock();
     try {
@@ -246,6 +755,39 @@ public class JedisClusterInfoCache {
     }
   }
 
+  /**
+   * @return a number increased whenever a non empty topology replaces the routing table. A node
+   *         missing from {@link #getMasterNodes()} is known to be gone once it has increased.
+   */
+  public long getTopologyVersion() {
+    return topologyVersion;
+  }
+
+  /**
+   * @return the pools of the nodes serving at least one slot, sorted by node key
+   */
+  public Map<String, JedisPool> getMasterNodes() {
+    JedisPool[] table = slots;
+    Map<JedisPool, Boolean> masters = new IdentityHashMap<JedisPool, Boolean>();
+    for (JedisPool pool : table) {
+      if (pool != null) {
+        masters.put(pool, Boolean.TRUE);
+      }
+    }
+    r.lock();
+    try {
+      Map<String, JedisPool> masterNodes = new TreeMap<String, JedisPool>();
+      for (Map.Entry<String, JedisPool> entry : nodes.entrySet()) {
+        if (masters.containsKey(entry.getValue())) {
+          masterNodes.put(entry.getKey(), entry.getValue());
+        }
+      }
+      return masterNodes;
+    } finally {
+      r.unlock();
+    }
+  }
+
   public List<JedisPool> getShuffledNodesPool() {
     r.lock();
     try {
@@ -258,11 +800,20 @@ public class JedisClusterInfoCache {
   }
 
   /**
-   * Clear discovered nodes collections and gently release allocated resources
+   * @return whether {@link #reset()} was called
+   */
+  public boolean isClosed() {
+    return closed;
+  }
+
+  /**
+   * Clear discovered nodes collections and gently release allocated resources. The cache no longer
+   * creates pools afterwards, renewals still running leave it empty.
    */
   public void reset() {
     w.lock();
     try {
+      closed = true;
       for (JedisPool pool : nodes.values()) {
         try {
           if (pool != null) {
@@ -273,10 +824,14 @@ public class JedisClusterInfoCache {
         }
       }
       nodes.clear();
-      slots.clear();
+      slots = new JedisPool[BinaryJedisCluster.HASHSLOTS];
+      replicaSlots = new JedisPool[BinaryJedisCluster.HASHSLOTS][];
+      latencies.clear();
+      health.clear();
     } finally {
       w.unlock();
     }
+    shutdownLatencyProber();
   }
 
   public static String getNodeKey(HostAndPort hnp) {
@@ -291,12 +846,17 @@ public class JedisClusterInfoCache {
     return getNodeKey(jedis.getClient());
   }
 
-  private List<Integer> getAssignedSlotArray(List<Object> slotInfo) {
-    List<Integer> slotNums = new ArrayList<Integer>();
-    for (int slot = ((Long) slotInfo.get(0)).intValue(); slot <= ((Long) slotInfo.get(1))
-        .intValue(); slot++) {
-      slotNums.add(slot);
+  private static final class SlotRange {
+    private final int start;
+    private final int end;
+    private final HostAndPort master;
+    private final List<HostAndPort> replicas;
+
+    private SlotRange(int start, int end, HostAndPort master, List<HostAndPort> replicas) {
+      this.start = start;
+      this.end = end;
+      this.master = master;
+      this.replicas = replicas;
     }
-    return slotNums;
   }
 }
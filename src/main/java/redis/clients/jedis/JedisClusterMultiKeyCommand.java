@@ -0,0 +1,162 @@
+package redis.clients.jedis;
+
+import static redis.clients.jedis.Protocol.Command.DEL;
+import static redis.clients.jedis.Protocol.Command.EXISTS;
+import static redis.clients.jedis.Protocol.Command.MGET;
+import static redis.clients.jedis.Protocol.Command.MSET;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import redis.clients.jedis.commands.ProtocolCommand;
+import redis.clients.jedis.exceptions.JedisClusterOperationException;
+import redis.clients.jedis.util.JedisClusterCRC16;
+import redis.clients.jedis.util.SafeEncoder;
+
+/**
+ * Multi key commands whose keys may hash to different slots. The keys are split by slot, one
+ * command is issued per slot and all of them go through a single {@link JedisClusterPipeline}, so
+ * every node serves its share concurrently and only the commands that got redirected or whose
+ * connection broke are sent again. Results are put back in the order of the keys.
+ * <p>
+ * The commands of different slots are not atomic with respect to each other.
+ */
+public class JedisClusterMultiKeyCommand {
+
+  private final JedisClusterConnectionHandler connectionHandler;
+  private final int maxAttempts;
+
+  public JedisClusterMultiKeyCommand(final JedisClusterConnectionHandler connectionHandler,
+      final int maxAttempts) {
+    this.connectionHandler = connectionHandler;
+    this.maxAttempts = maxAttempts;
+  }
+
+  @SuppressWarnings("unchecked")
+  public List<byte[]> mget(final byte[]... keys) {
+    final List<SlotGroup> groups = groupBySlot(keys, 1);
+    final List<Object> replies = run(MGET, groups);
+    final byte[][] values = new byte[keys.length][];
+    for (int i = 0; i < groups.size(); i++) {
+      final SlotGroup group = groups.get(i);
+      final List<byte[]> groupValues = (List<byte[]>) replies.get(i);
+      for (int j = 0; j < group.positions.length; j++) {
+        values[group.positions[j]] = groupValues.get(j);
+      }
+    }
+    return Arrays.asList(values);
+  }
+
+  public String mset(final byte[]... keysvalues) {
+    final List<Object> replies = run(MSET, groupBySlot(keysvalues, 2));
+    return BuilderFactory.STRING.build(replies.get(0));
+  }
+
+  public Long del(final byte[]... keys) {
+    return sum(run(DEL, groupBySlot(keys, 1)));
+  }
+
+  public Long exists(final byte[]... keys) {
+    return sum(run(EXISTS, groupBySlot(keys, 1)));
+  }
+
+  public List<String> mget(final String... keys) {
+    return BuilderFactory.STRING_LIST.build(mget(encode(keys, 1)));
+  }
+
+  public String mset(final String... keysvalues) {
+    return mset(encode(keysvalues, 2));
+  }
+
+  public Long del(final String... keys) {
+    return del(encode(keys, 1));
+  }
+
+  public Long exists(final String... keys) {
+    return exists(encode(keys, 1));
+  }
+
+  private static byte[][] encode(final String[] args, final int step) {
+    if (args == null) {
+      return null;
+    }
+    for (int i = 0; i < args.length; i += step) {
+      if (args[i] == null) {
+        throw new JedisClusterOperationException("Slot calculation of null is impossible");
+      }
+    }
+    return SafeEncoder.encodeMany(args);
+  }
+
+  private static Long sum(final List<Object> replies) {
+    long total = 0;
+    for (Object reply : replies) {
+      total += (Long) reply;
+    }
+    return total;
+  }
+
+  private List<Object> run(final ProtocolCommand cmd, final List<SlotGroup> groups) {
+    final JedisClusterPipeline pipeline = new JedisClusterPipeline(connectionHandler, maxAttempts);
+    final List<Response<Object>> responses = new ArrayList<Response<Object>>(groups.size());
+    for (SlotGroup group : groups) {
+      // the first argument is always a key of the group, the pipeline routes on it
+      responses.add(pipeline.sendCommand(cmd, group.args));
+    }
+    pipeline.sync();
+
+    final List<Object> replies = new ArrayList<Object>(responses.size());
+    for (Response<Object> response : responses) {
+      replies.add(response.get());
+    }
+    return replies;
+  }
+
+  /**
+   * @param step 1 when all arguments are keys, 2 for key value pairs
+   */
+  private static List<SlotGroup> groupBySlot(final byte[][] args, final int step) {
+    if (args == null || args.length == 0) {
+      throw new JedisClusterOperationException("No way to dispatch this command to Redis Cluster.");
+    }
+    if (args.length % step != 0) {
+      throw new JedisClusterOperationException("Keys and values must come in pairs.");
+    }
+
+    final Map<Integer, List<Integer>> positionsBySlot = new LinkedHashMap<Integer, List<Integer>>();
+    for (int i = 0; i < args.length; i += step) {
+      final int slot = JedisClusterCRC16.getSlot(args[i]);
+      List<Integer> positions = positionsBySlot.get(slot);
+      if (positions == null) {
+        positions = new ArrayList<Integer>();
+        positionsBySlot.put(slot, positions);
+      }
+      positions.add(i / step);
+    }
+
+    final List<SlotGroup> groups = new ArrayList<SlotGroup>(positionsBySlot.size());
+    for (List<Integer> positions : positionsBySlot.values()) {
+      final SlotGroup group = new SlotGroup(positions.size(), step);
+      for (int j = 0; j < group.positions.length; j++) {
+        final int position = positions.get(j);
+        group.positions[j] = position;
+        System.arraycopy(args, position * step, group.args, j * step, step);
+      }
+      groups.add(group);
+    }
+    return groups;
+  }
+
+  private static final class SlotGroup {
+    private final int[] positions;
+    private final byte[][] args;
+
+    private SlotGroup(final int keyCount, final int step) {
+      this.positions = new int[keyCount];
+      this.args = new byte[keyCount * step][];
+    }
+  }
+}
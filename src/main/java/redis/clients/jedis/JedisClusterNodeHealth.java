@@ -0,0 +1,111 @@
+package redis.clients.jedis;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Outcome counters of the commands sent to one cluster node, kept by the
+ * {@link JedisClusterConnectionHandler} to decide whether the node is worth trying (see
+ * {@link JedisClusterConnectionHandler#setCircuitBreaker(int, long)}) and whether a failure
+ * justifies renewing the slot cache.
+ * <p>
+ * Redirections and error replies count as successes: the node answered.
+ */
+public class JedisClusterNodeHealth {
+
+  private final AtomicLong successes = new AtomicLong();
+  private final AtomicLong failures = new AtomicLong();
+  private final AtomicInteger consecutiveFailures = new AtomicInteger();
+  private volatile long lastSuccess;
+  private volatile long lastFailure;
+  private volatile long averageLatency;
+  // start of the probe in flight while the circuit breaker is half open, 0 if none
+  private final AtomicLong probeStart = new AtomicLong();
+
+  public void recordSuccess(final long latencyNanos) {
+    successes.incrementAndGet();
+    consecutiveFailures.set(0);
+    lastSuccess = System.currentTimeMillis();
+    probeStart.set(0);
+    final long average = averageLatency;
+    // exponentially weighted, concurrent updates may occasionally lose a sample
+    averageLatency = average == 0 ? latencyNanos : average + (latencyNanos - average) / 8;
+  }
+
+  public void recordFailure() {
+    failures.incrementAndGet();
+    consecutiveFailures.incrementAndGet();
+    lastFailure = System.currentTimeMillis();
+    probeStart.set(0);
+  }
+
+  /**
+   * Elects the caller to probe the node while its circuit breaker is half open. A single probe is
+   * in flight at a time: until its outcome is recorded, or it is older than
+   * <code>leaseMillis</code> since it may never complete, other callers lose.
+   * @return whether the caller won and may send a command to the node
+   */
+  public boolean tryStartProbe(final long leaseMillis) {
+    final long now = System.currentTimeMillis();
+    final long started = probeStart.get();
+    if (started != 0 && now - started < leaseMillis) {
+      return false;
+    }
+    return probeStart.compareAndSet(started, now);
+  }
+
+  /**
+   * @return whether a probe started by {@link #tryStartProbe(long)} is still in flight
+   */
+  public boolean isProbing(final long leaseMillis) {
+    final long started = probeStart.get();
+    return started != 0 && System.currentTimeMillis() - started < leaseMillis;
+  }
+
+  public long getSuccesses() {
+    return successes.get();
+  }
+
+  public long getFailures() {
+    return failures.get();
+  }
+
+  /**
+   * @return the number of failures since the last success
+   */
+  public int getConsecutiveFailures() {
+    return consecutiveFailures.get();
+  }
+
+  /**
+   * @return the time of the last success in milliseconds, 0 if there was none
+   */
+  public long getLastSuccess() {
+    return lastSuccess;
+  }
+
+  /**
+   * @return the time of the last failure in milliseconds, 0 if there was none
+   */
+  public long getLastFailure() {
+    return lastFailure;
+  }
+
+  /**
+   * @return the moving average of the command latencies in nanoseconds
+   */
+  public long getAverageLatency() {
+    return averageLatency;
+  }
+
+  public boolean hasSucceededWithin(final long millis) {
+    return System.currentTimeMillis() - lastSuccess < millis;
+  }
+
+  @Override
+  public String toString() {
+    return "JedisClusterNodeHealth [successes=" + successes + ", failures=" + failures
+        + ", consecutiveFailures=" + consecutiveFailures + ", averageLatency=" + averageLatency
+        + "]";
+  }
+}
@@ -0,0 +1,266 @@
+package redis.clients.jedis;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import redis.clients.jedis.commands.ProtocolCommand;
+import redis.clients.jedis.exceptions.JedisAskDataException;
+import redis.clients.jedis.exceptions.JedisClusterMaxAttemptsException;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisMovedDataException;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
+import redis.clients.jedis.util.HotKeySampler;
+import redis.clients.jedis.util.JedisClusterCRC16;
+
+/**
+ * Pipeline over a Redis Cluster. Commands are only recorded until {@link #sync()}, which routes
+ * each of them to the master serving its key's slot, writes and flushes the batch of every node
+ * before reading any reply, so all nodes process their share at the same time. Commands answered
+ * with MOVED or ASK are sent again to the node they were redirected to, within the cluster's
+ * max attempts.
+ * <p>
+ * Only single key commands are available, as in {@link ShardedJedisPipeline}.
+ */
+public class JedisClusterPipeline extends PipelineBase implements Closeable {
+
+  private final JedisClusterConnectionHandler connectionHandler;
+  private final int maxAttempts;
+  private final CommandRecorder recorder = new CommandRecorder();
+  private final List<PipelinedCommand> commands = new ArrayList<PipelinedCommand>();
+  private final List<Response<?>> responses = new ArrayList<Response<?>>();
+  private int currentSlot;
+
+  public JedisClusterPipeline(final JedisClusterConnectionHandler connectionHandler,
+      final int maxAttempts) {
+    this.connectionHandler = connectionHandler;
+    this.maxAttempts = maxAttempts;
+  }
+
+  @Override
+  protected Client getClient(final String key) {
+    currentSlot = JedisClusterCRC16.getSlot(key);
+    return recorder;
+  }
+
+  @Override
+  protected Client getClient(final byte[] key) {
+    currentSlot = JedisClusterCRC16.getSlot(key);
+    return recorder;
+  }
+
+  @Override
+  protected <T> Response<T> getResponse(final Builder<T> builder) {
+    Response<T> response = new Response<T>(builder);
+    commands.get(commands.size() - 1).response = response;
+    responses.add(response);
+    return response;
+  }
+
+  /**
+   * Synchronize pipeline by reading all responses. This operation closes the pipeline. In order to
+   * get return values from pipelined commands, capture the different Response&lt;?&gt; of the
+   * commands you execute.
+   */
+  public void sync() {
+    try {
+      execute();
+    } finally {
+      commands.clear();
+      responses.clear();
+    }
+  }
+
+  /**
+   * Synchronize pipeline by reading all responses. This operation closes the pipeline. Whenever
+   * possible try to avoid using this version and use JedisClusterPipeline.sync() as it won't go
+   * through all the responses and generate the right response type (usually it is a waste of time).
+   * @return A list of all the responses in the order you executed them.
+   */
+  public List<Object> syncAndReturnAll() {
+    final List<Response<?>> executed = new ArrayList<Response<?>>(responses);
+    sync();
+    List<Object> formatted = new ArrayList<Object>(executed.size());
+    for (Response<?> response : executed) {
+      try {
+        formatted.add(response.get());
+      } catch (JedisDataException e) {
+        formatted.add(e);
+      }
+    }
+    return formatted;
+  }
+
+  @Override
+  public void close() {
+    sync();
+  }
+
+  private void execute() {
+    List<PipelinedCommand> toSend = new ArrayList<PipelinedCommand>(commands);
+    JedisConnectionException lastConnectionError = null;
+
+    for (int attempt = 0; attempt < maxAttempts && !toSend.isEmpty(); attempt++) {
+      final Map<JedisPool, List<PipelinedCommand>> batches = groupByNode(toSend);
+      final List<PipelinedCommand> retries = new ArrayList<PipelinedCommand>();
+      final Map<JedisPool, Jedis> connections = new LinkedHashMap<JedisPool, Jedis>();
+      boolean moved = false;
+      boolean broken = false;
+
+      try {
+        // write everything first so that every node works on its batch concurrently
+        for (Map.Entry<JedisPool, List<PipelinedCommand>> batch : batches.entrySet()) {
+          Jedis connection = null;
+          try {
+            connection = connectionHandler.getResource(batch.getKey());
+            connections.put(batch.getKey(), connection);
+            final Client client = connection.getClient();
+            for (PipelinedCommand command : batch.getValue()) {
+              if (command.redirect instanceof JedisAskDataException) {
+                client.asking();
+              }
+              client.sendCommand(command.cmd, command.args);
+            }
+            client.flush();
+          } catch (JedisConnectionException e) {
+            lastConnectionError = e;
+            broken = true;
+            retries.addAll(batch.getValue());
+            if (connection != null) {
+              connections.remove(batch.getKey());
+              connection.close();
+            }
+          }
+        }
+
+        for (Map.Entry<JedisPool, Jedis> entry : connections.entrySet()) {
+          final List<PipelinedCommand> batch = batches.get(entry.getKey());
+          final Client client = entry.getValue().getClient();
+          int read = 0;
+          try {
+            for (; read < batch.size(); read++) {
+              final PipelinedCommand command = batch.get(read);
+              if (command.redirect instanceof JedisAskDataException) {
+                readReply(client); // ASKING's OK, written in the same batch as the command
+              }
+              final Object reply = readReply(client);
+              if (reply instanceof JedisRedirectionException) {
+                command.redirect = (JedisRedirectionException) reply;
+                moved |= reply instanceof JedisMovedDataException;
+                retries.add(command);
+              } else {
+                command.redirect = null;
+                command.response.set(reply);
+              }
+            }
+          } catch (JedisConnectionException e) {
+            lastConnectionError = e;
+            broken = true;
+            retries.addAll(batch.subList(read, batch.size()));
+          }
+        }
+      } finally {
+        for (Jedis connection : connections.values()) {
+          connection.close();
+        }
+      }
+
+      if (moved) {
+        // it rebuilds cluster's slot cache recommended by Redis cluster specification
+        connectionHandler.renewSlotCache();
+      } else if (broken && attempt >= maxAttempts - 2) {
+        // the node may be gone, the last attempt has to be made with a fresh view of the cluster
+        connectionHandler.renewSlotCache();
+      }
+      toSend = retries;
+    }
+
+    boolean unreachable = false;
+    for (PipelinedCommand command : toSend) {
+      if (command.redirect != null) {
+        // out of attempts, the redirection is this command's reply
+        command.response.set(command.redirect);
+      } else {
+        unreachable = true;
+      }
+    }
+    if (unreachable) {
+      throw new JedisClusterMaxAttemptsException(lastConnectionError != null ? lastConnectionError
+          : new JedisConnectionException("No more cluster attempts left."));
+    }
+  }
+
+  private Map<JedisPool, List<PipelinedCommand>> groupByNode(final List<PipelinedCommand> toSend) {
+    final Map<JedisPool, List<PipelinedCommand>> batches = new LinkedHashMap<JedisPool, List<PipelinedCommand>>();
+    for (PipelinedCommand command : toSend) {
+      final JedisPool pool = getPool(command);
+      List<PipelinedCommand> batch = batches.get(pool);
+      if (batch == null) {
+        batch = new ArrayList<PipelinedCommand>();
+        batches.put(pool, batch);
+      }
+      batch.add(command);
+    }
+    return batches;
+  }
+
+  private JedisPool getPool(final PipelinedCommand command) {
+    if (command.redirect != null) {
+      return connectionHandler.cache.setupNodeIfNotExist(command.redirect.getTargetNode());
+    }
+    JedisPool pool = connectionHandler.cache.getSlotPool(command.slot);
+    if (pool == null) {
+      connectionHandler.cache.renewClusterSlots(null);
+      pool = connectionHandler.cache.getSlotPool(command.slot);
+    }
+    if (pool == null) {
+      // no choice, any node will redirect us to the right one
+      List<JedisPool> pools = connectionHandler.cache.getShuffledNodesPool();
+      if (pools.isEmpty()) {
+        throw new JedisConnectionException("No reachable node in cluster");
+      }
+      pool = pools.get(0);
+    }
+    return pool;
+  }
+
+  private static Object readReply(final Client client) {
+    try {
+      return client.readProtocolWithCheckingBroken();
+    } catch (JedisDataException e) {
+      return e;
+    }
+  }
+
+  private static final class PipelinedCommand {
+    private final int slot;
+    private final ProtocolCommand cmd;
+    private final byte[][] args;
+    private Response<?> response;
+    private JedisRedirectionException redirect;
+
+    private PipelinedCommand(final int slot, final ProtocolCommand cmd, final byte[][] args) {
+      this.slot = slot;
+      this.cmd = cmd;
+      this.args = args;
+    }
+  }
+
+  /**
+   * Stands for the node connections while commands are being queued: it only records what the
+   * {@link PipelineBase} methods would have sent. It is never connected.
+   */
+  private class CommandRecorder extends Client {
+    @Override
+    public void sendCommand(final ProtocolCommand cmd, final byte[]... args) {
+      final HotKeySampler sampler = connectionHandler.getHotKeySampler();
+      if (sampler != null) {
+        sampler.sample(cmd, args);
+      }
+      commands.add(new PipelinedCommand(currentSlot, cmd, args));
+    }
+  }
+}
@@ -0,0 +1,236 @@
+package redis.clients.jedis;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import redis.clients.jedis.exceptions.JedisClusterMaxAttemptsException;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.util.SafeEncoder;
+
+/**
+ * SCAN over the keyspace of a whole cluster. Every master is scanned with its own cursor, the
+ * cursors of all the masters being combined into the cursor returned to the caller, which is
+ * {@link ScanParams#SCAN_POINTER_START} once every master has been scanned completely. Each call
+ * scans up to <code>parallelism</code> masters: their SCAN commands are all sent before any reply
+ * is read, so the nodes work concurrently.
+ * <p>
+ * The topology may change during the scan: masters that appear, such as a promoted replica, are
+ * scanned from the start and masters that no longer serve any slot are dropped once a renewal of
+ * the slot cache confirms it. Until then they are kept in the cursor. As with SCAN, a key
+ * may be returned more than once, and keys migrated to a master already scanned are missed.
+ */
+public class JedisClusterScan {
+
+  private static final String FINISHED = "-";
+
+  private final JedisClusterConnectionHandler connectionHandler;
+  private final int maxAttempts;
+  private final int parallelism;
+
+  public JedisClusterScan(final JedisClusterConnectionHandler connectionHandler,
+      final int maxAttempts) {
+    this(connectionHandler, maxAttempts, 1);
+  }
+
+  /**
+   * @param parallelism maximum number of masters scanned by each call
+   */
+  public JedisClusterScan(final JedisClusterConnectionHandler connectionHandler,
+      final int maxAttempts, final int parallelism) {
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("parallelism must be positive");
+    }
+    this.connectionHandler = connectionHandler;
+    this.maxAttempts = maxAttempts;
+    this.parallelism = parallelism;
+  }
+
+  public ScanResult<String> scan(final String cursor, final ScanParams params) {
+    final ScanResult<byte[]> result = scan(SafeEncoder.encode(cursor), params);
+    final List<String> keys = new ArrayList<String>(result.getResult().size());
+    for (byte[] key : result.getResult()) {
+      keys.add(SafeEncoder.encode(key));
+    }
+    return new ScanResult<String>(result.getCursorAsBytes(), keys);
+  }
+
+  public ScanResult<byte[]> scan(final byte[] cursor, final ScanParams params) {
+    final Map<String, String> cursors = decode(SafeEncoder.encode(cursor));
+    final List<byte[]> keys = new ArrayList<byte[]>();
+    final Set<String> scanned = new HashSet<String>();
+
+    long missingSince = -1;
+    for (int attempt = 1;; attempt++) {
+      if (connectionHandler.cache.isClosed()) {
+        throw new JedisConnectionException("The cluster connection is closed");
+      }
+      // read first, the masters may only be newer than it
+      long version = connectionHandler.cache.getTopologyVersion();
+      Map<String, JedisPool> masters = connectionHandler.cache.getMasterNodes();
+      if (missingSince < 0 && isAnyMissing(cursors, masters)) {
+        // the cache may be outdated or being rebuilt, the masters are only dropped once a renewal
+        // confirms that they are gone
+        missingSince = version;
+        connectionHandler.renewSlotCache();
+        version = connectionHandler.cache.getTopologyVersion();
+        masters = connectionHandler.cache.getMasterNodes();
+      }
+      track(cursors, masters, missingSince >= 0 && version > missingSince);
+
+      final List<String> batch = new ArrayList<String>();
+      for (Map.Entry<String, String> entry : cursors.entrySet()) {
+        if (batch.size() + scanned.size() >= parallelism) {
+          break;
+        }
+        // masters still missing are left for a later call
+        if (!FINISHED.equals(entry.getValue()) && !scanned.contains(entry.getKey())
+            && masters.containsKey(entry.getKey())) {
+          batch.add(entry.getKey());
+        }
+      }
+      if (batch.isEmpty()) {
+        break;
+      }
+
+      final List<String> failed = scanNodes(batch, masters, cursors, params, keys);
+      batch.removeAll(failed);
+      scanned.addAll(batch);
+      if (failed.isEmpty()) {
+        break;
+      }
+      if (attempt >= maxAttempts) {
+        throw new JedisClusterMaxAttemptsException("No more cluster attempts left.");
+      }
+      // the unreachable masters may have been replaced by their replicas
+      for (String node : failed) {
+        if (connectionHandler.shouldRenewSlotCache(masters.get(node))) {
+          connectionHandler.renewSlotCache();
+          break;
+        }
+      }
+    }
+
+    return new ScanResult<byte[]>(SafeEncoder.encode(encode(cursors)), keys);
+  }
+
+  private static boolean isAnyMissing(final Map<String, String> cursors,
+      final Map<String, JedisPool> masters) {
+    for (Map.Entry<String, String> entry : cursors.entrySet()) {
+      if (!FINISHED.equals(entry.getValue()) && !masters.containsKey(entry.getKey())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Starts scanning the masters that are not part of the cursor yet and, if the topology is
+   * confirmed, stops scanning those that are not masters anymore.
+   */
+  private static void track(final Map<String, String> cursors,
+      final Map<String, JedisPool> masters, final boolean dropMissing) {
+    for (String node : masters.keySet()) {
+      if (!cursors.containsKey(node)) {
+        cursors.put(node, ScanParams.SCAN_POINTER_START);
+      }
+    }
+    if (dropMissing) {
+      for (Map.Entry<String, String> entry : cursors.entrySet()) {
+        if (!masters.containsKey(entry.getKey())) {
+          entry.setValue(FINISHED);
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the masters that could not be scanned because of a connection failure
+   */
+  @SuppressWarnings("unchecked")
+  private List<String> scanNodes(final List<String> batch, final Map<String, JedisPool> masters,
+      final Map<String, String> cursors, final ScanParams params, final List<byte[]> keys) {
+    final List<String> failed = new ArrayList<String>();
+    final List<String> sent = new ArrayList<String>(batch.size());
+    final List<Jedis> sentConnections = new ArrayList<Jedis>(batch.size());
+    final List<Jedis> connections = new ArrayList<Jedis>(batch.size());
+    JedisDataException error = null;
+    try {
+      for (String node : batch) {
+        try {
+          final Jedis connection = connectionHandler.getResource(masters.get(node));
+          connections.add(connection);
+          connection.getClient().scan(SafeEncoder.encode(cursors.get(node)),
+              params != null ? params : new ScanParams());
+          connection.getClient().flush();
+          sent.add(node);
+          sentConnections.add(connection);
+        } catch (JedisConnectionException e) {
+          failed.add(node);
+        }
+      }
+
+      for (int i = 0; i < sent.size(); i++) {
+        final String node = sent.get(i);
+        try {
+          final List<Object> reply = sentConnections.get(i).getClient().getObjectMultiBulkReply();
+          final String next = SafeEncoder.encode((byte[]) reply.get(0));
+          cursors.put(node, ScanParams.SCAN_POINTER_START.equals(next) ? FINISHED : next);
+          keys.addAll((List<byte[]>) reply.get(1));
+        } catch (JedisConnectionException e) {
+          failed.add(node);
+        } catch (JedisDataException e) {
+          // keep reading the replies of the other nodes before reporting it
+          if (error == null) {
+            error = e;
+          }
+        }
+      }
+    } finally {
+      for (Jedis connection : connections) {
+        connection.close();
+      }
+    }
+
+    if (error != null) {
+      throw error;
+    }
+    return failed;
+  }
+
+  /**
+   * @param cursor "node=cursor" pairs separated by commas, the cursor of a master already scanned
+   *          completely being {@value #FINISHED}
+   */
+  private static Map<String, String> decode(final String cursor) {
+    final Map<String, String> cursors = new TreeMap<String, String>();
+    if (ScanParams.SCAN_POINTER_START.equals(cursor)) {
+      return cursors;
+    }
+    for (String part : cursor.split(",")) {
+      final int separator = part.lastIndexOf('=');
+      if (separator <= 0 || separator == part.length() - 1) {
+        throw new IllegalArgumentException("Invalid cluster scan cursor " + cursor);
+      }
+      cursors.put(part.substring(0, separator), part.substring(separator + 1));
+    }
+    return cursors;
+  }
+
+  private static String encode(final Map<String, String> cursors) {
+    final StringBuilder sb = new StringBuilder();
+    boolean pending = false;
+    for (Map.Entry<String, String> entry : cursors.entrySet()) {
+      if (sb.length() > 0) {
+        sb.append(',');
+      }
+      sb.append(entry.getKey()).append('=').append(entry.getValue());
+      pending |= !FINISHED.equals(entry.getValue());
+    }
+    return pending ? sb.toString() : ScanParams.SCAN_POINTER_START;
+  }
+}
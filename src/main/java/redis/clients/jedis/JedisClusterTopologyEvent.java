@@ -0,0 +1,87 @@
+package redis.clients.jedis;
+
+/**
+ * A change of the cluster topology noticed by a renewal of the slot cache, see
+ * {@link JedisClusterTopologyListener}. Nodes are identified by their node key,
+ * <code>host:port</code>.
+ */
+public class JedisClusterTopologyEvent {
+
+  public enum Type {
+    /** A node serving slots, as a master or a replica, appeared. */
+    NODE_ADDED,
+    /** A node no longer serves any slot, its connections are being closed. */
+    NODE_REMOVED,
+    /** A slot range got a new master that was not one of its replicas, e.g. a resharding. */
+    SLOTS_MOVED,
+    /** A replica of a slot range was promoted to master, i.e. a failover. */
+    MASTER_CHANGED,
+    /** Sent once after the other events of a renewal, even if nothing changed. */
+    REFRESHED
+  }
+
+  private final Type type;
+  private final String node;
+  private final String previousNode;
+  private final int startSlot;
+  private final int endSlot;
+  private final long refreshNanos;
+
+  public JedisClusterTopologyEvent(Type type, String node, String previousNode, int startSlot,
+      int endSlot, long refreshNanos) {
+    this.type = type;
+    this.node = node;
+    this.previousNode = previousNode;
+    this.startSlot = startSlot;
+    this.endSlot = endSlot;
+    this.refreshNanos = refreshNanos;
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  /**
+   * @return the node added or removed, or the new master of the slot range, null if the range is
+   *         no longer served or for {@link Type#REFRESHED}
+   */
+  public String getNode() {
+    return node;
+  }
+
+  /**
+   * @return the previous master of the slot range, null if it was not served
+   */
+  public String getPreviousNode() {
+    return previousNode;
+  }
+
+  /**
+   * @return the first slot of the range, -1 for events about nodes
+   */
+  public int getStartSlot() {
+    return startSlot;
+  }
+
+  /**
+   * @return the last slot of the range (inclusive), -1 for events about nodes
+   */
+  public int getEndSlot() {
+    return endSlot;
+  }
+
+  /**
+   * @return how long the renewal took, from the request for the topology to the routing table
+   *         being replaced
+   */
+  public long getRefreshNanos() {
+    return refreshNanos;
+  }
+
+  @Override
+  public String toString() {
+    return "JedisClusterTopologyEvent [type=" + type + ", node=" + node + ", previousNode="
+        + previousNode + ", slots=" + startSlot + "-" + endSlot + ", refreshNanos=" + refreshNanos
+        + "]";
+  }
+}
@@ -0,0 +1,11 @@
+package redis.clients.jedis;
+
+/**
+ * Notified of the changes found by each renewal of the slot cache, on the thread that renewed it
+ * (a command's thread or the {@link JedisClusterTopologyRefresher}), once the new routing table is
+ * in use. Listeners should return quickly.
+ */
+public interface JedisClusterTopologyListener {
+
+  void onTopologyEvent(JedisClusterTopologyEvent event);
+}
@@ -0,0 +1,140 @@
+package redis.clients.jedis;
+
+import java.io.Closeable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Renews the slot cache of a cluster from a dedicated thread, so that the threads running commands
+ * never wait for CLUSTER SLOTS. Refresh requests (MOVED replies, unreachable nodes) are coalesced:
+ * however many arrive, at most one refresh runs per <code>minIntervalMillis</code>. The cache can
+ * also be refreshed periodically to pick up topology changes before they cause redirections.
+ * <p>
+ * Redirected commands do not need the refresh to complete: they follow the node named in the
+ * redirection, the refreshed table only spares the next commands that extra hop.
+ */
+public class JedisClusterTopologyRefresher implements Closeable {
+
+  private static final Logger log = LoggerFactory.getLogger(JedisClusterTopologyRefresher.class);
+
+  private final JedisClusterInfoCache cache;
+  private final long minIntervalMillis;
+  private final long periodMillis;
+  private final Thread thread;
+  private final Object lock = new Object();
+
+  private boolean requested;
+  private boolean closed;
+  private long lastRefresh;
+
+  /**
+   * @param minIntervalMillis minimum time between two refreshes
+   * @param periodMillis time after which the cache is refreshed even if nothing requested it, 0
+   *          to only refresh on request
+   */
+  public JedisClusterTopologyRefresher(final JedisClusterInfoCache cache,
+      final long minIntervalMillis, final long periodMillis) {
+    if (minIntervalMillis < 0 || periodMillis < 0) {
+      throw new IllegalArgumentException("Intervals must not be negative");
+    }
+    this.cache = cache;
+    this.minIntervalMillis = minIntervalMillis;
+    this.periodMillis = periodMillis;
+    this.lastRefresh = System.currentTimeMillis();
+    this.thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        refreshLoop();
+      }
+    }, "jedis-cluster-topology-refresher");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Asks for the slot cache to be renewed, without waiting for it.
+   */
+  public void requestRefresh() {
+    synchronized (lock) {
+      if (!requested) {
+        requested = true;
+        lock.notifyAll();
+      }
+    }
+  }
+
+  private void refreshLoop() {
+    while (true) {
+      synchronized (lock) {
+        try {
+          while (!closed && !isDue(System.currentTimeMillis())) {
+            lock.wait(waitTime(System.currentTimeMillis()));
+          }
+        } catch (InterruptedException e) {
+          return;
+        }
+        if (closed) {
+          return;
+        }
+        requested = false;
+      }
+
+      try {
+        cache.renewClusterSlots(null);
+      } catch (RuntimeException e) {
+        log.warn("Could not refresh the cluster topology", e);
+      }
+
+      synchronized (lock) {
+        lastRefresh = System.currentTimeMillis();
+      }
+    }
+  }
+
+  private boolean isDue(final long now) {
+    final long elapsed = now - lastRefresh;
+    return (requested && elapsed >= minIntervalMillis)
+        || (periodMillis > 0 && elapsed >= periodMillis);
+  }
+
+  /**
+   * @return how long to wait before the next refresh may be due, 0 meaning until notified
+   */
+  private long waitTime(final long now) {
+    long next = Long.MAX_VALUE;
+    if (requested) {
+      next = lastRefresh + minIntervalMillis;
+    }
+    if (periodMillis > 0) {
+      next = Math.min(next, lastRefresh + periodMillis);
+    }
+    return next == Long.MAX_VALUE ? 0 : Math.max(1, next - now);
+  }
+
+  public boolean isClosed() {
+    synchronized (lock) {
+      return closed;
+    }
+  }
+
+  /**
+   * Stops the refresher and waits for a refresh in progress to end, so that the cache is no longer
+   * touched once this returns.
+   */
+  @Override
+  public void close() {
+    synchronized (lock) {
+      closed = true;
+      lock.notifyAll();
+    }
+    if (Thread.currentThread() != thread) {
+      thread.interrupt();
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
@@ -29,6 +29,8 @@ class JedisFactory implements PooledObjectFactory<Jedis> {
   private final SSLSocketFactory sslSocketFactory;
   private final SSLParameters sslParameters;
   private final HostnameVerifier hostnameVerifier;
+  private final NioEventLoop eventLoop;
+  private volatile long validationIdleMillis = 0;
 
   JedisFactory(final String host, final int port, final int connectionTimeout,
       final int soTimeout, final String password, final int database, final String clientName) {
@@ -40,6 +42,14 @@ class JedisFactory implements PooledObjectFactory<Jedis> {
       final int soTimeout, final String password, final int database, final String clientName,
       final boolean ssl, final SSLSocketFactory sslSocketFactory, final SSLParameters sslParameters,
       final HostnameVerifier hostnameVerifier) {
+    this(host, port, connectionTimeout, soTimeout, password, database, clientName, ssl,
+        sslSocketFactory, sslParameters, hostnameVerifier, null);
+  }
+
+  JedisFactory(final String host, final int port, final int connectionTimeout,
+      final int soTimeout, final String password, final int database, final String clientName,
+      final boolean ssl, final SSLSocketFactory sslSocketFactory, final SSLParameters sslParameters,
+      final HostnameVerifier hostnameVerifier, final NioEventLoop eventLoop) {
     this.hostAndPort.set(new HostAndPort(host, port));
     this.connectionTimeout = connectionTimeout;
     this.soTimeout = soTimeout;
@@ -50,6 +60,7 @@ class JedisFactory implements PooledObjectFactory<Jedis> {
     this.sslSocketFactory = sslSocketFactory;
     this.sslParameters = sslParameters;
     this.hostnameVerifier = hostnameVerifier;
+    this.eventLoop = eventLoop;
   }
 
   JedisFactory(final URI uri, final int connectionTimeout, final int soTimeout,
@@ -75,19 +86,27 @@ class JedisFactory implements PooledObjectFactory<Jedis> {
     this.sslSocketFactory = sslSocketFactory;
     this.sslParameters = sslParameters;
     this.hostnameVerifier = hostnameVerifier;
+    this.eventLoop = null;
   }
 
   public void setHostAndPort(final HostAndPort hostAndPort) {
     this.hostAndPort.set(hostAndPort);
   }
 
+  /**
+   * See {@link JedisPoolConfig#setValidationIdleMillis(long)}.
+   */
+  public void setValidationIdleMillis(final long validationIdleMillis) {
+    this.validationIdleMillis = validationIdleMillis;
+  }
+
   @Override
   public void activateObject(PooledObject<Jedis> pooledJedis) throws Exception {
     final BinaryJedis jedis = pooledJedis.getObject();
+    // normally restored on return already
     if (jedis.getDB() != database) {
-      jedis.select(database);
+      jedis.getClient().pipelinedSelect(database);
     }
-
   }
 
   @Override
@@ -114,16 +133,13 @@ class JedisFactory implements PooledObjectFactory<Jedis> {
         soTimeout, ssl, sslSocketFactory, sslParameters, hostnameVerifier);
 
     try {
+      final Client client = jedis.getClient();
+      client.setEventLoop(eventLoop);
+      client.setPassword(password);
+      client.setDb(database);
+      client.setClientName(clientName);
+      // AUTH, SELECT and CLIENT SETNAME go out together, also on reconnection
       jedis.connect();
-      if (password != null) {
-        jedis.auth(password);
-      }
-      if (database != 0) {
-        jedis.select(database);
-      }
-      if (clientName != null) {
-        jedis.clientSetname(clientName);
-      }
     } catch (JedisException je) {
       jedis.close();
       throw je;
@@ -135,7 +151,11 @@ class JedisFactory implements PooledObjectFactory<Jedis> {
 
   @Override
   public void passivateObject(PooledObject<Jedis> pooledJedis) throws Exception {
-    // TODO maybe should select db 0? Not sure right now.
+    // idle connections are all on the pool's database, the SELECT goes out with the next command
+    final BinaryJedis jedis = pooledJedis.getObject();
+    if (jedis.getDB() != database) {
+      jedis.getClient().pipelinedSelect(database);
+    }
   }
 
   @Override
@@ -147,9 +167,15 @@ class JedisFactory implements PooledObjectFactory<Jedis> {
       String connectionHost = jedis.getClient().getHost();
       int connectionPort = jedis.getClient().getPort();
 
-      return hostAndPort.getHost().equals(connectionHost)
-          && hostAndPort.getPort() == connectionPort && jedis.isConnected()
-          && jedis.ping().equals("PONG");
+      if (!hostAndPort.getHost().equals(connectionHost)
+          || hostAndPort.getPort() != connectionPort || !jedis.getClient().isIdleAndUsable()) {
+        return false;
+      }
+      // a connection returned lately is trusted, one idle for long may have been dropped silently
+      if (System.currentTimeMillis() - pooledJedis.getLastReturnTime() < validationIdleMillis) {
+        return true;
+      }
+      return jedis.ping().equals("PONG");
     } catch (final Exception e) {
       return false;
     }
@@ -0,0 +1,159 @@
+package redis.clients.jedis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import redis.clients.jedis.exceptions.JedisException;
+
+/**
+ * The pending reply of a command sent by {@link AsyncJedis}. It is completed by the connection's
+ * reader thread, or its event loop thread, which builds the value with the command's {@link Builder}.
+ * <p>
+ * Sent commands can not be taken back, so {@link #cancel(boolean)} always returns false.
+ */
+public class JedisFuture<T> implements Future<T> {
+
+  private static final Logger log = LoggerFactory.getLogger(JedisFuture.class);
+
+  private final Builder<T> builder;
+  private final CountDownLatch done = new CountDownLatch(1);
+  private List<Runnable> listeners = new ArrayList<Runnable>(1);
+  private T response;
+  private JedisException exception;
+
+  public JedisFuture(Builder<T> builder) {
+    this.builder = builder;
+  }
+
+  /**
+   * Completes the future with the raw reply read from the connection.
+   */
+  void set(final Object data) {
+    if (isDone()) {
+      return;
+    }
+    T value = null;
+    JedisException error = null;
+    try {
+      if (data instanceof JedisException) {
+        error = (JedisException) data;
+      } else if (data != null) {
+        value = builder.build(data);
+      }
+    } catch (RuntimeException e) {
+      error = new JedisException("Could not build reply", e);
+    }
+    complete(value, error);
+  }
+
+  void fail(final JedisException exception) {
+    complete(null, exception);
+  }
+
+  private void complete(final T value, final JedisException error) {
+    final List<Runnable> toRun;
+    synchronized (this) {
+      if (listeners == null) {
+        return;
+      }
+      response = value;
+      exception = error;
+      toRun = listeners;
+      listeners = null;
+    }
+    done.countDown();
+    for (Runnable listener : toRun) {
+      runListener(listener);
+    }
+  }
+
+  /**
+   * Registers a callback run once the reply is available. Callbacks run on the connection's reader
+   * or event loop thread, or immediately on the calling thread if the future is already done, so they must not
+   * block.
+   */
+  public void addListener(final Runnable listener) {
+    synchronized (this) {
+      if (listeners != null) {
+        listeners.add(listener);
+        return;
+      }
+    }
+    runListener(listener);
+  }
+
+  private static void runListener(final Runnable listener) {
+    try {
+      listener.run();
+    } catch (RuntimeException e) {
+      log.error("Listener of a JedisFuture failed", e);
+    }
+  }
+
+  @Override
+  public boolean cancel(final boolean mayInterruptIfRunning) {
+    return false;
+  }
+
+  @Override
+  public boolean isCancelled() {
+    return false;
+  }
+
+  @Override
+  public boolean isDone() {
+    return done.getCount() == 0;
+  }
+
+  @Override
+  public T get() throws InterruptedException, ExecutionException {
+    done.await();
+    return getNow();
+  }
+
+  @Override
+  public T get(final long timeout, final TimeUnit unit) throws InterruptedException,
+      ExecutionException, TimeoutException {
+    if (!done.await(timeout, unit)) {
+      throw new TimeoutException("Reply not received within " + timeout + " " + unit);
+    }
+    return getNow();
+  }
+
+  /**
+   * Waits for the reply like {@link #get()}, but rethrows failures as they were raised by the
+   * connection, the same way a blocking {@link Jedis} call would.
+   */
+  public T join() {
+    try {
+      done.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new JedisException("Interrupted while waiting for reply", e);
+    }
+    if (exception != null) {
+      throw exception;
+    }
+    return response;
+  }
+
+  private T getNow() throws ExecutionException {
+    if (exception != null) {
+      throw new ExecutionException(exception);
+    }
+    return response;
+  }
+
+  @Override
+  public String toString() {
+    return "JedisFuture " + builder.toString();
+  }
+}
@@ -15,6 +15,22 @@ public class JedisPoolAbstract extends Pool<Jedis> {
     super(poolConfig, factory);
   }
 
+  /**
+   * Applies the settings of a {@link JedisPoolConfig} that are not about the pool itself.
+   */
+  @Override
+  public void initPool(GenericObjectPoolConfig poolConfig, PooledObjectFactory<Jedis> factory) {
+    boolean threadAffine = false;
+    if (poolConfig instanceof JedisPoolConfig) {
+      final JedisPoolConfig jedisPoolConfig = (JedisPoolConfig) poolConfig;
+      if (factory instanceof JedisFactory) {
+        ((JedisFactory) factory).setValidationIdleMillis(jedisPoolConfig.getValidationIdleMillis());
+      }
+      threadAffine = jedisPoolConfig.isThreadAffine();
+    }
+    super.initPool(poolConfig, factory, threadAffine);
+  }
+
   @Override
   protected void returnBrokenResource(Jedis resource) {
     super.returnBrokenResource(resource);
@@ -2,7 +2,12 @@ package redis.clients.jedis;
 
 import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 
+import redis.clients.jedis.util.ThreadAffinePool;
+
 public class JedisPoolConfig extends GenericObjectPoolConfig {
+  private boolean threadAffine = false;
+  private long validationIdleMillis = 0;
+
   public JedisPoolConfig() {
     // defaults to make your life with connection pool easier :)
     setTestWhileIdle(true);
@@ -10,4 +15,35 @@ public class JedisPoolConfig extends GenericObjectPoolConfig {
     setTimeBetweenEvictionRunsMillis(30000);
     setNumTestsPerEvictionRun(-1);
   }
+
+  public boolean isThreadAffine() {
+    return threadAffine;
+  }
+
+  /**
+   * Makes the pools created with this config use a {@link ThreadAffinePool} instead of a
+   * GenericObjectPool, cheaper to borrow from and return to when each borrow runs only a few
+   * commands. Eviction, JMX and abandoned object tracking are then not available.
+   */
+  public void setThreadAffine(boolean threadAffine) {
+    this.threadAffine = threadAffine;
+  }
+
+  public long getValidationIdleMillis() {
+    return validationIdleMillis;
+  }
+
+  /**
+   * Makes the validation of a connection (testOnBorrow, testOnReturn, testWhileIdle) send a PING
+   * only if it was last returned to the pool at least this time ago. A more recent one is only
+   * checked locally: connected, not broken by an I/O error and without unexpected input. 0, the
+   * default, always sends the PING.
+   * <p>
+   * The local check can not tell that the server closed a blocking socket, such a connection is
+   * only detected, and discarded, when its next command fails. Connections served by a
+   * {@link NioEventLoop} are checked with a non-blocking read, which sees the close.
+   */
+  public void setValidationIdleMillis(long validationIdleMillis) {
+    this.validationIdleMillis = validationIdleMillis;
+  }
 }
@@ -1,5 +1,8 @@
 package redis.clients.jedis;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import javax.net.ssl.HostnameVerifier;
@@ -36,6 +39,16 @@ public class JedisSlotBasedConnectionHandler extends JedisClusterConnectionHandl
     super(nodes, poolConfig, connectionTimeout, soTimeout, password, clientName, ssl, sslSocketFactory, sslParameters, hostnameVerifier, portMap);
   }
 
+  public JedisSlotBasedConnectionHandler(Set<HostAndPort> nodes, GenericObjectPoolConfig poolConfig, int connectionTimeout, int soTimeout, String password, String clientName,
+                                         NioEventLoop eventLoop) {
+    super(nodes, poolConfig, connectionTimeout, soTimeout, password, clientName, false, null, null, null, null, eventLoop);
+  }
+
+  public JedisSlotBasedConnectionHandler(Set<HostAndPort> nodes, GenericObjectPoolConfig poolConfig, int connectionTimeout, int soTimeout, String password, String clientName,
+                                         NioEventLoop eventLoop, File slotCacheFile, int prefillConnections) {
+    super(nodes, poolConfig, connectionTimeout, soTimeout, password, clientName, false, null, null, null, null, eventLoop, slotCacheFile, prefillConnections);
+  }
+
   @Override
   public Jedis getConnection() {
     // In antirez's redis-rb-cluster implementation,
@@ -44,6 +57,16 @@ public class JedisSlotBasedConnectionHandler extends JedisClusterConnectionHandl
     // or exception if all connections are invalid
 
     List<JedisPool> pools = cache.getShuffledNodesPool();
+    // nodes known to be down are only tried last
+    List<JedisPool> unavailable = new ArrayList<JedisPool>();
+    for (Iterator<JedisPool> it = pools.iterator(); it.hasNext();) {
+      JedisPool pool = it.next();
+      if (!isAvailable(pool)) {
+        unavailable.add(pool);
+        it.remove();
+      }
+    }
+    pools.addAll(unavailable);
 
     for (JedisPool pool : pools) {
       Jedis jedis = null;
@@ -75,12 +98,14 @@ public class JedisSlotBasedConnectionHandler extends JedisClusterConnectionHandl
     if (connectionPool != null) {
       // It can't guaranteed to get valid connection because of node
       // assignment
-      return connectionPool.getResource();
+      return getResource(connectionPool);
     } else {
-      renewSlotCache(); //It's abnormal situation for cluster mode, that we have just nothing for slot, try to rediscover state
+      //It's abnormal situation for cluster mode, that we have just nothing for slot, try to rediscover state
+      //right away, even with a background refresher, since the answer is needed now
+      cache.renewClusterSlots(null);
       connectionPool = cache.getSlotPool(slot);
       if (connectionPool != null) {
-        return connectionPool.getResource();
+        return getResource(connectionPool);
       } else {
         //no choice, fallback to new connection to random node
         return getConnection();
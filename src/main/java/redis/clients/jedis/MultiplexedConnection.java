@@ -0,0 +1,532 @@
+package redis.clients.jedis;
+
+import static redis.clients.jedis.Protocol.Command.ASKING;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import redis.clients.jedis.commands.ProtocolCommand;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.util.RedisOutputStream;
+
+/**
+ * A single connection shared by many threads. Commands are written in the order they are
+ * submitted and their replies, which Redis sends back in that same order, are read by a dedicated
+ * thread that completes the matching {@link JedisFuture}. Callers never wait for each other's
+ * round trips.
+ * <p>
+ * A reply not received within the connection's SO_TIMEOUT, or any other I/O error, breaks the
+ * connection: all pending futures fail with a {@link JedisConnectionException} and further
+ * commands are rejected.
+ * <p>
+ * With auto-pipelining enabled, callers only queue their command and a writer thread sends
+ * everything queued since its last pass with a single flush, optionally lingering a few
+ * microseconds to let more commands accumulate. Under heavy concurrency this replaces one write
+ * system call per command by one per batch, at the cost of a thread hand-off when idle.
+ * <p>
+ * A connection configured with a {@link NioEventLoop} gets no thread of its own: the event loop
+ * decodes the replies and completes the futures, and with auto-pipelining it also writes the
+ * queued commands, so any number of multiplexed connections share the event loop's threads.
+ * <p>
+ * Commands that change the state of the connection (SELECT, MULTI, WATCH, blocking pops,
+ * SUBSCRIBE...) affect every thread sharing it and must not be used.
+ */
+public class MultiplexedConnection implements Closeable {
+
+  private static final byte[][] EMPTY_ARGS = new byte[0][];
+
+  private final Connection connection;
+  private final Object writeLock = new Object();
+  private final Queue<JedisFuture<?>> pending = new ArrayDeque<JedisFuture<?>>();
+  private final Queue<QueuedCommand> submitted;
+  private final long lingerNanos;
+  private final Thread reader;
+  private final Thread writer;
+  private final NioChannel channel;
+  private final long soTimeoutNanos;
+  private volatile JedisException failure;
+
+  // event loop mode: when the oldest pending command started waiting for its reply, whether the
+  // timeout check is scheduled, guarded by pending
+  private long waitingSince;
+  private boolean timeoutCheckScheduled;
+  // event loop mode with auto-pipelining: the encoded batch, only used by the event loop thread,
+  // and whether a flush is scheduled, guarded by submitted
+  private final Batch batch;
+  private boolean flushScheduled;
+
+  /**
+   * @param connection a configured connection, it is connected (and, for a {@link BinaryClient},
+   *          authenticated) right away and owned by this instance afterwards. With an event loop
+   *          set (see {@link Connection#setEventLoop(NioEventLoop)}) it is driven by the event
+   *          loop's threads.
+   */
+  public MultiplexedConnection(final Connection connection) {
+    this(connection, false, 0);
+  }
+
+  /**
+   * @param autoPipelining whether commands are handed to a writer thread, or the event loop, that
+   *          coalesces them into as few flushes as possible instead of being written by the
+   *          calling thread
+   */
+  public MultiplexedConnection(final Connection connection, final boolean autoPipelining) {
+    this(connection, autoPipelining, 0);
+  }
+
+  /**
+   * @param lingerMicros with auto-pipelining, how long the writer waits after picking up a command
+   *          for others to join the same flush, 0 to flush as soon as possible
+   */
+  public MultiplexedConnection(final Connection connection, final boolean autoPipelining,
+      final long lingerMicros) {
+    if (lingerMicros < 0) {
+      throw new IllegalArgumentException("lingerMicros < 0");
+    }
+    this.connection = connection;
+    this.lingerNanos = TimeUnit.MICROSECONDS.toNanos(lingerMicros);
+    this.soTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(connection.getSoTimeout());
+    connection.connect();
+    channel = connection.getChannel();
+    if (channel != null) {
+      reader = null;
+      writer = null;
+      submitted = autoPipelining ? new ArrayDeque<QueuedCommand>() : null;
+      batch = autoPipelining ? new Batch() : null;
+      channel.startReading(new NioChannel.ReplyListener() {
+        @Override
+        public void onReply(final Object reply) {
+          replyReceived(reply);
+        }
+
+        @Override
+        public void onFailure(final JedisConnectionException e) {
+          fail(e);
+        }
+      });
+      return;
+    }
+
+    batch = null;
+    final String name = connection.getHost() + ":" + connection.getPort();
+    reader = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        readReplies();
+      }
+    }, "jedis-multiplexed-" + name);
+    reader.setDaemon(true);
+    reader.start();
+
+    if (autoPipelining) {
+      submitted = new ArrayDeque<QueuedCommand>();
+      writer = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          writeCommands();
+        }
+      }, "jedis-multiplexed-writer-" + name);
+      writer.setDaemon(true);
+      writer.start();
+    } else {
+      submitted = null;
+      writer = null;
+    }
+  }
+
+  public String getHost() {
+    return connection.getHost();
+  }
+
+  public int getPort() {
+    return connection.getPort();
+  }
+
+  public <T> JedisFuture<T> send(final Builder<T> builder, final ProtocolCommand cmd,
+      final byte[]... args) {
+    return send(builder, cmd, args, false);
+  }
+
+  /**
+   * Sends the command right after an ASKING, with no command of another thread in between, to
+   * follow an ASK redirection.
+   */
+  public <T> JedisFuture<T> sendAsking(final Builder<T> builder, final ProtocolCommand cmd,
+      final byte[]... args) {
+    return send(builder, cmd, args, true);
+  }
+
+  private <T> JedisFuture<T> send(final Builder<T> builder, final ProtocolCommand cmd,
+      final byte[][] args, final boolean asking) {
+    final JedisFuture<T> future = new JedisFuture<T>(builder);
+    // its reply is only read to keep the replies in order
+    final JedisFuture<String> askingFuture = asking
+        ? new JedisFuture<String>(BuilderFactory.STRING) : null;
+    if (submitted != null) {
+      boolean scheduleFlush = false;
+      synchronized (submitted) {
+        // checked under the queue's lock so that fail() can not miss this command
+        if (failure != null) {
+          future.fail(failure);
+        } else {
+          if (asking) {
+            submitted.add(new QueuedCommand(ASKING, EMPTY_ARGS, askingFuture));
+          }
+          submitted.add(new QueuedCommand(cmd, args, future));
+          submitted.notifyAll();
+          if (channel != null && !flushScheduled) {
+            flushScheduled = true;
+            scheduleFlush = true;
+          }
+        }
+      }
+      if (scheduleFlush) {
+        scheduleFlush();
+      }
+      return future;
+    }
+    synchronized (writeLock) {
+      if (failure != null) {
+        future.fail(failure);
+        return future;
+      }
+      try {
+        // queued first: with an event loop the reply may be decoded before the write returns
+        if (asking) {
+          enqueue(askingFuture);
+          connection.writeCommand(ASKING, EMPTY_ARGS);
+        }
+        enqueue(future);
+        connection.writeCommand(cmd, args);
+        connection.flush();
+      } catch (JedisConnectionException e) {
+        // a partially written command leaves the stream unusable
+        fail(e);
+        if (!future.isDone()) {
+          future.fail(e);
+        }
+      }
+    }
+    return future;
+  }
+
+  public boolean isAutoPipelining() {
+    return submitted != null;
+  }
+
+  private void scheduleFlush() {
+    final Runnable flush = new Runnable() {
+      @Override
+      public void run() {
+        flushSubmitted();
+      }
+    };
+    try {
+      if (lingerNanos > 0) {
+        channel.schedule(flush, lingerNanos);
+      } else {
+        channel.execute(flush);
+      }
+    } catch (JedisConnectionException e) {
+      // the event loop is closed
+      fail(e);
+    }
+  }
+
+  /**
+   * Writes the queued commands from the event loop thread, which must never wait for the socket:
+   * they are encoded in memory and what the socket does not accept is written once it can.
+   */
+  private void flushSubmitted() {
+    final QueuedCommand[] commands;
+    synchronized (submitted) {
+      commands = submitted.toArray(new QueuedCommand[submitted.size()]);
+      submitted.clear();
+      flushScheduled = false;
+    }
+    if (failure != null) {
+      failAll(commands, failure);
+      return;
+    }
+    try {
+      for (QueuedCommand command : commands) {
+        enqueue(command.future);
+        connection.encodeCommand(batch.stream, command.cmd, command.args);
+      }
+      batch.stream.flush();
+    } catch (IOException e) {
+      fail(new JedisConnectionException(e));
+      failAll(commands, failure);
+      return;
+    } catch (JedisConnectionException e) {
+      fail(e);
+      failAll(commands, e);
+      return;
+    }
+    channel.write(batch.toByteBuffer());
+    batch.reset();
+  }
+
+  private void writeCommands() {
+    while (true) {
+      synchronized (submitted) {
+        while (submitted.isEmpty() && failure == null) {
+          try {
+            submitted.wait();
+          } catch (InterruptedException e) {
+            fail(new JedisConnectionException("Writer thread interrupted", e));
+            return;
+          }
+        }
+        if (failure != null) {
+          return;
+        }
+      }
+
+      if (lingerNanos > 0) {
+        LockSupport.parkNanos(lingerNanos);
+      }
+
+      final QueuedCommand[] batch;
+      synchronized (submitted) {
+        batch = submitted.toArray(new QueuedCommand[submitted.size()]);
+        submitted.clear();
+      }
+
+      synchronized (writeLock) {
+        if (failure != null) {
+          failAll(batch, failure);
+          return;
+        }
+        try {
+          for (QueuedCommand command : batch) {
+            connection.writeCommand(command.cmd, command.args);
+            enqueue(command.future);
+          }
+          connection.flush();
+        } catch (JedisConnectionException e) {
+          fail(e);
+          failAll(batch, e);
+          return;
+        }
+      }
+    }
+  }
+
+  private static void failAll(final QueuedCommand[] batch, final JedisException e) {
+    for (QueuedCommand command : batch) {
+      // no-op for the commands already handed to the reader
+      command.future.fail(e);
+    }
+  }
+
+  private void enqueue(final JedisFuture<?> future) {
+    boolean scheduleTimeoutCheck = false;
+    synchronized (pending) {
+      if (failure == null) {
+        if (pending.isEmpty()) {
+          waitingSince = System.nanoTime();
+        }
+        pending.add(future);
+        pending.notifyAll();
+        if (channel != null && soTimeoutNanos > 0 && !timeoutCheckScheduled) {
+          timeoutCheckScheduled = true;
+          scheduleTimeoutCheck = true;
+        }
+      }
+    }
+    if (scheduleTimeoutCheck) {
+      scheduleTimeoutCheck(soTimeoutNanos);
+    }
+    if (failure != null) {
+      // the reader failed while this command was being written
+      future.fail(failure);
+    }
+  }
+
+  private void scheduleTimeoutCheck(final long delayNanos) {
+    try {
+      channel.schedule(new Runnable() {
+        @Override
+        public void run() {
+          checkTimeout();
+        }
+      }, delayNanos);
+    } catch (JedisConnectionException e) {
+      // the event loop is closed
+      fail(e);
+    }
+  }
+
+  /**
+   * The event loop's equivalent of SO_TIMEOUT: the oldest pending command must see its reply, or
+   * at least some data arrive, within the timeout.
+   */
+  private void checkTimeout() {
+    final long remaining;
+    synchronized (pending) {
+      if (pending.isEmpty() || failure != null) {
+        timeoutCheckScheduled = false;
+        return;
+      }
+      final long lastRead = channel.getLastReadNanos();
+      final long since = lastRead - waitingSince > 0 ? lastRead : waitingSince;
+      remaining = since + soTimeoutNanos - System.nanoTime();
+    }
+    if (remaining > 0) {
+      scheduleTimeoutCheck(remaining);
+    } else {
+      fail(new JedisConnectionException(new SocketTimeoutException("Read timed out")));
+    }
+  }
+
+  private void replyReceived(final Object reply) {
+    final JedisFuture<?> next;
+    synchronized (pending) {
+      next = pending.poll();
+      waitingSince = System.nanoTime();
+    }
+    if (next == null) {
+      fail(new JedisConnectionException("Received a reply no command is waiting for"));
+      return;
+    }
+    next.set(reply);
+  }
+
+  /**
+   * @return the number of commands sent whose reply has not been read yet
+   */
+  public int getPendingCount() {
+    synchronized (pending) {
+      return pending.size();
+    }
+  }
+
+  public boolean isBroken() {
+    return failure != null;
+  }
+
+  private void readReplies() {
+    while (true) {
+      final JedisFuture<?> next;
+      synchronized (pending) {
+        while (pending.isEmpty() && failure == null) {
+          try {
+            pending.wait();
+          } catch (InterruptedException e) {
+            fail(new JedisConnectionException("Reader thread interrupted", e));
+            return;
+          }
+        }
+        if (failure != null) {
+          return;
+        }
+        next = pending.peek();
+      }
+
+      Object reply;
+      try {
+        reply = connection.readProtocolWithCheckingBroken();
+      } catch (JedisDataException e) {
+        reply = e;
+      } catch (JedisException e) {
+        fail(e);
+        return;
+      } catch (RuntimeException e) {
+        fail(new JedisConnectionException(e));
+        return;
+      }
+
+      synchronized (pending) {
+        pending.poll();
+      }
+      next.set(reply);
+    }
+  }
+
+  /**
+   * Breaks the connection: fails every command not answered yet and releases the socket, which
+   * also unblocks the reader. Only the socket is closed because a writer may be using the output
+   * stream and the reader the input stream. Called by the event loop when its channel fails.
+   */
+  private void fail(final JedisException e) {
+    final JedisFuture<?>[] toFail;
+    final boolean first;
+    synchronized (pending) {
+      first = failure == null;
+      if (first) {
+        failure = e;
+      }
+      toFail = pending.toArray(new JedisFuture<?>[pending.size()]);
+      pending.clear();
+      pending.notifyAll();
+    }
+    if (first) {
+      connection.closeSocket();
+    }
+    for (JedisFuture<?> future : toFail) {
+      future.fail(e);
+    }
+    if (submitted != null) {
+      final QueuedCommand[] notSent;
+      synchronized (submitted) {
+        notSent = submitted.toArray(new QueuedCommand[submitted.size()]);
+        submitted.clear();
+        submitted.notifyAll();
+      }
+      failAll(notSent, e);
+    }
+  }
+
+  private void disconnect() {
+    try {
+      connection.disconnect();
+    } catch (JedisException ignored) {
+      // the connection is being discarded anyway
+    }
+  }
+
+  /**
+   * Closes the connection. Commands still waiting for their reply fail.
+   */
+  @Override
+  public void close() {
+    synchronized (writeLock) {
+      fail(new JedisConnectionException("Connection closed"));
+      disconnect();
+    }
+  }
+
+  /**
+   * Commands encoded by the event loop thread before being written in one go.
+   */
+  private static final class Batch extends ByteArrayOutputStream {
+    private final RedisOutputStream stream = new RedisOutputStream(this);
+
+    private ByteBuffer toByteBuffer() {
+      return ByteBuffer.wrap(buf, 0, count);
+    }
+  }
+
+  private static final class QueuedCommand {
+    private final ProtocolCommand cmd;
+    private final byte[][] args;
+    private final JedisFuture<?> future;
+
+    private QueuedCommand(final ProtocolCommand cmd, final byte[][] args,
+        final JedisFuture<?> future) {
+      this.cmd = cmd;
+      this.args = args;
+      this.future = future;
+    }
+  }
+}
@@ -0,0 +1,361 @@
+package redis.clients.jedis;
+
+import static redis.clients.jedis.Protocol.toByteArray;
+import static redis.clients.jedis.Protocol.Command.*;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+
+import redis.clients.jedis.commands.ProtocolCommand;
+import redis.clients.jedis.exceptions.JedisAskDataException;
+import redis.clients.jedis.exceptions.JedisClusterMaxAttemptsException;
+import redis.clients.jedis.exceptions.JedisClusterOperationException;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisMovedDataException;
+import redis.clients.jedis.exceptions.JedisNoReachableClusterNodeException;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
+import redis.clients.jedis.params.SetParams;
+import redis.clients.jedis.util.HotKeySampler;
+import redis.clients.jedis.util.JedisClusterCRC16;
+import redis.clients.jedis.util.SafeEncoder;
+
+/**
+ * Cluster client where each master is served by a fixed number of {@link MultiplexedConnection}s
+ * shared by all the threads, instead of a pool holding up to one connection per thread. Commands
+ * of different threads are pipelined on the same sockets and their replies matched by order, so
+ * the number of connections a client opens no longer grows with its number of threads.
+ * <p>
+ * Commands are routed, redirected and retried like those of {@link JedisCluster}; the calling
+ * thread waits for its reply. Topology discovery uses short lived connections that are not kept
+ * idle. Commands that change the state of a connection (SELECT, MULTI, WATCH, blocking
+ * operations, SUBSCRIBE, READONLY...) can not be used, so reads are always served by masters.
+ */
+public class MultiplexedJedisCluster implements Closeable {
+
+  public static final int DEFAULT_CONNECTIONS_PER_NODE = 1;
+
+  private final JedisClusterConnectionHandler connectionHandler;
+  private final int maxAttempts;
+  private final int connectionsPerNode;
+  private final boolean autoPipelining;
+  private final int connectionTimeout;
+  private final int soTimeout;
+  private final String password;
+  private final String clientName;
+  private final NioEventLoop eventLoop;
+  private final ConcurrentMap<JedisPool, NodeConnections> nodeConnections =
+      new ConcurrentHashMap<JedisPool, NodeConnections>();
+
+  public MultiplexedJedisCluster(Set<HostAndPort> nodes) {
+    this(nodes, Protocol.DEFAULT_TIMEOUT, Protocol.DEFAULT_TIMEOUT,
+        BinaryJedisCluster.DEFAULT_MAX_ATTEMPTS, null, null, DEFAULT_CONNECTIONS_PER_NODE, false);
+  }
+
+  /**
+   * @param connectionsPerNode number of connections to each master, commands are spread over them
+   *          round robin
+   * @param autoPipelining see {@link MultiplexedConnection#MultiplexedConnection(Connection, boolean)}
+   */
+  public MultiplexedJedisCluster(Set<HostAndPort> nodes, int connectionTimeout, int soTimeout,
+      int maxAttempts, String password, String clientName, int connectionsPerNode,
+      boolean autoPipelining) {
+    this(nodes, connectionTimeout, soTimeout, maxAttempts, password, clientName,
+        connectionsPerNode, autoPipelining, null);
+  }
+
+  /**
+   * @param eventLoop event loop driving the connections to the nodes, which then need no thread of
+   *          their own, see {@link NioEventLoop}; it is not closed with this client
+   */
+  public MultiplexedJedisCluster(Set<HostAndPort> nodes, int connectionTimeout, int soTimeout,
+      int maxAttempts, String password, String clientName, int connectionsPerNode,
+      boolean autoPipelining, NioEventLoop eventLoop) {
+    if (connectionsPerNode <= 0) {
+      throw new IllegalArgumentException("connectionsPerNode must be positive");
+    }
+    this.connectionHandler = new JedisSlotBasedConnectionHandler(nodes, discoveryPoolConfig(),
+        connectionTimeout, soTimeout, password, clientName);
+    this.maxAttempts = maxAttempts;
+    this.connectionsPerNode = connectionsPerNode;
+    this.autoPipelining = autoPipelining;
+    this.connectionTimeout = connectionTimeout;
+    this.soTimeout = soTimeout;
+    this.password = password;
+    this.clientName = clientName;
+    this.eventLoop = eventLoop;
+  }
+
+  private static GenericObjectPoolConfig discoveryPoolConfig() {
+    GenericObjectPoolConfig poolConfig = new GenericObjectPoolConfig();
+    poolConfig.setMaxIdle(0);
+    poolConfig.setMinIdle(0);
+    return poolConfig;
+  }
+
+  /**
+   * Samples the keys of the commands sent to find the hottest keys and slots, see
+   * {@link HotKeySampler}. null stops sampling.
+   */
+  public void setHotKeySampler(HotKeySampler hotKeySampler) {
+    connectionHandler.setHotKeySampler(hotKeySampler);
+  }
+
+  public HotKeySampler getHotKeySampler() {
+    return connectionHandler.getHotKeySampler();
+  }
+
+  public Map<String, JedisPool> getClusterNodes() {
+    return connectionHandler.getNodes();
+  }
+
+  /**
+   * Sends a command to the node serving the slot of its first argument, which must be a key. The
+   * other keys of the command, if any, must hash to the same slot.
+   */
+  public <T> T sendCommand(final Builder<T> builder, final ProtocolCommand cmd,
+      final byte[]... args) {
+    if (args.length == 0) {
+      throw new JedisClusterOperationException("No way to dispatch this command to Redis Cluster.");
+    }
+    final HotKeySampler sampler = connectionHandler.getHotKeySampler();
+    if (sampler != null) {
+      sampler.sample(cmd, args);
+    }
+    return run(JedisClusterCRC16.getSlot(args[0]), builder, cmd, args);
+  }
+
+  public <T> T sendCommand(final Builder<T> builder, final ProtocolCommand cmd,
+      final String... args) {
+    return sendCommand(builder, cmd, SafeEncoder.encodeMany(args));
+  }
+
+  public String get(final String key) {
+    return sendCommand(BuilderFactory.STRING, GET, key);
+  }
+
+  public byte[] get(final byte[] key) {
+    return sendCommand(BuilderFactory.BYTE_ARRAY, GET, key);
+  }
+
+  public String set(final String key, final String value) {
+    return sendCommand(BuilderFactory.STRING, SET, key, value);
+  }
+
+  public String set(final byte[] key, final byte[] value) {
+    return sendCommand(BuilderFactory.STRING, SET, key, value);
+  }
+
+  public String set(final String key, final String value, final SetParams params) {
+    return sendCommand(BuilderFactory.STRING, SET,
+      params.getByteParams(SafeEncoder.encode(key), SafeEncoder.encode(value)));
+  }
+
+  public Long del(final String key) {
+    return sendCommand(BuilderFactory.LONG, DEL, key);
+  }
+
+  public Boolean exists(final String key) {
+    return sendCommand(BuilderFactory.BOOLEAN, EXISTS, key);
+  }
+
+  public Long expire(final String key, final int seconds) {
+    return sendCommand(BuilderFactory.LONG, EXPIRE, SafeEncoder.encode(key), toByteArray(seconds));
+  }
+
+  public Long ttl(final String key) {
+    return sendCommand(BuilderFactory.LONG, TTL, key);
+  }
+
+  public Long incr(final String key) {
+    return sendCommand(BuilderFactory.LONG, INCR, key);
+  }
+
+  public Long incrBy(final String key, final long increment) {
+    return sendCommand(BuilderFactory.LONG, INCRBY, SafeEncoder.encode(key),
+      toByteArray(increment));
+  }
+
+  public String hget(final String key, final String field) {
+    return sendCommand(BuilderFactory.STRING, HGET, key, field);
+  }
+
+  public Long hset(final String key, final String field, final String value) {
+    return sendCommand(BuilderFactory.LONG, HSET, key, field, value);
+  }
+
+  public Map<String, String> hgetAll(final String key) {
+    return sendCommand(BuilderFactory.STRING_MAP, HGETALL, key);
+  }
+
+  public List<String> lrange(final String key, final long start, final long stop) {
+    return sendCommand(BuilderFactory.STRING_LIST, LRANGE, SafeEncoder.encode(key),
+      toByteArray(start), toByteArray(stop));
+  }
+
+  public Set<String> smembers(final String key) {
+    return sendCommand(BuilderFactory.STRING_SET, SMEMBERS, key);
+  }
+
+  private <T> T run(final int slot, final Builder<T> builder, final ProtocolCommand cmd,
+      final byte[][] args) {
+    JedisRedirectionException redirect = null;
+    for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+      try {
+        if (redirect == null) {
+          return getConnection(getSlotPool(slot)).send(builder, cmd, args).join();
+        }
+        MultiplexedConnection connection = getConnection(
+          connectionHandler.cache.setupNodeIfNotExist(redirect.getTargetNode()));
+        if (redirect instanceof JedisAskDataException) {
+          return connection.sendAsking(builder, cmd, args).join();
+        }
+        return connection.send(builder, cmd, args).join();
+      } catch (JedisNoReachableClusterNodeException e) {
+        throw e;
+      } catch (JedisMovedDataException e) {
+        // it rebuilds cluster's slot cache recommended by Redis cluster specification
+        connectionHandler.renewSlotCache();
+        closeRemovedNodes();
+        redirect = e;
+      } catch (JedisAskDataException e) {
+        redirect = e;
+      } catch (JedisConnectionException e) {
+        if (attempt == maxAttempts && connectionHandler.shouldRenewSlotCache(slot)) {
+          // the node may be gone for good, see JedisClusterCommand
+          connectionHandler.renewSlotCache();
+          closeRemovedNodes();
+        }
+        redirect = null;
+      }
+    }
+    throw new JedisClusterMaxAttemptsException("No more cluster attempts left.");
+  }
+
+  private JedisPool getSlotPool(final int slot) {
+    JedisPool pool = connectionHandler.cache.getSlotPool(slot);
+    if (pool == null) {
+      connectionHandler.renewSlotCache();
+      closeRemovedNodes();
+      pool = connectionHandler.cache.getSlotPool(slot);
+    }
+    if (pool == null) {
+      throw new JedisNoReachableClusterNodeException("No node serves slot " + slot);
+    }
+    return pool;
+  }
+
+  private MultiplexedConnection getConnection(final JedisPool pool) {
+    NodeConnections connections = nodeConnections.get(pool);
+    if (connections == null) {
+      final HostAndPort node = findNode(pool);
+      if (node == null) {
+        throw new JedisConnectionException("Node is no longer part of the cluster");
+      }
+      final NodeConnections created = new NodeConnections(node);
+      connections = nodeConnections.putIfAbsent(pool, created);
+      if (connections == null) {
+        connections = created;
+      }
+    }
+    return connections.next();
+  }
+
+  private HostAndPort findNode(final JedisPool pool) {
+    for (Map.Entry<String, JedisPool> entry : connectionHandler.getNodes().entrySet()) {
+      if (entry.getValue() == pool) {
+        final String[] parts = HostAndPort.extractParts(entry.getKey());
+        return new HostAndPort(parts[0], Integer.parseInt(parts[1]));
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Closes the connections of the nodes the slot cache dropped, whose pools it closed.
+   */
+  private void closeRemovedNodes() {
+    final Iterator<Map.Entry<JedisPool, NodeConnections>> it = nodeConnections.entrySet().iterator();
+    while (it.hasNext()) {
+      final Map.Entry<JedisPool, NodeConnections> entry = it.next();
+      if (entry.getKey().isClosed()) {
+        it.remove();
+        entry.getValue().close();
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    for (NodeConnections connections : nodeConnections.values()) {
+      connections.close();
+    }
+    nodeConnections.clear();
+    connectionHandler.close();
+  }
+
+  private MultiplexedConnection connect(final HostAndPort node) {
+    final Client client = new Client(node.getHost(), node.getPort());
+    client.setConnectionTimeout(connectionTimeout);
+    client.setSoTimeout(soTimeout);
+    client.setPassword(password);
+    client.setClientName(clientName);
+    client.setEventLoop(eventLoop);
+    return new MultiplexedConnection(client, autoPipelining);
+  }
+
+  /**
+   * The connections to one node, each replaced by a new one once broken.
+   */
+  private final class NodeConnections {
+    private final HostAndPort node;
+    private final AtomicReferenceArray<MultiplexedConnection> connections;
+    private final AtomicInteger counter = new AtomicInteger();
+    private boolean closed;
+
+    private NodeConnections(final HostAndPort node) {
+      this.node = node;
+      this.connections = new AtomicReferenceArray<MultiplexedConnection>(connectionsPerNode);
+    }
+
+    private MultiplexedConnection next() {
+      final int index = (counter.getAndIncrement() & Integer.MAX_VALUE) % connections.length();
+      MultiplexedConnection connection = connections.get(index);
+      if (connection != null && !connection.isBroken()) {
+        return connection;
+      }
+      synchronized (this) {
+        if (closed) {
+          throw new JedisConnectionException("Node is no longer part of the cluster");
+        }
+        connection = connections.get(index);
+        if (connection == null || connection.isBroken()) {
+          if (connection != null) {
+            connection.close();
+          }
+          connection = connect(node);
+          connections.set(index, connection);
+        }
+        return connection;
+      }
+    }
+
+    private synchronized void close() {
+      closed = true;
+      for (int i = 0; i < connections.length(); i++) {
+        final MultiplexedConnection connection = connections.getAndSet(i, null);
+        if (connection != null) {
+          connection.close();
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,438 @@
+package redis.clients.jedis;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+/**
+ * A non-blocking {@link SocketChannel} served by a {@link NioEventLoop} worker, used in one of two
+ * ways:
+ * <ul>
+ * <li>through blocking streams, so that a {@link Connection} and the {@link Protocol} layer stay
+ * unchanged. The calling thread reads and writes the channel itself, straight from and into its
+ * own buffers, and only waits on this channel's monitor, honoring the socket's SO_TIMEOUT, until
+ * the worker reports the channel readable or writable. Such a connection still holds its caller
+ * for the whole round trip, as a blocking socket does.</li>
+ * <li>driven by the worker once {@link #startReading(ReplyListener)} is called: the worker decodes
+ * replies as they arrive and hands them to the listener, and commands can be written by tasks
+ * running on the worker without ever waiting. Many connections with requests in flight then share
+ * the worker instead of each needing a reader thread.</li>
+ * </ul>
+ */
+final class NioChannel implements Closeable {
+
+  /**
+   * Receives what the worker reads from a channel. Called on the worker thread, so it must not
+   * block.
+   */
+  interface ReplyListener {
+
+    /**
+     * @param reply a complete reply, or the {@link redis.clients.jedis.exceptions.JedisDataException}
+     *          of an error reply
+     */
+    void onReply(Object reply);
+
+    /**
+     * The channel failed or the peer closed it, no more replies follow.
+     */
+    void onFailure(JedisConnectionException e);
+  }
+
+  private static final int BUFFER_SIZE = 16 * 1024;
+
+  private final SocketChannel channel;
+  private final NioEventLoop.Worker worker;
+  private final Object lock = new Object();
+  private final InputStream inputStream = new ChannelInputStream();
+  private final OutputStream outputStream = new ChannelOutputStream();
+
+  private volatile SelectionKey key;
+  private boolean connected;
+  private boolean readable;
+  private boolean writable;
+  // a byte consumed by isIdleAndOpen(), handed out first by the input stream
+  private int peeked = -1;
+  private IOException failure;
+
+  // only used by the worker thread
+  private ReplyListener listener;
+  private ReplyDecoder decoder;
+  private ByteBuffer outbound;
+  private volatile long lastReadNanos;
+
+  NioChannel(final SocketChannel channel, final NioEventLoop.Worker worker) {
+    this.channel = channel;
+    this.worker = worker;
+  }
+
+  SocketChannel getChannel() {
+    return channel;
+  }
+
+  SelectionKey getKey() {
+    return key;
+  }
+
+  void setKey(final SelectionKey key) {
+    this.key = key;
+  }
+
+  Socket socket() {
+    return channel.socket();
+  }
+
+  InputStream getInputStream() {
+    return inputStream;
+  }
+
+  OutputStream getOutputStream() {
+    return outputStream;
+  }
+
+  void connect(final InetSocketAddress address, final int connectionTimeout) throws IOException {
+    try {
+      final Socket socket = channel.socket();
+      socket.setReuseAddress(true);
+      socket.setKeepAlive(true);
+      socket.setTcpNoDelay(true);
+      socket.setSoLinger(true, 0);
+      channel.configureBlocking(false);
+
+      if (channel.connect(address)) {
+        connected = true;
+        worker.register(this, 0);
+        return;
+      }
+
+      worker.register(this, SelectionKey.OP_CONNECT);
+      synchronized (lock) {
+        final long deadline = deadline(connectionTimeout);
+        while (!connected) {
+          checkFailure();
+          await(deadline, "connect timed out");
+        }
+      }
+    } catch (IOException e) {
+      close();
+      throw e;
+    } catch (RuntimeException e) {
+      // e.g. the event loop closed before registering the channel
+      close();
+      throw e;
+    }
+  }
+
+  /**
+   * Hands reading over to the worker, which from now on decodes every reply and passes it to the
+   * listener. The input stream must not be used any more.
+   */
+  void startReading(final ReplyListener listener) {
+    worker.execute(new Runnable() {
+      @Override
+      public void run() {
+        NioChannel.this.listener = listener;
+        decoder = new ReplyDecoder();
+        lastReadNanos = System.nanoTime();
+        final IOException failed;
+        synchronized (lock) {
+          if (peeked >= 0) {
+            decoder.writableBuffer().put((byte) peeked);
+            decoder.filled(1);
+            peeked = -1;
+          }
+          failed = failure != null ? failure
+              : !channel.isOpen() ? new SocketException("Socket is closed") : null;
+        }
+        if (failed != null) {
+          listener.onFailure(new JedisConnectionException(failed));
+          return;
+        }
+        final SelectionKey key = getKey();
+        if (key != null && key.isValid()) {
+          key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+        }
+      }
+    });
+  }
+
+  /**
+   * Runs the task on the worker thread, where {@link #write(ByteBuffer)} may be called.
+   */
+  void execute(final Runnable task) {
+    worker.execute(task);
+  }
+
+  /**
+   * Runs the task on the worker thread once the delay has elapsed.
+   */
+  void schedule(final Runnable task, final long delayNanos) {
+    worker.schedule(task, delayNanos);
+  }
+
+  /**
+   * @return the {@link System#nanoTime()} at which the worker last received data
+   */
+  long getLastReadNanos() {
+    return lastReadNanos;
+  }
+
+  /**
+   * Writes without waiting, from the worker thread only. What the socket does not accept right
+   * away is kept, after any data queued earlier, and written as soon as the channel is writable.
+   */
+  void write(final ByteBuffer data) {
+    try {
+      if (outbound == null || outbound.position() == 0) {
+        channel.write(data);
+        if (!data.hasRemaining()) {
+          return;
+        }
+      }
+      if (outbound == null) {
+        outbound = ByteBuffer.allocate(Math.max(BUFFER_SIZE, data.remaining()));
+      } else if (outbound.remaining() < data.remaining()) {
+        final ByteBuffer larger = ByteBuffer.allocate(Math.max(outbound.capacity() * 2,
+          outbound.position() + data.remaining()));
+        outbound.flip();
+        larger.put(outbound);
+        outbound = larger;
+      }
+      outbound.put(data);
+      final SelectionKey key = getKey();
+      if (key != null && key.isValid()) {
+        key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+      }
+    } catch (IOException e) {
+      fail(e);
+    }
+  }
+
+  /**
+   * Invoked by the worker thread for every selected key.
+   */
+  void ready(final SelectionKey key) {
+    try {
+      if (key.isValid() && key.isConnectable()) {
+        channel.finishConnect();
+        key.interestOps(0);
+        synchronized (lock) {
+          connected = true;
+          lock.notifyAll();
+        }
+      }
+      if (key.isValid() && key.isReadable()) {
+        if (listener != null) {
+          readReplies();
+        } else {
+          // the thread waiting for data reads it itself
+          key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+          synchronized (lock) {
+            readable = true;
+            lock.notifyAll();
+          }
+        }
+      }
+      if (key.isValid() && key.isWritable()) {
+        if (outbound != null && outbound.position() > 0) {
+          outbound.flip();
+          channel.write(outbound);
+          outbound.compact();
+          if (outbound.position() == 0) {
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+          }
+        } else {
+          key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+          synchronized (lock) {
+            writable = true;
+            lock.notifyAll();
+          }
+        }
+      }
+    } catch (IOException e) {
+      fail(e);
+    } catch (JedisConnectionException e) {
+      // a malformed reply, the stream can not be trusted any more
+      fail(new IOException(e.getMessage(), e));
+    }
+  }
+
+  private void readReplies() throws IOException {
+    final int length = channel.read(decoder.writableBuffer());
+    if (length == -1) {
+      throw new EOFException("Unexpected end of stream.");
+    }
+    decoder.filled(length);
+    lastReadNanos = System.nanoTime();
+    boolean more = true;
+    while (more && channel.isOpen()) {
+      more = decoder.readReply(listener);
+    }
+  }
+
+  void fail(final IOException e) {
+    final boolean first;
+    synchronized (lock) {
+      first = failure == null;
+      if (first) {
+        failure = e;
+      }
+      lock.notifyAll();
+    }
+    close();
+    if (first && listener != null) {
+      listener.onFailure(new JedisConnectionException(e));
+    }
+  }
+
+  @Override
+  public void close() {
+    try {
+      channel.close();
+    } catch (IOException e) {
+      // ignored
+    }
+    synchronized (lock) {
+      lock.notifyAll();
+    }
+  }
+
+  /**
+   * @return false if the peer closed the connection, it failed or unread data is pending. Tells
+   *         with a single non-blocking read, so it never waits for the SO_TIMEOUT; a byte read
+   *         this way is handed out by the next read of the input stream.
+   */
+  boolean isIdleAndOpen() {
+    synchronized (lock) {
+      if (failure != null || !channel.isOpen() || peeked >= 0) {
+        return false;
+      }
+      try {
+        final ByteBuffer probe = ByteBuffer.allocate(1);
+        final int length = channel.read(probe);
+        if (length > 0) {
+          peeked = probe.get(0) & 0xFF;
+        }
+        return length == 0;
+      } catch (IOException e) {
+        return false;
+      }
+    }
+  }
+
+  private void checkFailure() throws IOException {
+    if (failure != null) {
+      throw new IOException(failure.getMessage(), failure);
+    }
+    if (!channel.isOpen()) {
+      throw new SocketException("Socket is closed");
+    }
+  }
+
+  private static long deadline(final int timeout) {
+    return timeout > 0 ? System.currentTimeMillis() + timeout : 0;
+  }
+
+  private void await(final long deadline, final String timeoutMessage) throws IOException {
+    long wait = 0;
+    if (deadline > 0) {
+      wait = deadline - System.currentTimeMillis();
+      if (wait <= 0) {
+        throw new SocketTimeoutException(timeoutMessage);
+      }
+    }
+    try {
+      lock.wait(wait);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting on channel", e);
+    }
+  }
+
+  private class ChannelInputStream extends InputStream {
+
+    @Override
+    public int read() throws IOException {
+      final byte[] b = new byte[1];
+      return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      synchronized (lock) {
+        if (peeked >= 0) {
+          b[off] = (byte) peeked;
+          peeked = -1;
+          return 1;
+        }
+        final long deadline = deadline(channel.socket().getSoTimeout());
+        while (true) {
+          checkFailure();
+          final int length = channel.read(ByteBuffer.wrap(b, off, len));
+          if (length != 0) {
+            return length;
+          }
+          readable = false;
+          worker.interest(NioChannel.this, SelectionKey.OP_READ, true);
+          while (!readable) {
+            checkFailure();
+            await(deadline, "Read timed out");
+          }
+        }
+      }
+    }
+
+    @Override
+    public int available() {
+      synchronized (lock) {
+        return peeked >= 0 ? 1 : 0;
+      }
+    }
+  }
+
+  private class ChannelOutputStream extends OutputStream {
+
+    @Override
+    public void write(final int b) throws IOException {
+      write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+      final ByteBuffer buf = ByteBuffer.wrap(b, off, len);
+      while (buf.hasRemaining()) {
+        if (channel.write(buf) == 0) {
+          awaitWritable();
+        }
+      }
+    }
+
+    private void awaitWritable() throws IOException {
+      synchronized (lock) {
+        writable = false;
+      }
+      worker.interest(NioChannel.this, SelectionKey.OP_WRITE, true);
+      synchronized (lock) {
+        final long deadline = deadline(channel.socket().getSoTimeout());
+        while (!writable) {
+          checkFailure();
+          await(deadline, "Write timed out");
+        }
+      }
+    }
+  }
+}
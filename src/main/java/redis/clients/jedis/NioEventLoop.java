@@ -0,0 +1,278 @@
+package redis.clients.jedis;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+/**
+ * Selector driven I/O threads shared by many connections. A {@link Connection} configured with an
+ * event loop (see {@link Connection#setEventLoop(NioEventLoop)}) uses a non-blocking
+ * {@link SocketChannel} instead of a blocking socket.
+ * <p>
+ * A {@link MultiplexedConnection} on such a connection is driven by the I/O threads: they decode
+ * replies as they arrive, complete the matching futures and, with auto-pipelining, write the
+ * queued commands. Any number of multiplexed connections is then served by the event loop's
+ * threads, without a reader or writer thread of their own.
+ * <p>
+ * The blocking API ({@link Jedis}, pipelines, pools and {@link JedisCluster}) does not gain
+ * threads from an event loop: the calling thread still waits for each reply, the I/O threads only
+ * tell it when to read or write. A pooled connection closed by the server is however detected
+ * when it is validated, see {@link JedisPoolConfig#setValidationIdleMillis(long)}.
+ * <p>
+ * SSL connections are not supported on an event loop.
+ */
+public class NioEventLoop implements Closeable {
+
+  private static final Logger log = LoggerFactory.getLogger(NioEventLoop.class);
+
+  private final Worker[] workers;
+  private final AtomicInteger next = new AtomicInteger();
+
+  public NioEventLoop() {
+    this(1);
+  }
+
+  public NioEventLoop(final int threads) {
+    if (threads <= 0) {
+      throw new IllegalArgumentException("threads <= 0");
+    }
+    workers = new Worker[threads];
+    try {
+      for (int i = 0; i < threads; i++) {
+        workers[i] = new Worker("jedis-nio-" + i);
+      }
+    } catch (IOException e) {
+      close();
+      throw new JedisConnectionException("Could not open selector", e);
+    }
+    for (Worker worker : workers) {
+      worker.start();
+    }
+  }
+
+  /**
+   * Opens a non-blocking channel to the given address, waiting at most
+   * <code>connectionTimeout</code> milliseconds (0 means forever) for the connection to be
+   * established.
+   */
+  NioChannel connect(final InetSocketAddress address, final int connectionTimeout)
+      throws IOException {
+    final Worker worker = workers[(next.getAndIncrement() & Integer.MAX_VALUE) % workers.length];
+    if (!worker.running) {
+      throw new JedisConnectionException("Event loop is closed");
+    }
+    final NioChannel channel = new NioChannel(SocketChannel.open(), worker);
+    channel.connect(address, connectionTimeout);
+    return channel;
+  }
+
+  public boolean isClosed() {
+    for (Worker worker : workers) {
+      if (worker != null && worker.running) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Stops the I/O threads and closes every channel they serve. Connections still being established
+   * fail right away.
+   */
+  @Override
+  public void close() {
+    for (Worker worker : workers) {
+      if (worker != null) {
+        worker.shutdown();
+      }
+    }
+  }
+
+  /**
+   * One selector and the thread spinning it. Interest changes requested by other threads are
+   * queued and applied by the worker itself, which avoids contending on the selector's key set.
+   */
+  static final class Worker extends Thread {
+    private final Selector selector;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+    // only used by the worker thread
+    private final Queue<Timer> timers = new PriorityQueue<Timer>();
+    private volatile boolean running = true;
+
+    Worker(final String name) throws IOException {
+      super(name);
+      setDaemon(true);
+      selector = Selector.open();
+    }
+
+    void execute(final Runnable task) {
+      if (!running) {
+        throw new JedisConnectionException("Event loop is closed");
+      }
+      tasks.add(task);
+      // the worker may have stopped and dropped its tasks since running was checked
+      if (!running && tasks.remove(task)) {
+        throw new JedisConnectionException("Event loop is closed");
+      }
+      selector.wakeup();
+    }
+
+    void schedule(final Runnable task, final long delayNanos) {
+      final long deadline = System.nanoTime() + delayNanos;
+      execute(new Runnable() {
+        @Override
+        public void run() {
+          timers.add(new Timer(deadline, task));
+        }
+      });
+    }
+
+    void register(final NioChannel channel, final int ops) {
+      execute(new Registration(channel, ops));
+    }
+
+    void interest(final NioChannel channel, final int ops, final boolean enable) {
+      execute(new Runnable() {
+        @Override
+        public void run() {
+          SelectionKey key = channel.getKey();
+          if (key != null && key.isValid()) {
+            key.interestOps(enable ? key.interestOps() | ops : key.interestOps() & ~ops);
+          }
+        }
+      });
+    }
+
+    @Override
+    public void run() {
+      while (running) {
+        try {
+          select();
+          runTasks();
+          Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+          while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            ((NioChannel) key.attachment()).ready(key);
+          }
+          runTimers();
+        } catch (IOException e) {
+          log.error("Event loop {} failed to select", getName(), e);
+        } catch (RuntimeException e) {
+          log.error("Event loop {} caught an unexpected exception", getName(), e);
+        }
+      }
+
+      for (SelectionKey key : selector.keys()) {
+        ((NioChannel) key.attachment()).fail(new IOException("Event loop is closed"));
+      }
+      Runnable task;
+      while ((task = tasks.poll()) != null) {
+        if (task instanceof Registration) {
+          // channels still waiting for their registration, e.g. to connect
+          ((Registration) task).channel.fail(new IOException("Event loop is closed"));
+        } else {
+          // they find their channel closed, e.g. a reply listener is told the channel failed
+          runTask(task);
+        }
+      }
+      try {
+        selector.close();
+      } catch (IOException e) {
+        // ignored
+      }
+    }
+
+    private void select() throws IOException {
+      final Timer timer = timers.peek();
+      if (timer == null) {
+        selector.select();
+        return;
+      }
+      final long wait = timer.deadline - System.nanoTime();
+      if (wait <= 0) {
+        selector.selectNow();
+      } else {
+        selector.select(TimeUnit.NANOSECONDS.toMillis(wait) + 1);
+      }
+    }
+
+    private void runTasks() {
+      Runnable task;
+      while ((task = tasks.poll()) != null) {
+        task.run();
+      }
+    }
+
+    private void runTimers() {
+      final long now = System.nanoTime();
+      Timer timer;
+      while ((timer = timers.peek()) != null && timer.deadline - now <= 0) {
+        timers.poll();
+        runTask(timer.task);
+      }
+    }
+
+    private void runTask(final Runnable task) {
+      try {
+        task.run();
+      } catch (RuntimeException e) {
+        log.error("Event loop {} caught an unexpected exception", getName(), e);
+      }
+    }
+
+    void shutdown() {
+      running = false;
+      selector.wakeup();
+    }
+
+    private static final class Timer implements Comparable<Timer> {
+      private final long deadline;
+      private final Runnable task;
+
+      private Timer(final long deadline, final Runnable task) {
+        this.deadline = deadline;
+        this.task = task;
+      }
+
+      @Override
+      public int compareTo(final Timer other) {
+        final long diff = deadline - other.deadline;
+        return diff < 0 ? -1 : diff > 0 ? 1 : 0;
+      }
+    }
+
+    private final class Registration implements Runnable {
+      private final NioChannel channel;
+      private final int ops;
+
+      private Registration(final NioChannel channel, final int ops) {
+        this.channel = channel;
+        this.ops = ops;
+      }
+
+      @Override
+      public void run() {
+        try {
+          channel.setKey(channel.getChannel().register(selector, ops, channel));
+        } catch (IOException e) {
+          channel.fail(e);
+        }
+      }
+    }
+  }
+}
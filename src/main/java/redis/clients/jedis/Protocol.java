@@ -111,25 +111,29 @@ public final class Protocol {
   }
 
   private static void processError(final RedisInputStream is) {
+    throw readError(is);
+  }
+
+  private static JedisDataException readError(final RedisInputStream is) {
     String message = is.readLine();
     // TODO: I'm not sure if this is the best way to do this.
     // Maybe Read only first 5 bytes instead?
     if (message.startsWith(MOVED_PREFIX)) {
       String[] movedInfo = parseTargetHostAndSlot(message);
-      throw new JedisMovedDataException(message, new HostAndPort(movedInfo[1],
+      return new JedisMovedDataException(message, new HostAndPort(movedInfo[1],
           Integer.parseInt(movedInfo[2])), Integer.parseInt(movedInfo[0]));
     } else if (message.startsWith(ASK_PREFIX)) {
       String[] askInfo = parseTargetHostAndSlot(message);
-      throw new JedisAskDataException(message, new HostAndPort(askInfo[1],
+      return new JedisAskDataException(message, new HostAndPort(askInfo[1],
           Integer.parseInt(askInfo[2])), Integer.parseInt(askInfo[0]));
     } else if (message.startsWith(CLUSTERDOWN_PREFIX)) {
-      throw new JedisClusterException(message);
+      return new JedisClusterException(message);
     } else if (message.startsWith(BUSY_PREFIX)) {
-      throw new JedisBusyException(message);
+      return new JedisBusyException(message);
     } else if (message.startsWith(NOSCRIPT_PREFIX) ) {
-      throw new JedisNoScriptException(message);
+      return new JedisNoScriptException(message);
     }
-    throw new JedisDataException(message);
+    return new JedisDataException(message);
   }
 
   public static String readErrorLineIfPossible(RedisInputStream is) {
@@ -180,6 +184,10 @@ public final class Protocol {
       return null;
     }
 
+    return readBulkPayload(is, len);
+  }
+
+  private static byte[] readBulkPayload(final RedisInputStream is, final int len) {
     final byte[] read = new byte[len];
     int offset = 0;
     while (offset < len) {
@@ -220,6 +228,135 @@ public final class Protocol {
     return process(is);
   }
 
+  /**
+   * Reads a bulk or multi-bulk reply handing every value to the consumer as a slice of the
+   * stream's buffer, so no intermediate array or list is allocated for values that fit in it.
+   * Status and integer elements are passed as their textual bytes. Errors nested in a multi-bulk
+   * reply, as well as nested multi-bulk replies, do not stop the reply from being fully read; the
+   * first of them is thrown afterwards.
+   * @return the number of elements in the reply, 1 for a single bulk reply and -1 for a nil
+   *         multi-bulk reply
+   */
+  public static int read(final RedisInputStream is, final BulkReplyConsumer consumer) {
+    final byte b = is.readByte();
+    switch (b) {
+    case ASTERISK_BYTE:
+      return processMultiBulkReply(is, consumer);
+    case MINUS_BYTE:
+      processError(is);
+      return 0;
+    default:
+      processElement(b, is, 0, consumer);
+      return 1;
+    }
+  }
+
+  private static int processMultiBulkReply(final RedisInputStream is,
+      final BulkReplyConsumer consumer) {
+    final int num = is.readIntCrLf();
+    if (num == -1) {
+      return -1;
+    }
+    JedisDataException failure = null;
+    for (int i = 0; i < num; i++) {
+      final byte b = is.readByte();
+      try {
+        if (b == ASTERISK_BYTE) {
+          processMultiBulkReply(is);
+          throw new JedisDataException("Nested multi-bulk reply can not be consumed as bulk replies");
+        } else if (b == MINUS_BYTE) {
+          processError(is);
+        } else {
+          processElement(b, is, i, consumer);
+        }
+      } catch (JedisDataException e) {
+        if (failure == null) {
+          failure = e;
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+    return num;
+  }
+
+  private static void processElement(final byte b, final RedisInputStream is, final int index,
+      final BulkReplyConsumer consumer) {
+    switch (b) {
+    case DOLLAR_BYTE:
+      processBulkReply(is, index, consumer);
+      break;
+    case PLUS_BYTE:
+    case COLON_BYTE:
+      final byte[] line = is.readLineBytes();
+      consumer.accept(index, line, 0, line.length);
+      break;
+    default:
+      throw new JedisConnectionException("Unknown reply: " + (char) b);
+    }
+  }
+
+  /**
+   * Reads one reply, nested multi-bulk replies included, pushing every element to the visitor as
+   * soon as it is parsed. Nothing but values larger than the stream's buffer is allocated, and
+   * error replies are handed to {@link ReplyVisitor#onError(JedisDataException)} instead of being
+   * thrown.
+   */
+  public static void read(final RedisInputStream is, final ReplyVisitor visitor) {
+    final byte b = is.readByte();
+    switch (b) {
+    case PLUS_BYTE:
+      visitor.onStatus(is.readLineBytes());
+      break;
+    case DOLLAR_BYTE:
+      final int len = is.readIntCrLf();
+      if (len == -1) {
+        visitor.onBulk(null, 0, -1);
+      } else if (is.ensureAvailable(len + 2)) {
+        final int offset = is.getPosition();
+        is.advance(len + 2);
+        visitor.onBulk(is.getBuffer(), offset, len);
+      } else {
+        visitor.onBulk(readBulkPayload(is, len), 0, len);
+      }
+      break;
+    case ASTERISK_BYTE:
+      final int num = is.readIntCrLf();
+      visitor.onArrayStart(num);
+      if (num != -1) {
+        for (int i = 0; i < num; i++) {
+          read(is, visitor);
+        }
+        visitor.onArrayEnd();
+      }
+      break;
+    case COLON_BYTE:
+      visitor.onInteger(is.readLongCrLf());
+      break;
+    case MINUS_BYTE:
+      visitor.onError(readError(is));
+      break;
+    default:
+      throw new JedisConnectionException("Unknown reply: " + (char) b);
+    }
+  }
+
+  private static void processBulkReply(final RedisInputStream is, final int index,
+      final BulkReplyConsumer consumer) {
+    final int len = is.readIntCrLf();
+    if (len == -1) {
+      consumer.accept(index, null, 0, -1);
+    } else if (is.ensureAvailable(len + 2)) {
+      // consume value and delimiter first, the buffer is left untouched until the next read
+      final int offset = is.getPosition();
+      is.advance(len + 2);
+      consumer.accept(index, is.getBuffer(), offset, len);
+    } else {
+      consumer.accept(index, readBulkPayload(is, len), 0, len);
+    }
+  }
+
   public static final byte[] toByteArray(final boolean value) {
     return value ? BYTES_TRUE : BYTES_FALSE;
   }
@@ -0,0 +1,27 @@
+package redis.clients.jedis;
+
+/**
+ * Which node of a slot serves the read only commands of a {@link JedisCluster}. Writes always go
+ * to the master. Replicas are sent READONLY the first time one of their connections is used, and
+ * may return slightly stale data since replication is asynchronous.
+ */
+public enum ReadFrom {
+  /**
+   * Read from the master only, the default.
+   */
+  MASTER,
+  /**
+   * Read from the replicas of the slot in turn, from the master when it has none.
+   */
+  REPLICA_PREFERRED,
+  /**
+   * Read from the node with the lowest PING latency among the master and its replicas, measured
+   * in the background every time the slot cache is renewed. Reads go to the master until the
+   * first measurement completes.
+   */
+  NEAREST,
+  /**
+   * Read from the master and its replicas in turn.
+   */
+  ROUND_ROBIN
+}
@@ -0,0 +1,174 @@
+package redis.clients.jedis;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.util.RedisInputStream;
+
+/**
+ * Decodes the replies received by a {@link NioEventLoop} worker without ever blocking. The socket
+ * is read straight into this stream's buffer, which grows to hold the largest reply, and a reply is
+ * only handed to {@link Protocol#read(RedisInputStream)} once all its bytes are there. Checking
+ * for completeness resumes where the previous check stopped, so a large reply arriving in many
+ * chunks is scanned once.
+ */
+final class ReplyDecoder extends RedisInputStream {
+
+  private static final int INITIAL_SIZE = 16 * 1024;
+
+  private static final InputStream INCOMPLETE = new InputStream() {
+    @Override
+    public int read() throws IOException {
+      throw new IOException("Reply is incomplete");
+    }
+  };
+
+  /** Bytes of the reply starting at count known to belong to complete elements. */
+  private int scanned;
+  /** Elements still expected by each enclosing multi-bulk reply. */
+  private long[] expected = new long[8];
+  private int depth;
+  private boolean complete;
+
+  ReplyDecoder() {
+    super(INCOMPLETE, INITIAL_SIZE);
+  }
+
+  /**
+   * @return the free space at the end of the buffer, to be filled by a channel read followed by
+   *         {@link #filled(int)}; never empty
+   */
+  ByteBuffer writableBuffer() {
+    if (limit == buf.length) {
+      final int remaining = limit - count;
+      if (count > 0 && remaining < buf.length / 2) {
+        System.arraycopy(buf, count, buf, 0, remaining);
+      } else {
+        final byte[] larger = new byte[buf.length * 2];
+        System.arraycopy(buf, count, larger, 0, remaining);
+        buf = larger;
+      }
+      count = 0;
+      limit = remaining;
+    }
+    return ByteBuffer.wrap(buf, limit, buf.length - limit);
+  }
+
+  void filled(final int length) {
+    limit += length;
+  }
+
+  /**
+   * Reads the next reply if it was fully received.
+   * @param listener receives the reply, a {@link JedisDataException} for an error reply
+   * @return false if the reply is still incomplete
+   */
+  boolean readReply(final NioChannel.ReplyListener listener) {
+    if (!complete && !scan()) {
+      return false;
+    }
+    complete = false;
+    scanned = 0;
+    Object reply;
+    try {
+      reply = Protocol.read(this);
+    } catch (JedisDataException e) {
+      reply = e;
+    }
+    if (count == limit) {
+      count = 0;
+      limit = 0;
+      if (buf.length > INITIAL_SIZE) {
+        // replies are copied out of the buffer, a large one does not need to stay allocated
+        buf = new byte[INITIAL_SIZE];
+      }
+    }
+    listener.onReply(reply);
+    return true;
+  }
+
+  private boolean scan() {
+    int pos = count + scanned;
+    while (true) {
+      final int lineEnd = findLineEnd(pos);
+      if (lineEnd == -1) {
+        break;
+      }
+      int next = lineEnd + 2;
+      boolean element = true;
+      switch (buf[pos]) {
+      case Protocol.PLUS_BYTE:
+      case Protocol.MINUS_BYTE:
+      case Protocol.COLON_BYTE:
+        break;
+      case Protocol.DOLLAR_BYTE:
+        final long len = parseLong(pos + 1, lineEnd);
+        if (len >= 0) {
+          if (limit - next < len + 2) {
+            // the header is read again once the payload is complete
+            scanned = pos - count;
+            return false;
+          }
+          next += (int) len + 2;
+        }
+        break;
+      case Protocol.ASTERISK_BYTE:
+        final long num = parseLong(pos + 1, lineEnd);
+        if (num > 0) {
+          push(num);
+          element = false;
+        }
+        break;
+      default:
+        throw new JedisConnectionException("Unknown reply: " + (char) buf[pos]);
+      }
+      pos = next;
+      if (element) {
+        while (depth > 0 && --expected[depth - 1] == 0) {
+          depth--;
+        }
+        if (depth == 0) {
+          scanned = pos - count;
+          complete = true;
+          return true;
+        }
+      }
+    }
+    scanned = pos - count;
+    return false;
+  }
+
+  private int findLineEnd(final int from) {
+    for (int i = from; i < limit - 1; i++) {
+      if (buf[i] == '\r' && buf[i + 1] == '\n') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private long parseLong(final int from, final int to) {
+    final boolean negative = from < to && buf[from] == '-';
+    long value = 0;
+    for (int i = negative ? from + 1 : from; i < to; i++) {
+      final int digit = buf[i] - '0';
+      if (digit < 0 || digit > 9) {
+        throw new JedisConnectionException("Invalid length in reply");
+      }
+      value = value * 10 + digit;
+    }
+    return negative ? -value : value;
+  }
+
+  private void push(final long num) {
+    if (depth == expected.length) {
+      final long[] larger = new long[depth * 2];
+      System.arraycopy(expected, 0, larger, 0, depth);
+      expected = larger;
+    }
+    expected[depth++] = num;
+  }
+}
@@ -0,0 +1,41 @@
+package redis.clients.jedis;
+
+import redis.clients.jedis.exceptions.JedisDataException;
+
+/**
+ * Push-style callback for consuming a reply while it is read from the connection, without
+ * materializing the reply tree. Elements of a multi-bulk reply are delivered between
+ * {@link #onArrayStart(int)} and {@link #onArrayEnd()}, nested arrays included, so arbitrarily
+ * large collections can be processed with constant memory.
+ * <p>
+ * Byte arrays handed to the visitor may be slices of the connection's read buffer and are only
+ * valid for the duration of the call.
+ * @see Protocol#read(redis.clients.jedis.util.RedisInputStream, ReplyVisitor)
+ */
+public interface ReplyVisitor {
+
+  /**
+   * @param size number of elements that follow, -1 for a nil multi-bulk reply (in which case
+   *          {@link #onArrayEnd()} is not called)
+   */
+  void onArrayStart(int size);
+
+  void onArrayEnd();
+
+  /**
+   * @param buf buffer holding the value, {@code null} for a nil reply
+   * @param offset start of the value in {@code buf}
+   * @param length length of the value, -1 for a nil reply
+   */
+  void onBulk(byte[] buf, int offset, int length);
+
+  void onStatus(byte[] status);
+
+  void onInteger(long value);
+
+  /**
+   * Called for error replies instead of throwing, so that the rest of the reply can still be
+   * consumed.
+   */
+  void onError(JedisDataException error);
+}
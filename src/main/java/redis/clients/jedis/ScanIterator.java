@@ -0,0 +1,104 @@
+package redis.clients.jedis;
+
+import java.io.Closeable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over the elements returned by a SCAN family command, fetching the pages lazily as the
+ * previous ones are consumed. The page size is the COUNT of the {@link ScanParams}.
+ * <p>
+ * With prefetching, the command for the next page is sent as soon as a page is received, so the
+ * server produces it while the current page is consumed. The connection then has a reply pending:
+ * it must not be used for anything else until the iteration is over or the iterator is closed.
+ */
+public abstract class ScanIterator<T> implements Iterator<T>, Closeable {
+
+  private final Client client;
+  private final ScanParams params;
+  private final boolean prefetch;
+  private byte[] cursor;
+  private Iterator<T> page = Collections.<T> emptyList().iterator();
+  private boolean pending;
+  private boolean finished;
+
+  protected ScanIterator(final Client client, final byte[] cursor, final ScanParams params,
+      final boolean prefetch) {
+    this.client = client;
+    this.cursor = cursor;
+    this.params = params != null ? params : new ScanParams();
+    this.prefetch = prefetch;
+  }
+
+  /**
+   * Writes the command for the page starting at the cursor, without reading its reply.
+   */
+  protected abstract void sendScan(Client client, byte[] cursor, ScanParams params);
+
+  protected abstract List<T> buildPage(List<byte[]> rawResults);
+
+  @Override
+  public boolean hasNext() {
+    while (!page.hasNext()) {
+      if (finished) {
+        return false;
+      }
+      fetch();
+    }
+    return true;
+  }
+
+  @Override
+  public T next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    return page.next();
+  }
+
+  @Override
+  public void remove() {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * @return the cursor to resume the scan after the page being consumed, "0" once the last page
+   *         was fetched
+   */
+  public byte[] getCursor() {
+    return cursor;
+  }
+
+  @SuppressWarnings("unchecked")
+  private void fetch() {
+    if (!pending) {
+      sendScan(client, cursor, params);
+    }
+    pending = false;
+    final List<Object> result = client.getObjectMultiBulkReply();
+    cursor = (byte[]) result.get(0);
+    finished = Arrays.equals(ScanParams.SCAN_POINTER_START_BINARY, cursor);
+    page = buildPage((List<byte[]>) result.get(1)).iterator();
+    if (prefetch && !finished) {
+      sendScan(client, cursor, params);
+      client.flush();
+      pending = true;
+    }
+  }
+
+  /**
+   * Stops the iteration, discarding the prefetched page if any.
+   */
+  @Override
+  public void close() {
+    if (pending) {
+      client.skipNextReply();
+      pending = false;
+    }
+    finished = true;
+    page = Collections.<T> emptyList().iterator();
+  }
+}
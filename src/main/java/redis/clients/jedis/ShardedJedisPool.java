@@ -31,6 +31,13 @@ public class ShardedJedisPool extends Pool<ShardedJedis> {
     super(poolConfig, new ShardedJedisFactory(shards, algo, keyTagPattern));
   }
 
+  @Override
+  public void initPool(GenericObjectPoolConfig poolConfig,
+      PooledObjectFactory<ShardedJedis> factory) {
+    super.initPool(poolConfig, factory, poolConfig instanceof JedisPoolConfig
+        && ((JedisPoolConfig) poolConfig).isThreadAffine());
+  }
+
   @Override
   public ShardedJedis getResource() {
     ShardedJedis jedis = super.getResource();
@@ -12,13 +12,15 @@ import redis.clients.jedis.exceptions.JedisDataException;
 public class Transaction extends MultiKeyPipelineBase implements Closeable {
 
   protected boolean inTransaction = true;
+  // restored if the transaction does not run, a queued SELECT has already changed the client's
+  private int dbBeforeMulti;
 
   protected Transaction() {
     // client will be set later in transaction block
   }
 
   public Transaction(final Client client) {
-    this.client = client;
+    setClient(client);
   }
 
   @Override
@@ -43,7 +45,7 @@ public class Transaction extends MultiKeyPipelineBase implements Closeable {
     client.exec();
     inTransaction = false;
 
-    List<Object> unformatted = client.getObjectMultiBulkReply();
+    List<Object> unformatted = readExecReply();
     if (unformatted == null) {
       return null;
     }
@@ -58,13 +60,32 @@ public class Transaction extends MultiKeyPipelineBase implements Closeable {
     return formatted;
   }
 
+  /**
+   * @return the replies of the queued commands, null if the transaction was aborted by WATCH
+   */
+  private List<Object> readExecReply() {
+    final List<Object> unformatted;
+    try {
+      unformatted = client.getObjectMultiBulkReply();
+    } catch (JedisDataException e) {
+      // EXECABORT, none of the queued commands ran
+      client.setDb(dbBeforeMulti);
+      throw e;
+    }
+    if (unformatted == null) {
+      // aborted by WATCH
+      client.setDb(dbBeforeMulti);
+    }
+    return unformatted;
+  }
+
   public List<Response<?>> execGetResponse() {
     // Discard QUEUED or ERROR
     client.getMany(getPipelinedResponseLength());
     client.exec();
     inTransaction = false;
 
-    List<Object> unformatted = client.getObjectMultiBulkReply();
+    List<Object> unformatted = readExecReply();
     if (unformatted == null) {
       return null;
     }
@@ -80,11 +101,14 @@ public class Transaction extends MultiKeyPipelineBase implements Closeable {
     client.discard();
     inTransaction = false;
     clean();
-    return client.getStatusCodeReply();
+    String status = client.getStatusCodeReply();
+    client.setDb(dbBeforeMulti);
+    return status;
   }
 
   public void setClient(Client client) {
     this.client = client;
+    this.dbBeforeMulti = client.getDB();
   }
 
   @Override
@@ -0,0 +1,361 @@
+package redis.clients.jedis.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import redis.clients.jedis.BinaryJedisCluster;
+import redis.clients.jedis.Protocol.Command;
+import redis.clients.jedis.commands.ProtocolCommand;
+
+/**
+ * Samples the keys of the commands sent to find the most requested keys and slots. One command in
+ * <code>sampleRate</code> is picked at random; the others only cost a random number.
+ * <p>
+ * The hottest keys are tracked with the Space-Saving algorithm in a table of
+ * <code>capacity</code> counters: a key seen while the table is full takes the place of the least
+ * counted one and inherits its count, which is kept as the key's maximum overestimation. Any key
+ * requested more than <code>1 / capacity</code> of the time is guaranteed to be in the table. The
+ * counters are kept in a Stream-Summary, lists of counters sharing the same count ordered by
+ * count, so that both counting a key and evicting the least counted one take constant time. The
+ * table is guarded by a single lock, only taken for the sampled commands. The requests per slot
+ * are counted exactly among the sampled commands, without locking.
+ * <p>
+ * All the counts returned are estimates of the real number of requests, i.e. sampled counts
+ * multiplied by the sample rate.
+ */
+public class HotKeySampler {
+
+  public static final int DEFAULT_CAPACITY = 128;
+  public static final int DEFAULT_SAMPLE_RATE = 100;
+
+  /**
+   * Commands whose first argument is not a key (a subcommand, a password, a channel, a pattern,
+   * a script...). Their arguments are never recorded.
+   */
+  private static final Set<Command> KEYLESS_COMMANDS = EnumSet.of(Command.PING, Command.QUIT,
+    Command.FLUSHDB, Command.KEYS, Command.RANDOMKEY, Command.DBSIZE, Command.SELECT,
+    Command.FLUSHALL, Command.MULTI, Command.DISCARD, Command.EXEC, Command.UNWATCH, Command.AUTH,
+    Command.SUBSCRIBE, Command.PUBLISH, Command.UNSUBSCRIBE, Command.PSUBSCRIBE,
+    Command.PUNSUBSCRIBE, Command.PUBSUB, Command.SAVE, Command.BGSAVE, Command.BGREWRITEAOF,
+    Command.LASTSAVE, Command.SHUTDOWN, Command.INFO, Command.MONITOR, Command.SLAVEOF,
+    Command.CONFIG, Command.SYNC, Command.ECHO, Command.DEBUG, Command.EVAL, Command.EVALSHA,
+    Command.SCRIPT, Command.SLOWLOG, Command.OBJECT, Command.BITOP, Command.SENTINEL,
+    Command.CLIENT, Command.TIME, Command.MIGRATE, Command.SCAN, Command.WAIT, Command.CLUSTER,
+    Command.ASKING, Command.READONLY, Command.MODULE, Command.SWAPDB, Command.MEMORY,
+    Command.XREAD, Command.XGROUP, Command.XREADGROUP);
+
+  /**
+   * Commands whose arguments are all keys.
+   */
+  private static final Set<Command> MULTI_KEY_COMMANDS = EnumSet.of(Command.MGET, Command.DEL,
+    Command.UNLINK, Command.EXISTS, Command.TOUCH);
+
+  /**
+   * Commands taking key value pairs.
+   */
+  private static final Set<Command> KEY_VALUE_COMMANDS = EnumSet.of(Command.MSET,
+    Command.MSETNX);
+
+  private final int capacity;
+  private final int sampleRate;
+  private final Map<Key, Counter> counters;
+  /** The buckets of counters by increasing count, guarded by <code>counters</code>. */
+  private Bucket minBucket;
+  private Bucket maxBucket;
+  private final AtomicLongArray slotCounts = new AtomicLongArray(BinaryJedisCluster.HASHSLOTS);
+
+  public HotKeySampler() {
+    this(DEFAULT_CAPACITY, DEFAULT_SAMPLE_RATE);
+  }
+
+  /**
+   * @param capacity number of keys tracked
+   * @param sampleRate one command in <code>sampleRate</code> is sampled, 1 to sample them all
+   */
+  public HotKeySampler(int capacity, int sampleRate) {
+    if (capacity <= 0 || sampleRate <= 0) {
+      throw new IllegalArgumentException("capacity and sampleRate must be positive");
+    }
+    this.capacity = capacity;
+    this.sampleRate = sampleRate;
+    this.counters = new HashMap<Key, Counter>(capacity * 2);
+  }
+
+  public int getSampleRate() {
+    return sampleRate;
+  }
+
+  private boolean shouldSample() {
+    return sampleRate == 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0;
+  }
+
+  public void sample(final String key) {
+    if (shouldSample()) {
+      record(SafeEncoder.encode(key), JedisClusterCRC16.getSlot(key));
+    }
+  }
+
+  public void sample(final byte[] key) {
+    if (shouldSample()) {
+      // the caller may reuse its array
+      record(key.clone(), JedisClusterCRC16.getSlot(key));
+    }
+  }
+
+  /**
+   * Samples the keys of the command: all of them for the multi key commands such as MGET or MSET,
+   * otherwise the first argument if it is a key. Each key is sampled on its own.
+   */
+  public void sample(final ProtocolCommand cmd, final byte[]... args) {
+    if (args.length == 0 || !(cmd instanceof Command) || KEYLESS_COMMANDS.contains(cmd)) {
+      return;
+    }
+    final int step;
+    if (MULTI_KEY_COMMANDS.contains(cmd)) {
+      step = 1;
+    } else if (KEY_VALUE_COMMANDS.contains(cmd)) {
+      step = 2;
+    } else {
+      step = args.length;
+    }
+    for (int i = 0; i < args.length; i += step) {
+      sample(args[i]);
+    }
+  }
+
+  private void record(final byte[] key, final int slot) {
+    slotCounts.incrementAndGet(slot);
+    final Key k = new Key(key);
+    synchronized (counters) {
+      Counter counter = counters.get(k);
+      if (counter == null) {
+        if (counters.size() < capacity) {
+          counter = new Counter(k);
+        } else {
+          // takes over the least counted key and its count
+          counter = minBucket.first;
+          counters.remove(counter.key);
+          counter.key = k;
+          counter.error = minBucket.count;
+        }
+        counters.put(k, counter);
+      }
+      increment(counter);
+    }
+  }
+
+  /**
+   * Moves the counter to the bucket of the next count, creating it if needed.
+   */
+  private void increment(final Counter counter) {
+    final Bucket bucket = counter.bucket;
+    final long count = bucket == null ? 1 : bucket.count + 1;
+    final Bucket next = bucket == null ? minBucket : bucket.next;
+    Bucket target = next;
+    if (next == null || next.count != count) {
+      target = new Bucket(count);
+      target.prev = next == null ? maxBucket : next.prev;
+      target.next = next;
+      if (target.prev != null) {
+        target.prev.next = target;
+      } else {
+        minBucket = target;
+      }
+      if (next != null) {
+        next.prev = target;
+      } else {
+        maxBucket = target;
+      }
+    }
+    if (bucket != null) {
+      bucket.remove(counter);
+      if (bucket.first == null) {
+        unlink(bucket);
+      }
+    }
+    target.add(counter);
+  }
+
+  private void unlink(final Bucket bucket) {
+    if (bucket.prev != null) {
+      bucket.prev.next = bucket.next;
+    } else {
+      minBucket = bucket.next;
+    }
+    if (bucket.next != null) {
+      bucket.next.prev = bucket.prev;
+    } else {
+      maxBucket = bucket.prev;
+    }
+  }
+
+  /**
+   * @return at most <code>count</code> keys, the most requested first
+   */
+  public List<HotKey> getHotKeys(final int count) {
+    final List<HotKey> hotKeys = new ArrayList<HotKey>(Math.min(count, capacity));
+    synchronized (counters) {
+      for (Bucket bucket = maxBucket; bucket != null; bucket = bucket.prev) {
+        for (Counter counter = bucket.first; counter != null; counter = counter.next) {
+          if (hotKeys.size() == count) {
+            return hotKeys;
+          }
+          hotKeys.add(new HotKey(counter.key.bytes, bucket.count * sampleRate, counter.error
+              * sampleRate));
+        }
+      }
+    }
+    return hotKeys;
+  }
+
+  /**
+   * @return the estimated number of requests per slot, indexed by slot
+   */
+  public long[] getSlotCounts() {
+    final long[] counts = new long[slotCounts.length()];
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = slotCounts.get(i) * sampleRate;
+    }
+    return counts;
+  }
+
+  public long getSlotCount(final int slot) {
+    return slotCounts.get(slot) * sampleRate;
+  }
+
+  /**
+   * Forgets everything sampled so far, e.g. to look at a new period.
+   */
+  public void reset() {
+    synchronized (counters) {
+      counters.clear();
+      minBucket = null;
+      maxBucket = null;
+    }
+    for (int i = 0; i < slotCounts.length(); i++) {
+      slotCounts.set(i, 0);
+    }
+  }
+
+  /**
+   * A key and its estimated number of requests.
+   */
+  public static class HotKey {
+    private final byte[] key;
+    private final long count;
+    private final long error;
+
+    public HotKey(byte[] key, long count, long error) {
+      this.key = key;
+      this.count = count;
+      this.error = error;
+    }
+
+    public byte[] getKey() {
+      return key;
+    }
+
+    public String getKeyAsString() {
+      return SafeEncoder.encode(key);
+    }
+
+    /**
+     * @return the estimated number of requests, at most {@link #getError()} too high
+     */
+    public long getCount() {
+      return count;
+    }
+
+    /**
+     * @return the maximum overestimation of the count, inherited from the key it replaced
+     */
+    public long getError() {
+      return error;
+    }
+
+    @Override
+    public String toString() {
+      return getKeyAsString() + "=" + count + "(+/-" + error + ")";
+    }
+  }
+
+  /**
+   * The count of a key is the one of its bucket.
+   */
+  private static final class Counter {
+    private Key key;
+    private long error;
+    private Bucket bucket;
+    private Counter prev;
+    private Counter next;
+
+    private Counter(Key key) {
+      this.key = key;
+    }
+  }
+
+  /**
+   * The counters sharing a count, linked to the buckets of the neighbouring counts.
+   */
+  private static final class Bucket {
+    private final long count;
+    private Counter first;
+    private Bucket prev;
+    private Bucket next;
+
+    private Bucket(long count) {
+      this.count = count;
+    }
+
+    private void add(Counter counter) {
+      counter.bucket = this;
+      counter.prev = null;
+      counter.next = first;
+      if (first != null) {
+        first.prev = counter;
+      }
+      first = counter;
+    }
+
+    private void remove(Counter counter) {
+      if (counter.prev != null) {
+        counter.prev.next = counter.next;
+      } else {
+        first = counter.next;
+      }
+      if (counter.next != null) {
+        counter.next.prev = counter.prev;
+      }
+      counter.bucket = null;
+      counter.prev = null;
+      counter.next = null;
+    }
+  }
+
+  private static final class Key {
+    private final byte[] bytes;
+    private final int hashCode;
+
+    private Key(byte[] bytes) {
+      this.bytes = bytes;
+      this.hashCode = Arrays.hashCode(bytes);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Key && Arrays.equals(bytes, ((Key) o).bytes);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+}
@@ -37,14 +37,23 @@ public final class JedisClusterCRC16 {
     throw new InstantiationError( "Must not instantiate this class" );
   }
 
+  /**
+   * Hashes the key from its characters as if they were encoded in UTF-8, without encoding it.
+   */
   public static int getSlot(String key) {
     if (key == null) {
       throw new JedisClusterOperationException("Slot calculation of null is impossible");
     }
 
-    key = JedisClusterHashTagUtil.getHashTag(key);
+    int s = key.indexOf('{');
+    if (s > -1) {
+      int e = key.indexOf('}', s + 1);
+      if (e > -1 && e != s + 1) {
+        return getCRC16(key, s + 1, e) & (16384 - 1);
+      }
+    }
     // optimization with modulo operator with power of 2 equivalent to getCRC16(key) % 16384
-    return getCRC16(key) & (16384 - 1);
+    return getCRC16(key, 0, key.length()) & (16384 - 1);
   }
 
   public static int getSlot(byte[] key) {
@@ -71,6 +80,27 @@ public final class JedisClusterCRC16 {
     return getCRC16(key) & (16384 - 1);
   }
 
+  /**
+   * Computes the slot of each key into <code>slots</code>, which must be at least as long.
+   */
+  public static void getSlots(byte[][] keys, int[] slots) {
+    if (slots.length < keys.length) {
+      throw new IllegalArgumentException("slots is shorter than keys");
+    }
+    for (int i = 0; i < keys.length; i++) {
+      slots[i] = getSlot(keys[i]);
+    }
+  }
+
+  public static void getSlots(String[] keys, int[] slots) {
+    if (slots.length < keys.length) {
+      throw new IllegalArgumentException("slots is shorter than keys");
+    }
+    for (int i = 0; i < keys.length; i++) {
+      slots[i] = getSlot(keys[i]);
+    }
+  }
+
   /**
    * Create a CRC16 checksum from the bytes. implementation is from mp911de/lettuce, modified with
    * some more optimizations
@@ -94,7 +124,42 @@ public final class JedisClusterCRC16 {
   }
 
   public static int getCRC16(String key) {
-    byte[] bytesKey = SafeEncoder.encode(key);
-    return getCRC16(bytesKey, 0, bytesKey.length);
+    return getCRC16(key, 0, key.length());
+  }
+
+  /**
+   * CRC16 of the UTF-8 encoding of the characters from s (inclusive) to e (exclusive), computed
+   * without encoding them. Like {@link SafeEncoder}, an unpaired surrogate counts as '?'.
+   */
+  private static int getCRC16(String key, int s, int e) {
+    int crc = 0x0000;
+
+    for (int i = s; i < e; i++) {
+      char c = key.charAt(i);
+      if (c < 0x80) {
+        crc = update(crc, c);
+      } else if (c < 0x800) {
+        crc = update(crc, 0xC0 | (c >> 6));
+        crc = update(crc, 0x80 | (c & 0x3F));
+      } else if (!Character.isSurrogate(c)) {
+        crc = update(crc, 0xE0 | (c >> 12));
+        crc = update(crc, 0x80 | ((c >> 6) & 0x3F));
+        crc = update(crc, 0x80 | (c & 0x3F));
+      } else if (Character.isHighSurrogate(c) && i + 1 < e
+          && Character.isLowSurrogate(key.charAt(i + 1))) {
+        int codePoint = Character.toCodePoint(c, key.charAt(++i));
+        crc = update(crc, 0xF0 | (codePoint >> 18));
+        crc = update(crc, 0x80 | ((codePoint >> 12) & 0x3F));
+        crc = update(crc, 0x80 | ((codePoint >> 6) & 0x3F));
+        crc = update(crc, 0x80 | (codePoint & 0x3F));
+      } else {
+        crc = update(crc, '?');
+      }
+    }
+    return crc & 0xFFFF;
+  }
+
+  private static int update(int crc, int b) {
+    return (crc << 8) ^ LOOKUP_TABLE[((crc >>> 8) ^ b) & 0xFF];
   }
 }
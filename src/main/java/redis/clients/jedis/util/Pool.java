@@ -1,8 +1,14 @@
 package redis.clients.jedis.util;
 
 import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
+import org.apache.commons.pool2.ObjectPool;
 import org.apache.commons.pool2.PooledObjectFactory;
 import org.apache.commons.pool2.impl.GenericObjectPool;
 import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
@@ -13,6 +19,11 @@ import redis.clients.jedis.exceptions.JedisExhaustedPoolException;
 
 public abstract class Pool<T> implements Closeable {
   protected GenericObjectPool<T> internalPool;
+  /**
+   * Used instead of {@link #internalPool} when asked for, see
+   * {@link #initPool(GenericObjectPoolConfig, PooledObjectFactory, boolean)}.
+   */
+  private ThreadAffinePool<T> threadAffinePool;
 
   /**
    * Using this constructor means you have to set and initialize the internalPool yourself.
@@ -30,24 +41,43 @@ public abstract class Pool<T> implements Closeable {
   }
 
   public boolean isClosed() {
-    return this.internalPool.isClosed();
+    return threadAffinePool != null ? threadAffinePool.isClosed() : this.internalPool.isClosed();
+  }
+
+  private ObjectPool<T> objectPool() {
+    return threadAffinePool != null ? threadAffinePool : internalPool;
   }
 
   public void initPool(final GenericObjectPoolConfig poolConfig, PooledObjectFactory<T> factory) {
+    initPool(poolConfig, factory, false);
+  }
 
-    if (this.internalPool != null) {
+  /**
+   * @param threadAffine whether to use a {@link ThreadAffinePool}, which hands each thread the
+   *          resource it returned last, instead of a {@link GenericObjectPool}
+   */
+  public void initPool(final GenericObjectPoolConfig poolConfig, PooledObjectFactory<T> factory,
+      final boolean threadAffine) {
+
+    if (this.internalPool != null || this.threadAffinePool != null) {
       try {
         closeInternalPool();
       } catch (Exception e) {
       }
     }
 
-    this.internalPool = new GenericObjectPool<T>(factory, poolConfig);
+    if (threadAffine) {
+      this.threadAffinePool = new ThreadAffinePool<T>(factory, poolConfig);
+      this.internalPool = null;
+    } else {
+      this.internalPool = new GenericObjectPool<T>(factory, poolConfig);
+      this.threadAffinePool = null;
+    }
   }
 
   public T getResource() {
     try {
-      return internalPool.borrowObject();
+      return objectPool().borrowObject();
     } catch (NoSuchElementException nse) {
       if (null == nse.getCause()) { // The exception was caused by an exhausted pool
         throw new JedisExhaustedPoolException(
@@ -65,7 +95,7 @@ public abstract class Pool<T> implements Closeable {
       return;
     }
     try {
-      internalPool.returnObject(resource);
+      objectPool().returnObject(resource);
     } catch (Exception e) {
       throw new JedisException("Could not return the resource to the pool", e);
     }
@@ -89,7 +119,7 @@ public abstract class Pool<T> implements Closeable {
 
   protected void returnBrokenResourceObject(final T resource) {
     try {
-      internalPool.invalidateObject(resource);
+      objectPool().invalidateObject(resource);
     } catch (Exception e) {
       throw new JedisException("Could not return the broken resource to the pool", e);
     }
@@ -97,11 +127,22 @@ public abstract class Pool<T> implements Closeable {
 
   protected void closeInternalPool() {
     try {
-      internalPool.close();
+      objectPool().close();
     } catch (Exception e) {
       throw new JedisException("Could not destroy the pool", e);
     }
   }
+
+  /**
+   * Destroys the idle resources, the borrowed ones are kept.
+   */
+  protected void clearInternalPool() {
+    try {
+      objectPool().clear();
+    } catch (Exception e) {
+      throw new JedisException("Could not clear the pool", e);
+    }
+  }
   
   /**
    * Returns the number of instances currently borrowed from this pool.
@@ -114,7 +155,7 @@ public abstract class Pool<T> implements Closeable {
       return -1;
     }
 
-    return this.internalPool.getNumActive();
+    return objectPool().getNumActive();
   }
   
   /**
@@ -128,7 +169,7 @@ public abstract class Pool<T> implements Closeable {
       return -1;
     }
 
-    return this.internalPool.getNumIdle();
+    return objectPool().getNumIdle();
   }
   
   /**
@@ -142,6 +183,9 @@ public abstract class Pool<T> implements Closeable {
       return -1;
     }
 
+    if (threadAffinePool != null) {
+      return threadAffinePool.getNumWaiters();
+    }
     return this.internalPool.getNumWaiters();
   }
   
@@ -157,6 +201,9 @@ public abstract class Pool<T> implements Closeable {
       return -1;
     }
 
+    if (threadAffinePool != null) {
+      return threadAffinePool.getMeanBorrowWaitTimeMillis();
+    }
     return this.internalPool.getMeanBorrowWaitTimeMillis();
   }
   
@@ -172,20 +219,103 @@ public abstract class Pool<T> implements Closeable {
       return -1;
     }
 
+    if (threadAffinePool != null) {
+      return threadAffinePool.getMaxBorrowWaitTimeMillis();
+    }
     return this.internalPool.getMaxBorrowWaitTimeMillis();
   }
 
   private boolean poolInactive() {
+    if (threadAffinePool != null) {
+      return threadAffinePool.isClosed();
+    }
     return this.internalPool == null || this.internalPool.isClosed();
   }
 
   public void addObjects(int count) {
     try {
       for (int i = 0; i < count; i++) {
-        this.internalPool.addObject();
+        objectPool().addObject();
       }
     } catch (Exception e) {
       throw new JedisException("Error trying to add idle objects", e);
     }
   }
+
+  /**
+   * Same as {@link #addObjects(int)} with up to <code>parallelism</code> resources created
+   * concurrently, so that warming up the pool takes about one connection time per
+   * <code>parallelism</code> connections.
+   */
+  public void addObjects(int count, int parallelism) {
+    addObjects(Collections.singletonList(this), count, parallelism);
+  }
+
+  /**
+   * Adds <code>count</code> idle resources to each of the pools, up to <code>parallelism</code> of
+   * them being created concurrently, spread across the pools. A failure does not stop the
+   * creation of the other resources, the first one is thrown once all are done.
+   */
+  public static void addObjects(final List<? extends Pool<?>> pools, final int count,
+      final int parallelism) {
+    final int total = pools.size() * count;
+    final AtomicInteger next = new AtomicInteger();
+    final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+    final Runnable task = new Runnable() {
+      @Override
+      public void run() {
+        int i;
+        while ((i = next.getAndIncrement()) < total) {
+          final Pool<?> pool = pools.get(i % pools.size());
+          if (pool.isClosed()) {
+            continue;
+          }
+          try {
+            pool.objectPool().addObject();
+            if (pool.isClosed()) {
+              // closed while the object was created, it would never be destroyed otherwise
+              pool.objectPool().clear();
+            }
+          } catch (Exception e) {
+            failure.compareAndSet(null, e);
+          }
+        }
+      }
+    };
+
+    final int threads = Math.min(parallelism, total);
+    final List<Thread> started = new ArrayList<Thread>();
+    for (int i = 1; i < threads; i++) {
+      final Thread thread = new Thread(task, "jedis-pool-warmup-" + i);
+      thread.setDaemon(true);
+      thread.start();
+      started.add(thread);
+    }
+    // the calling thread takes its share
+    task.run();
+    try {
+      for (Thread thread : started) {
+        thread.join();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new JedisException("Interrupted while adding idle objects", e);
+    }
+    if (failure.get() != null) {
+      throw new JedisException("Error trying to add idle objects", failure.get());
+    }
+  }
+
+  /**
+   * Adds idle resources concurrently until the pool holds at least minIdle of them, see
+   * {@link #addObjects(int, int)}.
+   */
+  public void preparePool(int parallelism) {
+    if (poolInactive()) {
+      return;
+    }
+    final int minIdle = threadAffinePool != null ? threadAffinePool.getMinIdle()
+        : internalPool.getMinIdle();
+    addObjects(Math.max(minIdle - objectPool().getNumIdle(), 0), parallelism);
+  }
 }
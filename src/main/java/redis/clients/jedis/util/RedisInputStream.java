@@ -23,7 +23,7 @@ import redis.clients.jedis.exceptions.JedisConnectionException;
  */
 public class RedisInputStream extends FilterInputStream {
 
-  protected final byte[] buf;
+  protected byte[] buf;
 
   protected int count, limit;
 
@@ -189,6 +189,76 @@ public class RedisInputStream extends FilterInputStream {
     return length;
   }
 
+  /**
+   * Makes sure the next <code>length</code> bytes are held contiguously in the internal buffer,
+   * starting at {@link #getPosition()}. Unread bytes are moved to the head of the buffer when
+   * needed. Nothing is consumed.
+   * @param length number of bytes that must be available
+   * @return false if <code>length</code> exceeds the buffer size, in which case the caller has to
+   *         fall back to {@link #read(byte[], int, int)}
+   */
+  public boolean ensureAvailable(final int length) throws JedisConnectionException {
+    if (length > buf.length) {
+      return false;
+    }
+
+    if (limit - count >= length) {
+      return true;
+    }
+
+    if (count > 0) {
+      final int remaining = Math.max(limit - count, 0);
+      System.arraycopy(buf, count, buf, 0, remaining);
+      limit = remaining;
+      count = 0;
+    }
+
+    try {
+      while (limit < length) {
+        final int size = in.read(buf, limit, buf.length - limit);
+        if (size == -1) {
+          throw new JedisConnectionException("Unexpected end of stream.");
+        }
+        limit += size;
+      }
+    } catch (IOException e) {
+      throw new JedisConnectionException(e);
+    }
+    return true;
+  }
+
+  /**
+   * Direct access to the internal buffer, to be used together with
+   * {@link #ensureAvailable(int)}, {@link #getPosition()} and {@link #advance(int)}. Its content
+   * is only stable until the next read operation.
+   */
+  public byte[] getBuffer() {
+    return buf;
+  }
+
+  public int getPosition() {
+    return count;
+  }
+
+  /**
+   * Consumes <code>length</code> bytes previously made available by {@link #ensureAvailable(int)}.
+   */
+  public void advance(final int length) {
+    if (length > limit - count) {
+      throw new IllegalArgumentException("Cannot advance past buffered data");
+    }
+    count += length;
+  }
+
+  /**
+   * @return the number of bytes buffered plus those the underlying stream can provide without
+   *         blocking
+   */
+  @Override
+  public int available() throws IOException {
+    return Math.max(limit - count, 0) + in.available();
+  }
+
   /**
    * This methods assumes there are required bytes to be read. If we cannot read anymore bytes an
    * exception is thrown to quickly ascertain that the stream was smaller than expected.
@@ -0,0 +1,456 @@
+package redis.clients.jedis.util;
+
+import java.lang.ref.WeakReference;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.pool2.BaseObjectPool;
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.PooledObjectFactory;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+
+/**
+ * An object pool tuned for short borrows, typically one command per borrow. Each thread first
+ * tries to get back the object it returned last, with a single compare-and-set and no shared
+ * structure involved. Otherwise it takes the most recently returned object from a lock-free
+ * stack, or creates one. A lock is only taken by threads that have to wait for an object, and by
+ * returns while some thread is waiting.
+ * <p>
+ * It is configured from a {@link GenericObjectPoolConfig}: maxTotal, maxIdle,
+ * blockWhenExhausted, maxWaitMillis, testOnCreate, testOnBorrow and testOnReturn have the same
+ * meaning. There is no evictor thread: with testWhileIdle, an object idle for longer than
+ * timeBetweenEvictionRunsMillis is validated when borrowed instead. JMX, abandoned object
+ * tracking and fairness are not supported. The wait time statistics only cover the borrows that
+ * had to wait.
+ */
+public class ThreadAffinePool<T> extends BaseObjectPool<T> {
+
+  private static final int IDLE = 0;
+  private static final int IN_USE = 1;
+  private static final int REMOVED = 2;
+
+  private final PooledObjectFactory<T> factory;
+  private final int maxTotal;
+  private final int maxIdle;
+  private final int minIdle;
+  private final boolean blockWhenExhausted;
+  private final long maxWaitMillis;
+  private final boolean testOnCreate;
+  private final boolean testOnBorrow;
+  private final boolean testOnReturn;
+  private final long idleTestMillis;
+
+  private final ConcurrentHashMap<IdentityKey, Entry<T>> entries =
+      new ConcurrentHashMap<IdentityKey, Entry<T>>();
+  // may hold entries borrowed since through a thread's last entry, see pollIdle
+  private final ConcurrentLinkedDeque<Entry<T>> idle = new ConcurrentLinkedDeque<Entry<T>>();
+  // weak so that a thread keeps neither an entry destroyed through another thread nor, since the
+  // object may point back to it, this pool alive
+  private final ThreadLocal<WeakReference<Entry<T>>> lastEntry =
+      new ThreadLocal<WeakReference<Entry<T>>>();
+  private final AtomicInteger created = new AtomicInteger();
+  private final AtomicInteger active = new AtomicInteger();
+
+  private final Lock waitLock = new ReentrantLock();
+  private final Condition available = waitLock.newCondition();
+  private volatile int waiters;
+  private long waits;
+  private long totalWaitMillis;
+  private volatile long maxWaitedMillis;
+
+  public ThreadAffinePool(final PooledObjectFactory<T> factory,
+      final GenericObjectPoolConfig poolConfig) {
+    this.factory = factory;
+    this.maxTotal = poolConfig.getMaxTotal();
+    this.maxIdle = poolConfig.getMaxIdle();
+    this.minIdle = poolConfig.getMinIdle();
+    this.blockWhenExhausted = poolConfig.getBlockWhenExhausted();
+    this.maxWaitMillis = poolConfig.getMaxWaitMillis();
+    this.testOnCreate = poolConfig.getTestOnCreate();
+    this.testOnBorrow = poolConfig.getTestOnBorrow();
+    this.testOnReturn = poolConfig.getTestOnReturn();
+    this.idleTestMillis = poolConfig.getTestWhileIdle()
+        && poolConfig.getTimeBetweenEvictionRunsMillis() > 0
+        ? poolConfig.getTimeBetweenEvictionRunsMillis() : -1;
+  }
+
+  @Override
+  public T borrowObject() throws Exception {
+    while (true) {
+      assertOpen();
+      final Entry<T> entry = borrowEntry();
+      final PooledObject<T> pooled = entry.pooled;
+      final boolean fresh = entry.fresh;
+      entry.fresh = false;
+      try {
+        factory.activateObject(pooled);
+        final boolean test = fresh ? testOnCreate || testOnBorrow : testOnBorrow
+            || (idleTestMillis >= 0
+                && System.currentTimeMillis() - pooled.getLastReturnTime() >= idleTestMillis);
+        if (test && !factory.validateObject(pooled)) {
+          throw new NoSuchElementException("Unable to validate object");
+        }
+      } catch (Exception e) {
+        destroy(entry);
+        if (fresh) {
+          // same as GenericObjectPool, the caller can tell it from an exhausted pool by the cause
+          NoSuchElementException nsee = new NoSuchElementException(
+              "Unable to activate or validate object");
+          nsee.initCause(e);
+          throw nsee;
+        }
+        continue;
+      }
+      pooled.allocate();
+      active.incrementAndGet();
+      setLastEntry(entry);
+      return entry.object;
+    }
+  }
+
+  private Entry<T> borrowEntry() throws Exception {
+    Entry<T> entry = tryBorrow();
+    if (entry != null) {
+      return entry;
+    }
+    if (!blockWhenExhausted) {
+      throw new NoSuchElementException("Pool exhausted");
+    }
+
+    final long start = System.nanoTime();
+    final long deadline = start + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+    while (true) {
+      waitLock.lock();
+      try {
+        waiters++;
+        try {
+          // checked again now that returns will signal, one may have happened meanwhile
+          entry = pollIdle();
+          if (entry == null && !hasCapacity()) {
+            assertOpen();
+            if (maxWaitMillis < 0) {
+              available.await();
+            } else {
+              final long remaining = deadline - System.nanoTime();
+              if (remaining <= 0) {
+                throw new NoSuchElementException("Timeout waiting for idle object");
+              }
+              available.awaitNanos(remaining);
+            }
+          }
+        } finally {
+          waiters--;
+        }
+      } finally {
+        waitLock.unlock();
+      }
+      if (entry == null) {
+        entry = tryBorrow();
+      }
+      if (entry != null) {
+        recordWait(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return entry;
+      }
+    }
+  }
+
+  private Entry<T> tryBorrow() throws Exception {
+    Entry<T> entry = getLastEntry();
+    if (entry != null) {
+      if (entry.state.compareAndSet(IDLE, IN_USE)) {
+        return entry;
+      }
+      if (entry.state.get() == REMOVED) {
+        // destroyed through another thread
+        lastEntry.remove();
+      }
+    }
+    entry = pollIdle();
+    return entry != null ? entry : create();
+  }
+
+  private Entry<T> getLastEntry() {
+    final WeakReference<Entry<T>> ref = lastEntry.get();
+    return ref != null ? ref.get() : null;
+  }
+
+  private void setLastEntry(final Entry<T> entry) {
+    if (getLastEntry() != entry) {
+      lastEntry.set(new WeakReference<Entry<T>>(entry));
+    }
+  }
+
+  /**
+   * Entries are pushed to the stack when returned unless they are in it already, and may have been
+   * borrowed through {@link #lastEntry} while in it: those are skipped, they are pushed again when
+   * returned.
+   */
+  private Entry<T> pollIdle() {
+    Entry<T> entry;
+    while ((entry = idle.pollFirst()) != null) {
+      // cleared before the state is checked so that a concurrent return pushes it again
+      entry.queued.set(false);
+      if (entry.state.compareAndSet(IDLE, IN_USE)) {
+        return entry;
+      }
+    }
+    return null;
+  }
+
+  private boolean hasCapacity() {
+    return maxTotal < 0 || created.get() < maxTotal;
+  }
+
+  /**
+   * @return a new entry in use, null if the pool is full
+   */
+  private Entry<T> create() throws Exception {
+    while (true) {
+      final int count = created.get();
+      if (maxTotal >= 0 && count >= maxTotal) {
+        return null;
+      }
+      if (created.compareAndSet(count, count + 1)) {
+        break;
+      }
+    }
+    final PooledObject<T> pooled;
+    try {
+      pooled = factory.makeObject();
+    } catch (Exception e) {
+      created.decrementAndGet();
+      signalWaiters();
+      throw e;
+    }
+    final Entry<T> entry = new Entry<T>(pooled);
+    entries.put(new IdentityKey(entry.object), entry);
+    if (isClosed()) {
+      destroy(entry);
+      throw new IllegalStateException("Pool not open");
+    }
+    return entry;
+  }
+
+  @Override
+  public void returnObject(final T obj) throws Exception {
+    final Entry<T> entry = getEntry(obj);
+    if (entry.state.get() != IN_USE) {
+      throw new IllegalStateException(
+          "Object has already been returned to this pool or is invalid");
+    }
+    active.decrementAndGet();
+    final PooledObject<T> pooled = entry.pooled;
+    try {
+      if (testOnReturn && !factory.validateObject(pooled)) {
+        destroy(entry);
+        return;
+      }
+      factory.passivateObject(pooled);
+    } catch (Exception e) {
+      destroy(entry);
+      return;
+    }
+    pooled.deallocate();
+
+    if (isClosed() || (maxIdle >= 0 && created.get() - active.get() > maxIdle)) {
+      destroy(entry);
+      return;
+    }
+    entry.state.set(IDLE);
+    setLastEntry(entry);
+    if (entry.queued.compareAndSet(false, true)) {
+      idle.offerFirst(entry);
+    }
+    signalWaiters();
+  }
+
+  @Override
+  public void invalidateObject(final T obj) throws Exception {
+    final Entry<T> entry = getEntry(obj);
+    if (entry.state.get() == IN_USE) {
+      active.decrementAndGet();
+      destroy(entry);
+    }
+  }
+
+  private Entry<T> getEntry(final T obj) {
+    Entry<T> entry = getLastEntry();
+    if (entry == null || entry.object != obj) {
+      // returned by another thread than the one that borrowed it
+      entry = entries.get(new IdentityKey(obj));
+      if (entry == null) {
+        throw new IllegalStateException("Object not currently part of this pool");
+      }
+    }
+    return entry;
+  }
+
+  private void destroy(final Entry<T> entry) {
+    entry.state.set(REMOVED);
+    if (getLastEntry() == entry) {
+      lastEntry.remove();
+    }
+    entries.remove(new IdentityKey(entry.object));
+    created.decrementAndGet();
+    try {
+      factory.destroyObject(entry.pooled);
+    } catch (Exception e) {
+      // the object is being discarded anyway
+    }
+    signalWaiters();
+  }
+
+  private void signalWaiters() {
+    if (waiters > 0) {
+      waitLock.lock();
+      try {
+        available.signalAll();
+      } finally {
+        waitLock.unlock();
+      }
+    }
+  }
+
+  private void recordWait(final long waitMillis) {
+    waitLock.lock();
+    try {
+      waits++;
+      totalWaitMillis += waitMillis;
+    } finally {
+      waitLock.unlock();
+    }
+    if (waitMillis > maxWaitedMillis) {
+      maxWaitedMillis = waitMillis;
+    }
+  }
+
+  /**
+   * Creates an idle object, unless the pool is full.
+   */
+  @Override
+  public void addObject() throws Exception {
+    assertOpen();
+    final Entry<T> entry = create();
+    if (entry == null) {
+      return;
+    }
+    entry.fresh = false;
+    try {
+      factory.passivateObject(entry.pooled);
+    } catch (Exception e) {
+      destroy(entry);
+      throw e;
+    }
+    entry.state.set(IDLE);
+    entry.queued.set(true);
+    idle.offerFirst(entry);
+    signalWaiters();
+  }
+
+  /**
+   * Destroys the idle objects.
+   */
+  @Override
+  public void clear() {
+    Entry<T> entry;
+    while ((entry = idle.pollFirst()) != null) {
+      entry.queued.set(false);
+      if (entry.state.compareAndSet(IDLE, REMOVED)) {
+        destroy(entry);
+      }
+    }
+  }
+
+  /**
+   * Destroys the idle objects, the borrowed ones are destroyed when returned. Threads waiting for
+   * an object fail.
+   */
+  @Override
+  public void close() {
+    super.close();
+    clear();
+    waitLock.lock();
+    try {
+      available.signalAll();
+    } finally {
+      waitLock.unlock();
+    }
+  }
+
+  @Override
+  public int getNumActive() {
+    return active.get();
+  }
+
+  @Override
+  public int getNumIdle() {
+    return Math.max(created.get() - active.get(), 0);
+  }
+
+  /**
+   * @return the configured minIdle, only used by {@link Pool#preparePool(int)} as there is no
+   *         evictor to maintain it
+   */
+  public int getMinIdle() {
+    return minIdle;
+  }
+
+  public int getNumWaiters() {
+    return waiters;
+  }
+
+  /**
+   * @return the mean time waited by the borrows that had to wait
+   */
+  public long getMeanBorrowWaitTimeMillis() {
+    waitLock.lock();
+    try {
+      return waits == 0 ? 0 : totalWaitMillis / waits;
+    } finally {
+      waitLock.unlock();
+    }
+  }
+
+  public long getMaxBorrowWaitTimeMillis() {
+    return maxWaitedMillis;
+  }
+
+  private static final class Entry<T> {
+    private final PooledObject<T> pooled;
+    private final T object;
+    private final AtomicInteger state = new AtomicInteger(IN_USE);
+    private final AtomicBoolean queued = new AtomicBoolean();
+    // only accessed by the thread the entry is lent to
+    private boolean fresh = true;
+
+    private Entry(final PooledObject<T> pooled) {
+      this.pooled = pooled;
+      this.object = pooled.getObject();
+    }
+  }
+
+  private static final class IdentityKey {
+    private final Object object;
+
+    private IdentityKey(final Object object) {
+      this.object = object;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      return o instanceof IdentityKey && ((IdentityKey) o).object == object;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(object);
+    }
+  }
+}
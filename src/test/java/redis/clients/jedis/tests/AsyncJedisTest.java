@@ -0,0 +1,172 @@
+package redis.clients.jedis.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import redis.clients.jedis.AsyncJedis;
+import redis.clients.jedis.BuilderFactory;
+import redis.clients.jedis.Client;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.JedisFuture;
+import redis.clients.jedis.MultiplexedConnection;
+import redis.clients.jedis.NioEventLoop;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+public class AsyncJedisTest {
+  private static final HostAndPort hnp = HostAndPortUtil.getRedisServers().get(0);
+
+  private AsyncJedis asyncJedis;
+
+  @Before
+  public void setUp() {
+    asyncJedis = new AsyncJedis(hnp.getHost(), hnp.getPort(), 2000, "foobared");
+    asyncJedis.sendCommand(BuilderFactory.STRING, Protocol.Command.FLUSHALL, new byte[0][]).join();
+  }
+
+  @After
+  public void tearDown() {
+    asyncJedis.close();
+  }
+
+  @Test
+  public void repliesAreMatchedInOrder() {
+    List<JedisFuture<Long>> incrs = new ArrayList<JedisFuture<Long>>();
+    for (int i = 0; i < 100; i++) {
+      incrs.add(asyncJedis.incr("counter"));
+    }
+    for (int i = 0; i < 100; i++) {
+      assertEquals(Long.valueOf(i + 1), incrs.get(i).join());
+    }
+    assertEquals("100", asyncJedis.get("counter").join());
+    assertNull(asyncJedis.get("missing").join());
+  }
+
+  @Test
+  public void errorRepliesFailOnlyTheirFuture() throws Exception {
+    asyncJedis.set("foo", "bar");
+    JedisFuture<Long> wrongType = asyncJedis.incr("foo");
+    JedisFuture<String> ping = asyncJedis.ping();
+    try {
+      wrongType.get();
+      fail("Expected an ExecutionException");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof JedisDataException);
+    }
+    assertEquals("PONG", ping.join());
+  }
+
+  @Test(expected = JedisConnectionException.class)
+  public void closedConnectionRejectsCommands() {
+    asyncJedis.close();
+    asyncJedis.ping().join();
+  }
+
+  @Test
+  public void autoPipeliningFromManyThreads() throws Exception {
+    Client client = new Client(hnp.getHost(), hnp.getPort());
+    client.setPassword("foobared");
+    final AsyncJedis pipelined = new AsyncJedis(new MultiplexedConnection(client, true, 50));
+    try {
+      Thread[] threads = new Thread[4];
+      for (int t = 0; t < threads.length; t++) {
+        threads[t] = new Thread() {
+          @Override
+          public void run() {
+            for (int i = 0; i < 500; i++) {
+              pipelined.incr("counter").join();
+            }
+          }
+        };
+        threads[t].start();
+      }
+      for (Thread thread : threads) {
+        thread.join();
+      }
+      assertEquals("2000", pipelined.get("counter").join());
+    } finally {
+      pipelined.close();
+    }
+  }
+
+  @Test
+  public void eventLoopDrivesReplies() throws Exception {
+    NioEventLoop eventLoop = new NioEventLoop();
+    Client client = new Client(hnp.getHost(), hnp.getPort());
+    client.setPassword("foobared");
+    client.setEventLoop(eventLoop);
+    AsyncJedis driven = new AsyncJedis(client);
+    try {
+      // larger than the event loop's initial read buffer
+      char[] chars = new char[100000];
+      Arrays.fill(chars, 'x');
+      String big = new String(chars);
+      driven.set("big", big);
+      JedisFuture<Long> wrongType = driven.incr("big");
+      JedisFuture<String> value = driven.get("big");
+      JedisFuture<String> ping = driven.ping();
+      try {
+        wrongType.get();
+        fail("Expected an ExecutionException");
+      } catch (ExecutionException e) {
+        assertTrue(e.getCause() instanceof JedisDataException);
+      }
+      assertEquals(big, value.join());
+      assertEquals("PONG", ping.join());
+      assertEquals(0, driven.getConnection().getPendingCount());
+    } finally {
+      driven.close();
+      eventLoop.close();
+    }
+  }
+
+  @Test
+  public void eventLoopWithAutoPipelining() throws Exception {
+    NioEventLoop eventLoop = new NioEventLoop();
+    try {
+      Client client = new Client(hnp.getHost(), hnp.getPort());
+      client.setPassword("foobared");
+      client.setEventLoop(eventLoop);
+      final AsyncJedis pipelined = new AsyncJedis(new MultiplexedConnection(client, true, 50));
+      Thread[] threads = new Thread[4];
+      for (int t = 0; t < threads.length; t++) {
+        threads[t] = new Thread() {
+          @Override
+          public void run() {
+            for (int i = 0; i < 500; i++) {
+              pipelined.incr("counter").join();
+            }
+          }
+        };
+        threads[t].start();
+      }
+      for (Thread thread : threads) {
+        thread.join();
+      }
+      assertEquals("2000", pipelined.get("counter").join());
+
+      eventLoop.close();
+      try {
+        pipelined.ping().join();
+        fail("The event loop is closed");
+      } catch (JedisConnectionException e) {
+        assertTrue(pipelined.getConnection().isBroken());
+      }
+      pipelined.close();
+    } finally {
+      eventLoop.close();
+    }
+  }
+}
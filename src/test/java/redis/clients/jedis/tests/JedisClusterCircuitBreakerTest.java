@@ -0,0 +1,128 @@
+package redis.clients.jedis.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.JedisClusterNodeHealth;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.JedisSlotBasedConnectionHandler;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+public class JedisClusterCircuitBreakerTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private JedisSlotBasedConnectionHandler handler;
+  private JedisPool pool;
+
+  @Before
+  public void setUp() throws IOException {
+    // nothing listens on the port, connections are refused
+    ServerSocket socket = new ServerSocket(0);
+    String node = "127.0.0.1:" + socket.getLocalPort();
+    socket.close();
+    File file = folder.newFile("slots");
+    Files.write(file.toPath(), Collections.singletonList("0-16383 " + node),
+      Charset.forName("UTF-8"));
+    handler = new JedisSlotBasedConnectionHandler(Collections.<HostAndPort> emptySet(),
+        new JedisPoolConfig(), 500, 500, null, null, null, file, 0);
+    pool = handler.getNodes().get(node);
+  }
+
+  @After
+  public void tearDown() {
+    handler.close();
+  }
+
+  @Test
+  public void opensAndClosesCircuit() throws InterruptedException {
+    handler.setCircuitBreaker(2, 200);
+    JedisClusterNodeHealth health = handler.getNodeHealth(pool);
+
+    assertConnectionFails();
+    assertTrue(handler.isAvailable(pool));
+    assertConnectionFails();
+    assertEquals(2, health.getFailures());
+    assertFalse(handler.isAvailable(pool));
+
+    // open, the node is not even tried
+    assertConnectionFails();
+    assertEquals(2, health.getFailures());
+
+    // half open once openMillis elapsed, a failed probe opens the circuit again
+    Thread.sleep(250);
+    assertTrue(handler.isAvailable(pool));
+    assertConnectionFails();
+    assertEquals(3, health.getFailures());
+    assertFalse(handler.isAvailable(pool));
+
+    // while a probe is in flight the other commands still fail fast
+    Thread.sleep(250);
+    assertTrue(health.tryStartProbe(200));
+    assertFalse(handler.isAvailable(pool));
+    assertFalse(health.tryStartProbe(200));
+    assertConnectionFails();
+    assertEquals(3, health.getFailures());
+    health.recordFailure();
+    assertFalse(handler.isAvailable(pool));
+
+    // a successful probe closes it
+    Thread.sleep(250);
+    assertTrue(health.tryStartProbe(200));
+    health.recordSuccess(1000);
+    assertTrue(handler.isAvailable(pool));
+    assertFalse(health.isProbing(200));
+  }
+
+  @Test
+  public void abandonedProbeIsReplaced() throws InterruptedException {
+    handler.setCircuitBreaker(1, 100);
+    JedisClusterNodeHealth health = handler.getNodeHealth(pool);
+    assertConnectionFails();
+    Thread.sleep(150);
+
+    assertTrue(health.tryStartProbe(100));
+    assertFalse(handler.isAvailable(pool));
+    // its outcome was never recorded
+    Thread.sleep(150);
+    assertTrue(handler.isAvailable(pool));
+    assertConnectionFails();
+    assertEquals(2, health.getFailures());
+  }
+
+  @Test
+  public void disabledByDefault() {
+    for (int i = 0; i < 5; i++) {
+      assertConnectionFails();
+    }
+    assertEquals(5, handler.getNodeHealth(pool).getFailures());
+    assertTrue(handler.isAvailable(pool));
+  }
+
+  private void assertConnectionFails() {
+    try {
+      handler.getConnectionFromSlot(0).close();
+      fail("The node should be unreachable");
+    } catch (JedisConnectionException e) {
+      // expected
+    }
+  }
+}
@@ -0,0 +1,187 @@
+package redis.clients.jedis.tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.JedisClusterInfoCache;
+import redis.clients.jedis.JedisClusterTopologyEvent;
+import redis.clients.jedis.JedisClusterTopologyEvent.Type;
+import redis.clients.jedis.JedisClusterTopologyListener;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+public class JedisClusterInfoCacheSnapshotTest {
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private JedisClusterInfoCache cache;
+
+  @Before
+  public void setUp() {
+    cache = new JedisClusterInfoCache(new GenericObjectPoolConfig(), 2000);
+  }
+
+  @After
+  public void tearDown() {
+    cache.reset();
+  }
+
+  @Test
+  public void loadsAndSavesSnapshot() throws IOException {
+    File file = folder.newFile("slots");
+    List<String> lines = Arrays.asList("# slots master [replicas...]",
+      "0-8191 127.0.0.1:7379 127.0.0.1:7382", "8192-16383 127.0.0.1:7380");
+    Files.write(file.toPath(), lines, UTF8);
+
+    assertTrue(cache.loadSnapshot(file));
+    assertEquals(3, cache.getNodes().size());
+    JedisPool master = cache.getNode("127.0.0.1:7379");
+    assertSame(master, cache.getSlotPool(0));
+    assertSame(master, cache.getSlotPool(8191));
+    assertSame(cache.getNode("127.0.0.1:7380"), cache.getSlotPool(8192));
+
+    File saved = new File(folder.getRoot(), "saved");
+    cache.saveSnapshot(saved);
+    assertEquals(lines, Files.readAllLines(saved.toPath(), UTF8));
+  }
+
+  @Test
+  public void keepsPoolsOfRemainingNodes() throws IOException {
+    File file = folder.newFile("slots");
+    Files.write(file.toPath(),
+      Arrays.asList("0-8191 127.0.0.1:7379", "8192-16383 127.0.0.1:7380"), UTF8);
+    assertTrue(cache.loadSnapshot(file));
+    JedisPool kept = cache.getNode("127.0.0.1:7379");
+    JedisPool dropped = cache.getNode("127.0.0.1:7380");
+
+    Files.write(file.toPath(),
+      Arrays.asList("0-10000 127.0.0.1:7379", "10001-16383 127.0.0.1:7381"), UTF8);
+    assertTrue(cache.loadSnapshot(file));
+    assertSame(kept, cache.getSlotPool(10000));
+    assertFalse(kept.isClosed());
+    assertTrue(dropped.isClosed());
+    assertNull(cache.getNode("127.0.0.1:7380"));
+    assertEquals(2, cache.getNodes().size());
+  }
+
+  @Test
+  public void ignoresInvalidSnapshot() throws IOException {
+    File file = folder.newFile("slots");
+    Files.write(file.toPath(), Arrays.asList("0-16384 127.0.0.1:7379"), UTF8);
+
+    assertFalse(cache.loadSnapshot(file));
+    assertFalse(cache.loadSnapshot(new File(folder.getRoot(), "missing")));
+    assertNull(cache.getSlotPool(0));
+    assertArrayEquals(new Object[0], cache.getNodes().keySet().toArray());
+  }
+
+  @Test
+  public void ignoresRenewalsAfterReset() throws IOException {
+    File file = folder.newFile("slots");
+    Files.write(file.toPath(), Arrays.asList("0-16383 127.0.0.1:7379"), UTF8);
+    File saved = new File(folder.getRoot(), "saved");
+    cache.setSnapshotFile(saved);
+    cache.reset();
+
+    cache.loadSnapshot(file);
+    assertTrue(cache.getNodes().isEmpty());
+    assertNull(cache.getSlotPool(0));
+    assertFalse(saved.exists());
+    try {
+      cache.setupNodeIfNotExist(new HostAndPort("127.0.0.1", 7379));
+      fail("The cache is closed");
+    } catch (JedisConnectionException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void notifiesTopologyChanges() throws IOException {
+    File file = folder.newFile("slots");
+    Files.write(file.toPath(), Arrays.asList("0-8191 127.0.0.1:7379 127.0.0.1:7382",
+      "8192-16383 127.0.0.1:7380"), UTF8);
+    assertTrue(cache.loadSnapshot(file));
+
+    final List<JedisClusterTopologyEvent> events = new ArrayList<JedisClusterTopologyEvent>();
+    cache.addTopologyListener(new JedisClusterTopologyListener() {
+      @Override
+      public void onTopologyEvent(JedisClusterTopologyEvent event) {
+        events.add(event);
+      }
+    });
+    // 7382 takes over from 7379, 7381 takes part of the slots of 7380
+    Files.write(file.toPath(), Arrays.asList("0-8191 127.0.0.1:7382",
+      "8192-9999 127.0.0.1:7381", "10000-16383 127.0.0.1:7380"), UTF8);
+    assertTrue(cache.loadSnapshot(file));
+
+    assertEquals(5, events.size());
+    assertEvent(events.get(0), Type.NODE_ADDED, "127.0.0.1:7381", null, -1, -1);
+    assertEvent(events.get(1), Type.NODE_REMOVED, "127.0.0.1:7379", null, -1, -1);
+    assertEvent(events.get(2), Type.MASTER_CHANGED, "127.0.0.1:7382", "127.0.0.1:7379", 0, 8191);
+    assertEvent(events.get(3), Type.SLOTS_MOVED, "127.0.0.1:7381", "127.0.0.1:7380", 8192, 9999);
+    assertEvent(events.get(4), Type.REFRESHED, null, null, -1, -1);
+    assertTrue(events.get(4).getRefreshNanos() >= 0);
+
+    events.clear();
+    assertTrue(cache.loadSnapshot(file));
+    assertEquals(1, events.size());
+    assertEquals(Type.REFRESHED, events.get(0).getType());
+  }
+
+  @Test
+  public void probesLatenciesWithShortTimeout() throws IOException {
+    // accepts connections but never answers
+    ServerSocket silent = new ServerSocket(0);
+    try {
+      File file = folder.newFile("slots");
+      Files.write(file.toPath(), Arrays.asList("0-16383 127.0.0.1:" + silent.getLocalPort()), UTF8);
+      assertTrue(cache.loadSnapshot(file));
+
+      long start = System.currentTimeMillis();
+      cache.requestLatencyMeasurement();
+      assertTrue(System.currentTimeMillis() - start < 500);
+
+      // bounded by the probe timeout rather than the 2 seconds of the pools
+      start = System.currentTimeMillis();
+      cache.measureLatencies();
+      assertTrue(System.currentTimeMillis() - start < 2000);
+      assertEquals(Long.MAX_VALUE, cache.getLatency(cache.getSlotPool(0)));
+    } finally {
+      silent.close();
+    }
+  }
+
+  private static void assertEvent(JedisClusterTopologyEvent event, Type type, String node,
+      String previousNode, int startSlot, int endSlot) {
+    assertEquals(type, event.getType());
+    assertEquals(node, event.getNode());
+    assertEquals(previousNode, event.getPreviousNode());
+    assertEquals(startSlot, event.getStartSlot());
+    assertEquals(endSlot, event.getEndSlot());
+  }
+}
@@ -0,0 +1,37 @@
+package redis.clients.jedis.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import redis.clients.jedis.JedisClusterNodeHealth;
+
+public class JedisClusterNodeHealthTest {
+
+  @Test
+  public void countsOutcomes() {
+    JedisClusterNodeHealth health = new JedisClusterNodeHealth();
+    assertFalse(health.hasSucceededWithin(1000));
+
+    health.recordFailure();
+    health.recordFailure();
+    assertEquals(2, health.getFailures());
+    assertEquals(2, health.getConsecutiveFailures());
+
+    health.recordSuccess(800);
+    assertEquals(1, health.getSuccesses());
+    assertEquals(0, health.getConsecutiveFailures());
+    assertEquals(800, health.getAverageLatency());
+    assertTrue(health.hasSucceededWithin(1000));
+  }
+
+  @Test
+  public void averagesLatency() {
+    JedisClusterNodeHealth health = new JedisClusterNodeHealth();
+    health.recordSuccess(800);
+    health.recordSuccess(1600);
+    assertEquals(900, health.getAverageLatency());
+  }
+}
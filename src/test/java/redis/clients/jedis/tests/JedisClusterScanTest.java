@@ -0,0 +1,62 @@
+package redis.clients.jedis.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.JedisClusterScan;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.JedisSlotBasedConnectionHandler;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+
+public class JedisClusterScanTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private JedisSlotBasedConnectionHandler handler;
+  private String node;
+
+  @Before
+  public void setUp() throws IOException {
+    // nothing listens on the port, the slot cache can not be renewed
+    ServerSocket socket = new ServerSocket(0);
+    node = "127.0.0.1:" + socket.getLocalPort();
+    socket.close();
+    File file = folder.newFile("slots");
+    Files.write(file.toPath(), Collections.singletonList("0-16383 " + node),
+      Charset.forName("UTF-8"));
+    handler = new JedisSlotBasedConnectionHandler(Collections.<HostAndPort> emptySet(),
+        new JedisPoolConfig(), 500, 500, null, null, null, file, 0);
+  }
+
+  @After
+  public void tearDown() {
+    handler.close();
+  }
+
+  @Test
+  public void keepsMastersMissingUntilConfirmed() {
+    // the other master is not in the cache, which could not be renewed to confirm it is gone
+    String missing = "127.0.0.1:1";
+    String cursor = missing + "=5," + node + "=-";
+    ScanResult<String> result = new JedisClusterScan(handler, 3).scan(cursor, new ScanParams());
+
+    assertTrue(result.getResult().isEmpty());
+    assertEquals(cursor, result.getCursor());
+  }
+}
@@ -4,6 +4,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.IOException;
@@ -18,9 +19,12 @@ import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import org.junit.After;
@@ -35,11 +39,22 @@ import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisCluster;
 import redis.clients.jedis.ClusterReset;
 import redis.clients.jedis.JedisClusterInfoCache;
+import redis.clients.jedis.JedisClusterNodeHealth;
+import redis.clients.jedis.JedisClusterPipeline;
+import redis.clients.jedis.JedisClusterTopologyEvent;
+import redis.clients.jedis.JedisClusterTopologyListener;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.MultiplexedJedisCluster;
+import redis.clients.jedis.ReadFrom;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
 import redis.clients.jedis.exceptions.*;
 import redis.clients.jedis.tests.utils.ClientKillerUtil;
 import redis.clients.jedis.tests.utils.JedisClusterTestUtil;
+import redis.clients.jedis.util.HotKeySampler;
+import redis.clients.jedis.util.HotKeySampler.HotKey;
 import redis.clients.jedis.util.JedisClusterCRC16;
 
 public class JedisClusterTest {
@@ -226,6 +241,90 @@ public class JedisClusterTest {
     nodeSlave2.flushDB();
   }
 
+  @Test
+  public void testReadFromReplica() throws Exception {
+    node1.clusterMeet(localHost, nodeInfoSlave2.getPort());
+    JedisClusterTestUtil.waitForClusterReady(node1, node2, node3, nodeSlave2);
+
+    for (String nodeInfo : node2.clusterNodes().split("\n")) {
+      if (nodeInfo.contains("myself")) {
+        nodeSlave2.clusterReplicate(nodeInfo.split(" ")[0]);
+        break;
+      }
+    }
+    Set<HostAndPort> jedisClusterNode = new HashSet<HostAndPort>();
+    jedisClusterNode.add(new HostAndPort("127.0.0.1", 7379));
+    JedisCluster jc = new JedisCluster(jedisClusterNode, DEFAULT_TIMEOUT, DEFAULT_TIMEOUT,
+        DEFAULT_REDIRECTIONS, "cluster", DEFAULT_CONFIG);
+    try {
+      jc.setReadFrom(ReadFrom.REPLICA_PREFERRED);
+      jc.set("test", "test");
+      node2.waitReplicas(1, DEFAULT_TIMEOUT);
+      assertEquals("test", jc.get("test"));
+    } finally {
+      jc.close();
+      nodeSlave2.clusterReset(ClusterReset.SOFT);
+      nodeSlave2.flushDB();
+    }
+  }
+
+  @Test
+  public void testCircuitBreaker() throws Exception {
+    Set<HostAndPort> jedisClusterNode = new HashSet<HostAndPort>();
+    jedisClusterNode.add(new HostAndPort("127.0.0.1", 7379));
+    JedisCluster jc = new JedisCluster(jedisClusterNode, DEFAULT_TIMEOUT, 200,
+        DEFAULT_REDIRECTIONS, "cluster", DEFAULT_CONFIG);
+    final AtomicInteger refreshes = new AtomicInteger();
+    jc.addTopologyListener(new JedisClusterTopologyListener() {
+      @Override
+      public void onTopologyEvent(JedisClusterTopologyEvent event) {
+        if (event.getType() == JedisClusterTopologyEvent.Type.REFRESHED) {
+          refreshes.incrementAndGet();
+        }
+      }
+    });
+    try {
+      jc.setCircuitBreaker(2, 60000);
+      jc.set("test", "test");
+      // node2 serves the slot of "test"
+      JedisClusterNodeHealth health = jc.getNodeHealth(
+        jc.getClusterNodes().get("127.0.0.1:7380"));
+      assertEquals(0, health.getConsecutiveFailures());
+
+      // node2 stops answering, well below the socket timeout of node2's own connection
+      node2.clientPause(1000);
+      try {
+        jc.set("test", "lost");
+        fail("The master should be unavailable");
+      } catch (JedisClusterMaxAttemptsException e) {
+        // two timeouts open the circuit, the remaining attempts are not sent to node2
+      }
+      assertEquals(2, health.getConsecutiveFailures());
+      assertEquals(2, health.getFailures());
+      // node2 answered less than openMillis ago, the topology is not renewed
+      assertEquals(0, refreshes.get());
+
+      // blocks until the pause is over
+      assertEquals("PONG", node2.ping());
+      try {
+        jc.set("test", "lost");
+        fail("The circuit should still be open");
+      } catch (JedisClusterMaxAttemptsException e) {
+        // failed fast, node2 was not tried
+      }
+      assertEquals(2, health.getFailures());
+      assertEquals(0, refreshes.get());
+
+      // the open period is over, the master is tried again
+      jc.setCircuitBreaker(2, 0);
+      assertEquals("OK", jc.set("test", "back"));
+      assertEquals(0, health.getConsecutiveFailures());
+      assertEquals("back", node2.get("test"));
+    } finally {
+      jc.close();
+    }
+  }
+
   /**
    * slot->nodes 15363 node3 e
    */
@@ -350,6 +449,40 @@ public class JedisClusterTest {
     assertEquals("foo", jc.get("51"));
   }
 
+  @Test
+  public void testRecalculateSlotsInBackground() throws InterruptedException {
+    Set<HostAndPort> jedisClusterNode = new HashSet<HostAndPort>();
+    jedisClusterNode.add(new HostAndPort("127.0.0.1", 7379));
+    JedisCluster jc = new JedisCluster(jedisClusterNode, DEFAULT_TIMEOUT, DEFAULT_TIMEOUT,
+        DEFAULT_REDIRECTIONS, "cluster", DEFAULT_CONFIG);
+    jc.startTopologyRefresher(10, 0);
+    int slot51 = JedisClusterCRC16.getSlot("51");
+    node2.clusterDelSlots(slot51);
+    node3.clusterDelSlots(slot51);
+    node3.clusterAddSlots(slot51);
+
+    JedisClusterTestUtil.waitForClusterReady(node1, node2, node3);
+    jc.set("51", "foo");
+    assertEquals("foo", jc.get("51"));
+
+    long deadline = System.currentTimeMillis() + 1000;
+    while (!"127.0.0.1:7381".equals(getSlotNodeKey(jc, slot51))
+        && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals("127.0.0.1:7381", getSlotNodeKey(jc, slot51));
+    jc.close();
+  }
+
+  private static String getSlotNodeKey(JedisCluster jc, int slot) {
+    Jedis jedis = jc.getConnectionFromSlot(slot);
+    try {
+      return JedisClusterInfoCache.getNodeKey(jedis);
+    } finally {
+      jedis.close();
+    }
+  }
+
   @Test
   public void testAskResponse() throws InterruptedException {
     Set<HostAndPort> jedisClusterNode = new HashSet<HostAndPort>();
@@ -363,6 +496,269 @@ public class JedisClusterTest {
     assertEquals("foo", jc.get("51"));
   }
 
+  @Test
+  public void testPipelineAcrossNodes() {
+    Set<HostAndPort> jedisClusterNode = new HashSet<HostAndPort>();
+    jedisClusterNode.add(new HostAndPort("127.0.0.1", 7379));
+    JedisCluster jc = new JedisCluster(jedisClusterNode, DEFAULT_TIMEOUT, DEFAULT_TIMEOUT,
+        DEFAULT_REDIRECTIONS, "cluster", DEFAULT_CONFIG);
+    JedisClusterPipeline pipeline = jc.pipelined();
+    pipeline.set("foo", "bar");
+    pipeline.set("test", "test");
+    Response<String> foo = pipeline.get("foo");
+    Response<Long> incr = pipeline.incr("test");
+    pipeline.sync();
+
+    assertEquals("bar", foo.get());
+    assertEquals("bar", node3.get("foo"));
+    assertEquals("test", node2.get("test"));
+    try {
+      incr.get();
+      fail("INCR of a non numeric value should fail");
+    } catch (JedisDataException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testPipelineFollowsRedirections() throws InterruptedException {
+    Set<HostAndPort> jedisClusterNode = new HashSet<HostAndPort>();
+    jedisClusterNode.add(new HostAndPort("127.0.0.1", 7379));
+    JedisCluster jc = new JedisCluster(jedisClusterNode, DEFAULT_TIMEOUT, DEFAULT_TIMEOUT,
+        DEFAULT_REDIRECTIONS, "cluster", DEFAULT_CONFIG);
+    int slot51 = JedisClusterCRC16.getSlot("51");
+    node3.clusterSetSlotImporting(slot51, JedisClusterTestUtil.getNodeId(node2.clusterNodes()));
+    node2.clusterSetSlotMigrating(slot51, JedisClusterTestUtil.getNodeId(node3.clusterNodes()));
+
+    JedisClusterPipeline pipeline = jc.pipelined();
+    pipeline.set("51", "foo");
+    pipeline.set("foo", "bar");
+    List<Object> results = pipeline.syncAndReturnAll();
+    assertEquals(2, results.size());
+    assertEquals("OK", results.get(0));
+    assertEquals("OK", results.get(1));
+  }
+
+  @Test
+  public void testMultiKeyCommandsAcrossSlots() {
+    Set<HostAndPort> jedisClusterNode = new HashSet<HostAndPort>();
+    jedisClusterNode.add(new HostAndPort("127.0.0.1", 7379));
+    JedisCluster jc = new JedisCluster(jedisClusterNode, DEFAULT_TIMEOUT, DEFAULT_TIMEOUT,
+        DEFAULT_REDIRECTIONS, "cluster", DEFAULT_CONFIG);
+    assertEquals("OK", jc.mset("foo", "bar", "test", "test", "51", "fiftyone"));
+    assertEquals("bar", node3.get("foo"));
+    assertEquals("test", node2.get("test"));
+
+    List<String> values = jc.mget("51", "missing", "foo", "test");
+    assertEquals(4, values.size());
+    assertEquals("fiftyone", values.get(0));
+    assertNull(values.get(1));
+    assertEquals("bar", values.get(2));
+    assertEquals("test", values.get(3));
+
+    assertEquals(Long.valueOf(3), jc.exists("foo", "test", "51", "missing"));
+    assertEquals(Long.valueOf(2), jc.del("foo", "test"));
+    assertEquals(Long.valueOf(1), jc.exists("foo", "test", "51"));
+  }
+
+  @Test
+  public void testSampleMultiKeyCommandsAcrossSlots() {
+    Set<HostAndPort> jedisClusterNode = new HashSet<HostAndPort>();
+    jedisClusterNode.add(new HostAndPort("127.0.0.1", 7379));
+    JedisCluster jc = new JedisCluster(jedisClusterNode, DEFAULT_TIMEOUT, DEFAULT_TIMEOUT,
+        DEFAULT_REDIRECTIONS, "cluster", DEFAULT_CONFIG);
+    HotKeySampler sampler = new HotKeySampler(10, 1);
+    jc.setHotKeySampler(sampler);
+
+    jc.mset("foo", "bar", "test", "test");
+    jc.mget("51", "foo", "test");
+    jc.mget("51", "foo");
+
+    List<HotKey> hotKeys = sampler.getHotKeys(10);
+    assertEquals(3, hotKeys.size());
+    assertEquals("foo", hotKeys.get(0).getKeyAsString());
+    assertEquals(3, hotKeys.get(0).getCount());
+    assertEquals(2, sampler.getSlotCount(JedisClusterCRC16.getSlot("51")));
+    assertEquals(2, sampler.getSlotCount(JedisClusterCRC16.getSlot("test")));
+    jc.close();
+  }
+
+  @Test
+  public void testScanCluster() {
+    Set<HostAndPort> jedisClusterNode = new HashSet<HostAndPort>();
+    jedisClusterNode.add(new HostAndPort("127.0.0.1", 7379));
+    JedisCluster jc = new JedisCluster(jedisClusterNode, DEFAULT_TIMEOUT, DEFAULT_TIMEOUT,
+        DEFAULT_REDIRECTIONS, "cluster", DEFAULT_CONFIG);
+    for (int i = 0; i < 100; i++) {
+      jc.set("scan" + i, "value");
+    }
+
+    for (int parallelism = 1; parallelism <= 3; parallelism += 2) {
+      Set<String> keys = new HashSet<String>();
+      ScanParams params = new ScanParams().match("scan*").count(10);
+      String cursor = ScanParams.SCAN_POINTER_START;
+      do {
+        ScanResult<String> result = jc.scanCluster(cursor, params, parallelism);
+        keys.addAll(result.getResult());
+        cursor = result.getCursor();
+      } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+      assertEquals(100, keys.size());
+    }
+  }
+
+  @Test
+  public void testMultiplexedCluster() throws InterruptedException, ExecutionException {
+    MultiplexedJedisCluster jc = newMultiplexedCluster(false);
+    try {
+      assertEquals("OK", jc.set("foo", "bar"));
+      assertEquals("bar", node3.get("foo"));
+      assertConcurrentIncrements(jc);
+    } finally {
+      jc.close();
+    }
+  }
+
+  @Test
+  public void testMultiplexedClusterAutoPipelining() throws InterruptedException,
+      ExecutionException {
+    MultiplexedJedisCluster jc = newMultiplexedCluster(true);
+    try {
+      assertEquals("OK", jc.set("foo", "bar"));
+      assertEquals("bar", node3.get("foo"));
+      assertConcurrentIncrements(jc);
+    } finally {
+      jc.close();
+    }
+  }
+
+  @Test
+  public void testMultiplexedClusterMovedResponse() throws InterruptedException {
+    MultiplexedJedisCluster jc = newMultiplexedCluster(false);
+    try {
+      assertEquals("OK", jc.set("51", "bar"));
+      int slot51 = JedisClusterCRC16.getSlot("51");
+      node2.clusterDelSlots(slot51);
+      node3.clusterDelSlots(slot51);
+      node3.clusterAddSlots(slot51);
+      JedisClusterTestUtil.waitForClusterReady(node1, node2, node3);
+
+      // node2 redirects to node3
+      assertEquals("OK", jc.set("51", "foo"));
+      assertEquals("foo", node3.get("51"));
+      assertEquals("foo", jc.get("51"));
+    } finally {
+      jc.close();
+    }
+  }
+
+  @Test
+  public void testMultiplexedClusterAskResponse() {
+    MultiplexedJedisCluster jc = newMultiplexedCluster(false);
+    try {
+      int slot51 = JedisClusterCRC16.getSlot("51");
+      node3.clusterSetSlotImporting(slot51, JedisClusterTestUtil.getNodeId(node2.clusterNodes()));
+      node2.clusterSetSlotMigrating(slot51, JedisClusterTestUtil.getNodeId(node3.clusterNodes()));
+      // node3 only accepts the commands preceded by ASKING
+      assertEquals("OK", jc.set("51", "foo"));
+      assertEquals("foo", jc.get("51"));
+      assertEquals(Long.valueOf(1), jc.incr("{51}counter"));
+    } finally {
+      jc.close();
+    }
+  }
+
+  @Test
+  public void testMultiplexedClusterReplacesBrokenConnection() {
+    MultiplexedJedisCluster jc = newMultiplexedCluster(false);
+    try {
+      assertEquals("OK", jc.set("foo", "bar"));
+      ClientKillerUtil.killClient(node3, "mux");
+      assertFalse(node3.clientList().contains("name=mux"));
+
+      // the command sent on the killed connection fails and is retried on a new one
+      assertEquals("bar", jc.get("foo"));
+      assertTrue(node3.clientList().contains("name=mux"));
+    } finally {
+      jc.close();
+    }
+  }
+
+  @Test
+  public void testMultiplexedClusterClosesRemovedNodes() throws InterruptedException {
+    node4.clusterMeet(localHost, nodeInfo1.getPort());
+    JedisClusterTestUtil.waitForClusterReady(node4);
+    String node3Id = JedisClusterTestUtil.getNodeId(node3.clusterNodes());
+    String node4Id = JedisClusterTestUtil.getNodeId(node4.clusterNodes());
+    JedisClusterTestUtil.assertNodeIsKnown(node1, node4Id, 1000);
+    JedisClusterTestUtil.assertNodeIsKnown(node2, node4Id, 1000);
+    JedisClusterTestUtil.assertNodeIsKnown(node3, node4Id, 1000);
+
+    MultiplexedJedisCluster jc = newMultiplexedCluster(false);
+    try {
+      // slot 15363 of "e" moves from node3 to node4
+      for (Jedis node : new Jedis[] { node1, node2, node3, node4 }) {
+        node.clusterSetSlotNode(15363, node4Id);
+      }
+      assertEquals("OK", jc.set("e", "e"));
+      assertEquals("e", node4.get("e"));
+      assertTrue(jc.getClusterNodes().containsKey("127.0.0.1:7382"));
+      assertTrue(node4.clientList().contains("name=mux"));
+
+      // and back, node4 no longer serves any slot
+      assertEquals(Long.valueOf(1), jc.del("e"));
+      for (Jedis node : new Jedis[] { node1, node2, node3, node4 }) {
+        node.clusterSetSlotNode(15363, node3Id);
+      }
+      assertNull(jc.get("e"));
+      assertFalse(jc.getClusterNodes().containsKey("127.0.0.1:7382"));
+
+      // the connection to node4 was closed along with its pool
+      long deadline = System.currentTimeMillis() + 1000;
+      while (node4.clientList().contains("name=mux") && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      assertFalse(node4.clientList().contains("name=mux"));
+    } finally {
+      jc.close();
+    }
+  }
+
+  private MultiplexedJedisCluster newMultiplexedCluster(boolean autoPipelining) {
+    Set<HostAndPort> jedisClusterNode = new HashSet<HostAndPort>();
+    jedisClusterNode.add(new HostAndPort("127.0.0.1", 7379));
+    return new MultiplexedJedisCluster(jedisClusterNode, DEFAULT_TIMEOUT, DEFAULT_TIMEOUT,
+        DEFAULT_REDIRECTIONS, "cluster", "mux", 1, autoPipelining);
+  }
+
+  private static void assertConcurrentIncrements(final MultiplexedJedisCluster jc)
+      throws InterruptedException, ExecutionException {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<Void>> futures = new ArrayList<Future<Void>>();
+      for (int i = 0; i < 8; i++) {
+        final String key = "mux" + i;
+        futures.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() {
+            for (long j = 1; j <= 100; j++) {
+              assertEquals(Long.valueOf(j), jc.incr(key));
+            }
+            return null;
+          }
+        }));
+      }
+      // rethrows the failures of the workers
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+      for (int i = 0; i < 8; i++) {
+        assertEquals("100", jc.get("mux" + i));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
   @Test(expected = JedisClusterMaxAttemptsException.class)
   public void testRedisClusterMaxRedirections() {
     Set<HostAndPort> jedisClusterNode = new HashSet<HostAndPort>();
@@ -200,6 +200,99 @@ public class JedisPoolTest {
     assertTrue(pool.isClosed());
   }
 
+  @Test
+  public void restoreDatabaseOnReturn() {
+    JedisPool pool = new JedisPool(new JedisPoolConfig(), hnp.getHost(), hnp.getPort(), 2000,
+        "foobared");
+
+    Jedis jedis0 = pool.getResource();
+    jedis0.select(1);
+    jedis0.set("foo", "db1");
+    jedis0.close();
+
+    Jedis jedis1 = pool.getResource();
+    assertTrue("Jedis instance was not reused", jedis1 == jedis0);
+    assertEquals(0, jedis1.getDB());
+    jedis1.set("foo", "db0");
+    jedis1.select(1);
+    assertEquals("db1", jedis1.get("foo"));
+    jedis1.del("foo");
+    jedis1.close();
+
+    jedis0 = pool.getResource();
+    assertEquals("db0", jedis0.get("foo"));
+    jedis0.del("foo");
+    jedis0.close();
+    pool.destroy();
+  }
+
+  @Test
+  public void threadAffinePool() {
+    JedisPoolConfig config = new JedisPoolConfig();
+    config.setMaxTotal(2);
+    config.setThreadAffine(true);
+    JedisPool pool = new JedisPool(config, hnp.getHost(), hnp.getPort(), 500, "foobared");
+
+    Jedis jedis0 = pool.getResource();
+    jedis0.select(1);
+    jedis0.set("affine", "db1");
+    assertEquals(1, pool.getNumActive());
+    assertEquals(0, pool.getNumIdle());
+    jedis0.close();
+    assertEquals(0, pool.getNumActive());
+    assertEquals(1, pool.getNumIdle());
+
+    // the thread gets its connection back, on the pool's database
+    Jedis jedis1 = pool.getResource();
+    assertTrue("Jedis instance was not reused", jedis1 == jedis0);
+    assertEquals(0, jedis1.getDB());
+    assertNull(jedis1.get("affine"));
+    jedis1.select(1);
+    jedis1.del("affine");
+
+    Jedis jedis2 = pool.getResource();
+    assertTrue(jedis2 != jedis1);
+    assertEquals(2, pool.getNumActive());
+    try {
+      // make connection broken
+      jedis2.getClient().getOne();
+      fail();
+    } catch (Exception e) {
+    }
+    assertTrue(jedis2.getClient().isBroken());
+    jedis2.close();
+    assertEquals(1, pool.getNumActive());
+    assertEquals(0, pool.getNumIdle());
+
+    jedis1.close();
+    assertEquals(0, pool.getNumActive());
+    assertEquals(1, pool.getNumIdle());
+    Jedis jedis3 = pool.getResource();
+    assertTrue("Jedis instance was not reused", jedis3 == jedis1);
+    assertEquals(0, jedis3.getDB());
+    jedis3.close();
+    pool.destroy();
+    assertTrue(pool.isClosed());
+  }
+
+  @Test
+  public void warmUpConcurrently() {
+    JedisPoolConfig config = new JedisPoolConfig();
+    config.setMinIdle(6);
+    JedisPool pool = new JedisPool(config, hnp.getHost(), hnp.getPort(), 2000, "foobared", 1,
+        "warm");
+    pool.preparePool(3);
+    assertEquals(6, pool.getNumIdle());
+    pool.addObjects(2, 2);
+    assertEquals(8, pool.getNumIdle());
+
+    Jedis jedis = pool.getResource();
+    assertEquals(1, jedis.getDB());
+    assertEquals("warm", jedis.clientGetname());
+    jedis.close();
+    pool.destroy();
+  }
+
   @Test
   public void customClientName() {
     JedisPool pool0 = new JedisPool(new JedisPoolConfig(), hnp.getHost(), hnp.getPort(), 2000,
@@ -401,6 +494,48 @@ public class JedisPoolTest {
 
   }
 
+  @Test
+  public void skipsPingForRecentlyReturnedConnections() {
+    JedisPoolConfig config = new JedisPoolConfig();
+    config.setMaxTotal(1);
+    config.setTestOnBorrow(true);
+    config.setValidationIdleMillis(60000);
+    JedisPool pool = new JedisPool(config, hnp.getHost(), hnp.getPort(), 2000, "foobared");
+    Jedis stats = new Jedis(hnp);
+    stats.auth("foobared");
+    String pings = getPingCalls(stats);
+
+    Jedis jedis = pool.getResource();
+    jedis.set("foo", "bar");
+    jedis.close();
+    for (int i = 0; i < 10; i++) {
+      jedis = pool.getResource();
+      assertEquals("bar", jedis.get("foo"));
+      jedis.close();
+    }
+    assertEquals(pings, getPingCalls(stats));
+
+    // a broken connection is never handed out again
+    jedis = pool.getResource();
+    jedis.disconnect();
+    jedis.close();
+    jedis = pool.getResource();
+    assertEquals("bar", jedis.get("foo"));
+    jedis.close();
+
+    stats.close();
+    pool.destroy();
+  }
+
+  private String getPingCalls(Jedis jedis) {
+    for (String line : jedis.info("commandstats").split("\r\n")) {
+      if (line.startsWith("cmdstat_ping:")) {
+        return line.split(",")[0];
+      }
+    }
+    return null;
+  }
+
   private int getClientCount(final String clientList) {
     return clientList.split("\n").length;
   }
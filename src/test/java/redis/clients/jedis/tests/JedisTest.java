@@ -2,6 +2,7 @@ package redis.clients.jedis.tests;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.IOException;
@@ -15,6 +16,8 @@ import org.junit.Test;
 import redis.clients.jedis.BinaryJedis;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisShardInfo;
+import redis.clients.jedis.NioEventLoop;
+import redis.clients.jedis.Pipeline;
 import redis.clients.jedis.Protocol;
 import redis.clients.jedis.exceptions.InvalidURIException;
 import redis.clients.jedis.exceptions.JedisConnectionException;
@@ -45,6 +48,67 @@ public class JedisTest extends JedisCommandTestBase {
     assertEquals(hash, jedis.hgetAll("foo"));
   }
 
+  @Test
+  public void connectWithEventLoop() {
+    NioEventLoop eventLoop = new NioEventLoop();
+    try {
+      Jedis jedis = new Jedis(hnp.getHost(), hnp.getPort());
+      jedis.getClient().setEventLoop(eventLoop);
+      jedis.auth("foobared");
+      assertEquals("OK", jedis.set("foo", "bar"));
+      assertEquals("bar", jedis.get("foo"));
+
+      Pipeline p = jedis.pipelined();
+      p.set("foo", "baz");
+      p.get("foo");
+      assertEquals("baz", p.syncAndReturnAll().get(1));
+      jedis.close();
+      assertFalse(jedis.isConnected());
+    } finally {
+      eventLoop.close();
+    }
+  }
+
+  @Test
+  public void unreadReplyMakesEventLoopConnectionUnusable() throws InterruptedException {
+    NioEventLoop eventLoop = new NioEventLoop();
+    try {
+      Jedis jedis = new Jedis(hnp.getHost(), hnp.getPort());
+      jedis.getClient().setEventLoop(eventLoop);
+      jedis.auth("foobared");
+      assertTrue(jedis.getClient().isIdleAndUsable());
+
+      // the second reply is left in the input stream's buffer or in the channel's
+      jedis.getClient().ping();
+      jedis.getClient().ping();
+      jedis.getClient().getStatusCodeReply();
+      Thread.sleep(50);
+      assertFalse(jedis.getClient().isIdleAndUsable());
+
+      jedis.getClient().getStatusCodeReply();
+      assertTrue(jedis.getClient().isIdleAndUsable());
+      jedis.close();
+    } finally {
+      eventLoop.close();
+    }
+  }
+
+  @Test
+  public void connectWithClosedEventLoop() {
+    NioEventLoop eventLoop = new NioEventLoop();
+    eventLoop.close();
+    Jedis jedis = new Jedis(hnp.getHost(), hnp.getPort());
+    jedis.getClient().setEventLoop(eventLoop);
+    try {
+      jedis.connect();
+      fail("The event loop is closed");
+    } catch (JedisConnectionException e) {
+      assertFalse(jedis.isConnected());
+    } finally {
+      jedis.close();
+    }
+  }
+
   @Test
   public void connectWithShardInfo() {
     JedisShardInfo shardInfo = new JedisShardInfo("localhost", Protocol.DEFAULT_PORT);
@@ -106,6 +170,58 @@ public class JedisTest extends JedisCommandTestBase {
     j.ping();
   }
 
+  @Test
+  public void handshakeOnConnect() {
+    Jedis j = new Jedis(hnp.getHost(), hnp.getPort());
+    j.getClient().setPassword("foobared");
+    j.getClient().setDb(2);
+    j.getClient().setClientName("handshake");
+    j.connect();
+    assertEquals(2, j.getDB());
+    assertEquals("handshake", j.clientGetname());
+    j.set("foo", "bar");
+    j.select(0);
+    assertEquals(null, j.get("foo"));
+    j.close();
+  }
+
+  @Test
+  public void handshakeFailureNamesTheStep() {
+    Jedis j = new Jedis(hnp.getHost(), hnp.getPort());
+    j.getClient().setPassword("wrong");
+    try {
+      j.connect();
+      fail("The handshake should fail");
+    } catch (JedisDataException e) {
+      assertTrue(e.getMessage().startsWith("AUTH failed"));
+    }
+    assertFalse(j.isConnected());
+    j.close();
+  }
+
+  @Test
+  public void failedPipelinedSelectBreaksConnection() {
+    jedis.getClient().pipelinedSelect(100000);
+    try {
+      jedis.get("foo");
+      fail("The SELECT should have failed");
+    } catch (JedisConnectionException e) {
+      assertTrue(jedis.getClient().isBroken());
+    }
+  }
+
+  @Test
+  public void authReplacesPasswordOfDisconnectedClient() {
+    Jedis j = new Jedis(hnp.getHost(), hnp.getPort());
+    j.getClient().setPassword("stale");
+    assertEquals("OK", j.auth("foobared"));
+    assertEquals("PONG", j.ping());
+    j.disconnect();
+    // reconnections use the new password as well
+    assertEquals("PONG", j.ping());
+    j.close();
+  }
+
   @Test
   public void shouldReconnectToSameDB() throws IOException {
     jedis.select(1);
@@ -14,12 +14,16 @@ import java.io.OutputStream;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.Test;
 
+import redis.clients.jedis.BulkReplyConsumer;
 import redis.clients.jedis.Protocol;
+import redis.clients.jedis.ReplyVisitor;
 import redis.clients.jedis.exceptions.JedisBusyException;
+import redis.clients.jedis.exceptions.JedisDataException;
 import redis.clients.jedis.util.RedisInputStream;
 import redis.clients.jedis.util.RedisOutputStream;
 import redis.clients.jedis.util.SafeEncoder;
@@ -138,4 +142,109 @@ public class ProtocolTest {
     }
     fail("Expected a JedisBusyException to be thrown.");
   }
+
+  @Test
+  public void multiBulkReplyAsSlices() {
+    InputStream is = new ByteArrayInputStream(
+        "*4\r\n$3\r\nfoo\r\n$-1\r\n:42\r\n$5\r\nHello\r\n".getBytes());
+    CollectingConsumer consumer = new CollectingConsumer();
+    assertEquals(4, Protocol.read(new RedisInputStream(is), consumer));
+    assertEquals("foo", consumer.values.get(0));
+    assertNull(consumer.values.get(1));
+    assertEquals("42", consumer.values.get(2));
+    assertEquals("Hello", consumer.values.get(3));
+  }
+
+  @Test
+  public void fragmentedBulkRepliesAsSlices() {
+    FragmentedByteArrayInputStream fis = new FragmentedByteArrayInputStream(
+        "*2\r\n$30\r\n012345678901234567890123456789\r\n$3\r\nbar\r\n".getBytes());
+    CollectingConsumer consumer = new CollectingConsumer();
+    // values larger than the buffer fall back to a copy
+    assertEquals(2, Protocol.read(new RedisInputStream(fis, 16), consumer));
+    assertEquals("012345678901234567890123456789", consumer.values.get(0));
+    assertEquals("bar", consumer.values.get(1));
+  }
+
+  @Test
+  public void errorInMultiBulkReplyAsSlices() {
+    RedisInputStream is = new RedisInputStream(new ByteArrayInputStream(
+        "*2\r\n-ERR oops\r\n$3\r\nbar\r\n+OK\r\n".getBytes()));
+    CollectingConsumer consumer = new CollectingConsumer();
+    try {
+      Protocol.read(is, consumer);
+      fail("Expected a JedisDataException to be thrown.");
+    } catch (JedisDataException e) {
+      assertEquals("ERR oops", e.getMessage());
+    }
+    assertEquals("bar", consumer.values.get(1));
+    // the whole reply was consumed
+    assertArrayEquals(SafeEncoder.encode("OK"), (byte[]) Protocol.read(is));
+  }
+
+  @Test
+  public void visitNestedReply() {
+    RedisInputStream is = new RedisInputStream(new ByteArrayInputStream(
+        "*4\r\n$3\r\nfoo\r\n*2\r\n:7\r\n$-1\r\n-ERR oops\r\n+OK\r\n:1\r\n".getBytes()));
+    RecordingVisitor visitor = new RecordingVisitor();
+    Protocol.read(is, visitor);
+    assertEquals("[4 foo [2 7 nil ] error:ERR oops OK ] ", visitor.events.toString());
+    // the whole reply was consumed
+    assertEquals(1L, Protocol.read(is));
+  }
+
+  @Test
+  public void visitNullMultiBulkReply() {
+    RecordingVisitor visitor = new RecordingVisitor();
+    Protocol.read(new RedisInputStream(new ByteArrayInputStream("*-1\r\n".getBytes())), visitor);
+    assertEquals("[-1 ", visitor.events.toString());
+  }
+
+  private static class RecordingVisitor implements ReplyVisitor {
+    private final StringBuilder events = new StringBuilder();
+
+    @Override
+    public void onArrayStart(int size) {
+      events.append('[').append(size).append(' ');
+    }
+
+    @Override
+    public void onArrayEnd() {
+      events.append("] ");
+    }
+
+    @Override
+    public void onBulk(byte[] buf, int offset, int length) {
+      events.append(length == -1 ? "nil" : SafeEncoder.encode(Arrays.copyOfRange(buf, offset,
+        offset + length))).append(' ');
+    }
+
+    @Override
+    public void onStatus(byte[] status) {
+      events.append(SafeEncoder.encode(status)).append(' ');
+    }
+
+    @Override
+    public void onInteger(long value) {
+      events.append(value).append(' ');
+    }
+
+    @Override
+    public void onError(JedisDataException error) {
+      events.append("error:").append(error.getMessage()).append(' ');
+    }
+  }
+
+  private static class CollectingConsumer implements BulkReplyConsumer {
+    private final List<String> values = new ArrayList<String>();
+
+    @Override
+    public void accept(int index, byte[] buf, int offset, int length) {
+      while (values.size() <= index) {
+        values.add(null);
+      }
+      values.set(index, length == -1 ? null : SafeEncoder.encode(Arrays.copyOfRange(buf, offset,
+        offset + length)));
+    }
+  }
 }
@@ -28,6 +28,7 @@ import org.junit.Test;
 import redis.clients.jedis.Jedis;
 
 import redis.clients.jedis.Protocol.Keyword;
+import redis.clients.jedis.ScanIterator;
 import redis.clients.jedis.ScanParams;
 import redis.clients.jedis.ScanResult;
 import redis.clients.jedis.util.SafeEncoder;
@@ -801,6 +802,32 @@ public class AllKindOfValuesCommandsTest extends JedisCommandTestBase {
     assertTrue(result.isCompleteIteration());
   }
 
+  @Test
+  public void scanIterator() {
+    for (int i = 0; i < 100; i++) {
+      jedis.set("a" + i, "a" + i);
+    }
+
+    for (boolean prefetch : new boolean[] { false, true }) {
+      Set<String> keys = new HashSet<String>();
+      ScanIterator<String> iterator = jedis.scanIterator(SCAN_POINTER_START,
+          new ScanParams().count(10), prefetch);
+      while (iterator.hasNext()) {
+        keys.add(iterator.next());
+      }
+      assertEquals(100, keys.size());
+      assertArrayEquals(SCAN_POINTER_START_BINARY, iterator.getCursor());
+    }
+
+    // closing discards the prefetched page
+    ScanIterator<String> iterator = jedis.scanIterator(SCAN_POINTER_START,
+        new ScanParams().count(10), true);
+    iterator.next();
+    iterator.close();
+    assertFalse(iterator.hasNext());
+    assertEquals("a1", jedis.get("a1"));
+  }
+
   private ScanResult<String> scanCompletely(String cursor) {
     ScanResult<String> scanResult;
     do {
@@ -22,6 +22,7 @@ import org.junit.Test;
 
 import redis.clients.jedis.Pipeline;
 import redis.clients.jedis.Response;
+import redis.clients.jedis.ScanIterator;
 import redis.clients.jedis.ScanParams;
 import redis.clients.jedis.ScanResult;
 
@@ -438,6 +439,40 @@ public class HashesCommandsTest extends JedisCommandTestBase {
     assertFalse(bResult.getResult().isEmpty());
   }
 
+  @Test
+  public void hscanIterator() {
+    // large enough not to be sent back in a single page
+    for (int i = 0; i < 200; i++) {
+      jedis.hset("foo", "f" + i, "v" + i);
+    }
+
+    for (boolean prefetch : new boolean[] { false, true }) {
+      Map<String, String> entries = new HashMap<String, String>();
+      ScanIterator<Map.Entry<String, String>> iterator = jedis.hscanIterator("foo",
+        SCAN_POINTER_START, new ScanParams().count(10), prefetch);
+      while (iterator.hasNext()) {
+        Map.Entry<String, String> entry = iterator.next();
+        entries.put(entry.getKey(), entry.getValue());
+      }
+      assertEquals(200, entries.size());
+      for (int i = 0; i < 200; i++) {
+        assertEquals("v" + i, entries.get("f" + i));
+      }
+      assertArrayEquals(SCAN_POINTER_START_BINARY, iterator.getCursor());
+    }
+
+    // binary
+    jedis.hset(bfoo, bbar, bcar);
+    for (boolean prefetch : new boolean[] { false, true }) {
+      ScanIterator<Map.Entry<byte[], byte[]>> bIterator = jedis.hscanIterator(bfoo,
+        SCAN_POINTER_START_BINARY, new ScanParams(), prefetch);
+      Map.Entry<byte[], byte[]> entry = bIterator.next();
+      assertArrayEquals(bbar, entry.getKey());
+      assertArrayEquals(bcar, entry.getValue());
+      assertFalse(bIterator.hasNext());
+    }
+  }
+
   @Test
   public void testHstrLen_EmptyHash() {
     Long response = jedis.hstrlen("myhash", "k1");
@@ -18,6 +18,7 @@ import java.util.Set;
 
 import org.junit.Test;
 
+import redis.clients.jedis.ScanIterator;
 import redis.clients.jedis.ScanParams;
 import redis.clients.jedis.ScanResult;
 
@@ -576,4 +577,37 @@ public class SetCommandsTest extends JedisCommandTestBase {
 
     assertFalse(bResult.getResult().isEmpty());
   }
+
+  @Test
+  public void sscanIterator() {
+    // large enough not to be sent back in a single page
+    Set<String> expected = new HashSet<String>();
+    for (int i = 0; i < 200; i++) {
+      expected.add("m" + i);
+    }
+    jedis.sadd("foo", expected.toArray(new String[expected.size()]));
+
+    for (boolean prefetch : new boolean[] { false, true }) {
+      Set<String> members = new HashSet<String>();
+      ScanIterator<String> iterator = jedis.sscanIterator("foo", SCAN_POINTER_START,
+        new ScanParams().count(10), prefetch);
+      while (iterator.hasNext()) {
+        members.add(iterator.next());
+      }
+      assertEquals(expected, members);
+      assertArrayEquals(SCAN_POINTER_START_BINARY, iterator.getCursor());
+    }
+
+    // binary
+    jedis.sadd(bfoo, bbar1, bbar2, bbar3);
+    for (boolean prefetch : new boolean[] { false, true }) {
+      Set<byte[]> bMembers = new HashSet<byte[]>();
+      ScanIterator<byte[]> bIterator = jedis.sscanIterator(bfoo, SCAN_POINTER_START_BINARY,
+        new ScanParams().count(1), prefetch);
+      while (bIterator.hasNext()) {
+        bMembers.add(bIterator.next());
+      }
+      assertByteArraySetEquals(new HashSet<byte[]>(Arrays.asList(bbar1, bbar2, bbar3)), bMembers);
+    }
+  }
 }
@@ -16,6 +16,7 @@ import java.util.Set;
 
 import org.junit.Test;
 
+import redis.clients.jedis.ScanIterator;
 import redis.clients.jedis.ScanParams;
 import redis.clients.jedis.ScanResult;
 import redis.clients.jedis.Tuple;
@@ -1235,6 +1236,40 @@ public class SortedSetCommandsTest extends JedisCommandTestBase {
     assertFalse(bResult.getResult().isEmpty());
   }
 
+  @Test
+  public void zscanIterator() {
+    // large enough not to be sent back in a single page
+    for (int i = 0; i < 200; i++) {
+      jedis.zadd("foo", i + 0.5, "m" + i);
+    }
+
+    for (boolean prefetch : new boolean[] { false, true }) {
+      Map<String, Double> scores = new HashMap<String, Double>();
+      ScanIterator<Tuple> iterator = jedis.zscanIterator("foo", SCAN_POINTER_START,
+        new ScanParams().count(10), prefetch);
+      while (iterator.hasNext()) {
+        Tuple tuple = iterator.next();
+        scores.put(tuple.getElement(), tuple.getScore());
+      }
+      assertEquals(200, scores.size());
+      for (int i = 0; i < 200; i++) {
+        assertEquals(i + 0.5, scores.get("m" + i), 0d);
+      }
+      assertArrayEquals(SCAN_POINTER_START_BINARY, iterator.getCursor());
+    }
+
+    // binary
+    jedis.zadd(bfoo, 2, bbar1);
+    for (boolean prefetch : new boolean[] { false, true }) {
+      ScanIterator<Tuple> bIterator = jedis.zscanIterator(bfoo, SCAN_POINTER_START_BINARY,
+        new ScanParams(), prefetch);
+      Tuple tuple = bIterator.next();
+      assertArrayEquals(bbar1, tuple.getBinaryElement());
+      assertEquals(2d, tuple.getScore(), 0d);
+      assertFalse(bIterator.hasNext());
+    }
+  }
+
   @Test
   public void infinity() {
     jedis.zadd("key", Double.POSITIVE_INFINITY, "pos");
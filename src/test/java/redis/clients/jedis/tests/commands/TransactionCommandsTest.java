@@ -160,6 +160,30 @@ public class TransactionCommandsTest extends JedisCommandTestBase {
     assertEquals("OK", status);
   }
 
+  @Test
+  public void discardKeepsDatabase() {
+    Transaction t = jedis.multi();
+    t.select(1);
+    t.discard();
+    assertEquals(0, jedis.getDB());
+  }
+
+  @Test
+  public void execAbortKeepsDatabase() {
+    Transaction t = jedis.multi();
+    t.select(1);
+    // wrong number of arguments, rejected when queued
+    t.sendCommand(SET, "foo");
+    try {
+      t.exec();
+      fail("EXEC should have been aborted");
+    } catch (JedisDataException e) {
+      assertTrue(e.getMessage().startsWith("EXECABORT"));
+    }
+    assertEquals(0, jedis.getDB());
+    assertEquals("PONG", jedis.ping());
+  }
+
   @Test
   public void transactionResponse() {
     jedis.set("string", "foo");
@@ -0,0 +1,70 @@
+package redis.clients.jedis.tests.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import redis.clients.jedis.Protocol.Command;
+import redis.clients.jedis.util.HotKeySampler;
+import redis.clients.jedis.util.HotKeySampler.HotKey;
+import redis.clients.jedis.util.JedisClusterCRC16;
+import redis.clients.jedis.util.SafeEncoder;
+
+public class HotKeySamplerTest {
+
+  @Test
+  public void findsHotKeysAmongManyColdOnes() {
+    HotKeySampler sampler = new HotKeySampler(10, 1);
+    for (int i = 0; i < 1000; i++) {
+      sampler.sample("hot");
+      sampler.sample(SafeEncoder.encode("warm"));
+      sampler.sample("hot");
+      sampler.sample("cold" + i);
+    }
+
+    List<HotKey> hotKeys = sampler.getHotKeys(2);
+    assertEquals(2, hotKeys.size());
+    assertEquals("hot", hotKeys.get(0).getKeyAsString());
+    assertTrue(hotKeys.get(0).getCount() - hotKeys.get(0).getError() >= 2000);
+    assertEquals("warm", hotKeys.get(1).getKeyAsString());
+    assertTrue(hotKeys.get(1).getCount() >= 1000);
+    assertEquals(2000, sampler.getSlotCount(JedisClusterCRC16.getSlot("hot")));
+  }
+
+  @Test
+  public void samplesAllKeysOfMultiKeyCommands() {
+    HotKeySampler sampler = new HotKeySampler(10, 1);
+    sampler.sample(Command.MGET, SafeEncoder.encodeMany("a", "b", "c"));
+    sampler.sample(Command.MSET, SafeEncoder.encodeMany("a", "value", "d", "value"));
+    sampler.sample(Command.SET, SafeEncoder.encodeMany("e", "value"));
+
+    List<HotKey> hotKeys = sampler.getHotKeys(10);
+    assertEquals(5, hotKeys.size());
+    assertEquals("a", hotKeys.get(0).getKeyAsString());
+    assertEquals(2, hotKeys.get(0).getCount());
+    assertEquals(0, sampler.getSlotCount(JedisClusterCRC16.getSlot("value")));
+  }
+
+  @Test
+  public void ignoresKeylessCommands() {
+    HotKeySampler sampler = new HotKeySampler(10, 1);
+    sampler.sample(Command.AUTH, SafeEncoder.encode("secret"));
+    sampler.sample(Command.PING);
+    // the first argument is a subcommand
+    sampler.sample(Command.XGROUP, SafeEncoder.encode("CREATE"), SafeEncoder.encode("stream"),
+      SafeEncoder.encode("group"), SafeEncoder.encode("$"));
+    sampler.sample(Command.OBJECT, SafeEncoder.encode("ENCODING"), SafeEncoder.encode("key"));
+    assertEquals(0, sampler.getHotKeys(10).size());
+    assertEquals(0, sampler.getSlotCount(JedisClusterCRC16.getSlot("CREATE")));
+
+    sampler.sample(Command.GET, SafeEncoder.encode("key"));
+    assertEquals("key", sampler.getHotKeys(10).get(0).getKeyAsString());
+
+    sampler.reset();
+    assertEquals(0, sampler.getHotKeys(10).size());
+    assertEquals(0, sampler.getSlotCount(JedisClusterCRC16.getSlot("key")));
+  }
+}
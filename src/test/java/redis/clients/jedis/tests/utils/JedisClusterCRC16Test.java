@@ -64,4 +64,28 @@ public class JedisClusterCRC16Test {
       JedisClusterCRC16.getSlot("bar".getBytes()));
   }
 
+  @Test
+  public void testStringGetSlotMatchesEncodedKey() {
+    String[] keys = { "ascii", "caf\u00e9", "\u4e2d\u6587{\u952e}", "emoji\ud83d\ude00{tag}",
+        "{\u00e9t\u00e9}x", "unpaired\ud83d", "low\ude00{}", "" };
+    for (String key : keys) {
+      assertEquals(key, JedisClusterCRC16.getSlot(SafeEncoder.encode(key)),
+        JedisClusterCRC16.getSlot(key));
+      assertEquals(key, JedisClusterCRC16.getCRC16(SafeEncoder.encode(key)),
+        JedisClusterCRC16.getCRC16(key));
+    }
+  }
+
+  @Test
+  public void testGetSlots() {
+    String[] keys = { "51", "foo{bar}", "{user1000}.followers" };
+    int[] slots = new int[keys.length];
+    JedisClusterCRC16.getSlots(keys, slots);
+    int[] binarySlots = new int[keys.length];
+    JedisClusterCRC16.getSlots(SafeEncoder.encodeMany(keys), binarySlots);
+    for (int i = 0; i < keys.length; i++) {
+      assertEquals(JedisClusterCRC16.getSlot(keys[i]), slots[i]);
+      assertEquals(slots[i], binarySlots[i]);
+    }
+  }
 }
@@ -0,0 +1,155 @@
+package redis.clients.jedis.tests.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.ref.WeakReference;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.pool2.BasePooledObjectFactory;
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.impl.DefaultPooledObject;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.junit.Test;
+
+import redis.clients.jedis.util.ThreadAffinePool;
+
+public class ThreadAffinePoolTest {
+
+  private static class CountingFactory extends BasePooledObjectFactory<Object> {
+    private final AtomicInteger created = new AtomicInteger();
+    private final AtomicInteger destroyed = new AtomicInteger();
+
+    @Override
+    public Object create() {
+      created.incrementAndGet();
+      return new Object();
+    }
+
+    @Override
+    public PooledObject<Object> wrap(Object obj) {
+      return new DefaultPooledObject<Object>(obj);
+    }
+
+    @Override
+    public void destroyObject(PooledObject<Object> p) {
+      destroyed.incrementAndGet();
+    }
+  }
+
+  private static GenericObjectPoolConfig config(int maxTotal, long maxWaitMillis) {
+    GenericObjectPoolConfig config = new GenericObjectPoolConfig();
+    config.setMaxTotal(maxTotal);
+    config.setMaxIdle(maxTotal);
+    config.setMaxWaitMillis(maxWaitMillis);
+    return config;
+  }
+
+  @Test
+  public void reusesReturnedObjects() throws Exception {
+    CountingFactory factory = new CountingFactory();
+    ThreadAffinePool<Object> pool = new ThreadAffinePool<Object>(factory, config(2, 100));
+
+    Object first = pool.borrowObject();
+    Object second = pool.borrowObject();
+    assertNotSame(first, second);
+    assertEquals(2, pool.getNumActive());
+    pool.returnObject(second);
+    pool.returnObject(first);
+    assertEquals(2, pool.getNumIdle());
+
+    assertSame(first, pool.borrowObject());
+    assertSame(second, pool.borrowObject());
+    assertEquals(2, factory.created.get());
+
+    pool.invalidateObject(second);
+    assertEquals(1, factory.destroyed.get());
+    assertNotSame(second, pool.borrowObject());
+  }
+
+  @Test
+  public void timesOutWhenExhausted() throws Exception {
+    ThreadAffinePool<Object> pool = new ThreadAffinePool<Object>(new CountingFactory(),
+        config(1, 50));
+    pool.borrowObject();
+    try {
+      pool.borrowObject();
+      fail();
+    } catch (NoSuchElementException e) {
+      assertNull(e.getCause());
+    }
+    assertTrue(pool.getMaxBorrowWaitTimeMillis() >= 0);
+  }
+
+  @Test
+  public void handsReturnedObjectToWaitingThread() throws Exception {
+    final ThreadAffinePool<Object> pool = new ThreadAffinePool<Object>(new CountingFactory(),
+        config(1, 5000));
+    final Object object = pool.borrowObject();
+    final Object[] borrowed = new Object[1];
+    Thread waiter = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          borrowed[0] = pool.borrowObject();
+        } catch (Exception e) {
+          // checked below
+        }
+      }
+    });
+    waiter.start();
+    while (pool.getNumWaiters() == 0) {
+      Thread.sleep(1);
+    }
+    pool.returnObject(object);
+    waiter.join(5000);
+    assertSame(object, borrowed[0]);
+  }
+
+  @Test
+  public void destroysIdleObjectsOnClose() throws Exception {
+    CountingFactory factory = new CountingFactory();
+    ThreadAffinePool<Object> pool = new ThreadAffinePool<Object>(factory, config(4, 100));
+    pool.addObject();
+    Object borrowed = pool.borrowObject();
+    pool.addObject();
+    pool.close();
+    assertEquals(1, factory.destroyed.get());
+    pool.returnObject(borrowed);
+    assertEquals(2, factory.destroyed.get());
+  }
+
+  @Test
+  public void forgetsObjectsDestroyedByAnotherThread() throws Exception {
+    final ThreadAffinePool<Object> pool = new ThreadAffinePool<Object>(new CountingFactory(),
+        config(2, 100));
+    Object object = pool.borrowObject();
+    pool.returnObject(object);
+    WeakReference<Object> ref = new WeakReference<Object>(object);
+    object = null;
+
+    Thread cleaner = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        pool.clear();
+      }
+    });
+    cleaner.start();
+    cleaner.join();
+
+    // this thread's last entry must not keep the destroyed object reachable
+    for (int i = 0; i < 50 && ref.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertNull(ref.get());
+    assertEquals(0, pool.getNumIdle());
+    pool.returnObject(pool.borrowObject());
+    assertEquals(1, pool.getNumIdle());
+  }
+}